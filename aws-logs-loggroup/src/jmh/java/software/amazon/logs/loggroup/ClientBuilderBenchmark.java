@@ -0,0 +1,42 @@
+package software.amazon.logs.loggroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of obtaining a client per handler invocation: building a fresh one, as every
+ * initiator used to, against looking it up in the container wide pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientBuilderBenchmark {
+    private static final ClientBuilder.ClientKey KEY =
+        new ClientBuilder.ClientKey(Region.US_EAST_1, null, Transport.LAMBDA);
+
+    @Benchmark
+    public CloudWatchLogsClient newClientPerInvocation() {
+        final CloudWatchLogsClient client = ClientBuilder.newClient(KEY);
+        client.close();
+        return client;
+    }
+
+    @Benchmark
+    public CloudWatchLogsClient pooledClient() {
+        return ClientBuilder.getClient(KEY.getRegion(), KEY.getEndpointOverride(), KEY.getTransport());
+    }
+}
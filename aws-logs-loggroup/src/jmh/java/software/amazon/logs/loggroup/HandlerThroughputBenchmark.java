@@ -0,0 +1,136 @@
+package software.amazon.logs.loggroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create/Delete lifecycles per second against FakeLogsEndpoint with a fixed service latency: the
+ * blocking handlers, each lifecycle holding one of a fixed number of threads, against
+ * AsyncPipeline with every lifecycle of the batch in flight at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HandlerThroughputBenchmark {
+    private static final int LIFECYCLES = 64;
+
+    @Param({"0", "20", "200"})
+    public int latencyMillis;
+
+    @Param({"8"})
+    public int blockingThreads;
+
+    private final AtomicLong names = new AtomicLong();
+    private final LoggerProxy logger = new LoggerProxy() {
+        @Override
+        public void log(final String message) {
+        }
+    };
+    private FakeLogsEndpoint endpoint;
+    private ExecutorService pool;
+    private AmazonWebServicesClientProxy proxy;
+    private AsyncPipeline pipeline;
+
+    @Setup
+    public void setup() throws IOException {
+        endpoint = FakeLogsEndpoint.start();
+        endpoint.setLatency(Duration.ofMillis(latencyMillis));
+        System.setProperty("aws.region", "us-east-1");
+        System.setProperty(ClientBuilder.ENDPOINT_PROPERTY, endpoint.getEndpoint().toString());
+        //
+        // Measures the handlers, not the client side pacing of the blocking client
+        //
+        RateLimiter.shared().setDefaultRate(0);
+        pool = Executors.newFixedThreadPool(blockingThreads);
+        proxy = new AmazonWebServicesClientProxy(logger, new Credentials("accessKey", "secretKey", "token"),
+            () -> TimeUnit.MINUTES.toMillis(15));
+        pipeline = new AsyncPipeline(proxy, ClientBuilder.getAsyncClient(), logger);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+        endpoint.close();
+        System.clearProperty(ClientBuilder.ENDPOINT_PROPERTY);
+        RateLimiter.shared().reset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIFECYCLES)
+    public void blockingHandlers() throws InterruptedException, ExecutionException {
+        final List<Future<?>> lifecycles = new ArrayList<>(LIFECYCLES);
+        for (int i = 0; i < LIFECYCLES; i++) {
+            final ResourceHandlerRequest<ResourceModel> request = request();
+            lifecycles.add(pool.submit(() -> {
+                succeeded(new CreateHandler().handleRequest(proxy, request, null, logger));
+                succeeded(new DeleteHandler().handleRequest(proxy, request, null, logger));
+            }));
+        }
+        for (final Future<?> lifecycle : lifecycles) {
+            lifecycle.get();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIFECYCLES)
+    public void asyncPipeline() {
+        final CompletableFuture<?>[] lifecycles = new CompletableFuture<?>[LIFECYCLES];
+        for (int i = 0; i < LIFECYCLES; i++) {
+            final ResourceHandlerRequest<ResourceModel> request = request();
+            lifecycles[i] = pipeline.create(request)
+                .thenCompose(created -> {
+                    succeeded(created);
+                    return pipeline.delete(request);
+                })
+                .thenAccept(HandlerThroughputBenchmark::succeeded);
+        }
+        CompletableFuture.allOf(lifecycles).join();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request() {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder()
+                .logGroupName("benchmark-" + names.incrementAndGet())
+                .retentionInDays(7)
+                .build())
+            .build();
+    }
+
+    private static void succeeded(final ProgressEvent<ResourceModel, CallbackContext> event) {
+        if (event.getStatus() != OperationStatus.SUCCESS) {
+            throw new IllegalStateException(event.getStatus() + ": " + event.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package software.amazon.logs.loggroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translator cost for describe responses of 1, 50 (a full page) and 10k log groups. The read
+ * translator is asked for the last log group, the worst case for the single pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranslatorBenchmark {
+
+    @Param({"1", "50", "10000"})
+    private int logGroups;
+
+    private DescribeLogGroupsResponse response;
+    private String lastLogGroupName;
+
+    @Setup
+    public void setup() {
+        final List<LogGroup> groups = new ArrayList<>(logGroups);
+        for (int i = 0; i < logGroups; i++) {
+            final String name = String.format("/aws/lambda/function-%05d", i);
+            groups.add(LogGroup.builder()
+                .logGroupName(name)
+                .arn("arn:aws:logs:us-east-1:123456789012:log-group:" + name + ":*")
+                .retentionInDays(i % 2 == 0 ? 14 : null)
+                .kmsKeyId(i % 3 == 0 ? "arn:aws:kms:us-east-1:123456789012:key/" + i : null)
+                .storedBytes((long) i)
+                .creationTime(1577836800000L + i)
+                .build());
+        }
+        response = DescribeLogGroupsResponse.builder().logGroups(groups).build();
+        lastLogGroupName = groups.get(groups.size() - 1).logGroupName();
+    }
+
+    @Benchmark
+    public ResourceModel translateForRead() {
+        return Translator.translateForRead(response, lastLogGroupName);
+    }
+
+    @Benchmark
+    public List<ResourceModel> translateForList() {
+        return Translator.translateForList(response);
+    }
+}
@@ -0,0 +1,161 @@
+package software.amazon.logs.loggroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create/Read/Delete cycles per second against FakeLogsEndpoint on each transport: the blocking
+ * handlers on a fixed number of threads for the blocking ones, AsyncPipeline with every cycle of the
+ * batch in flight for Netty. The pool metrics of the transport are printed at the end of each trial,
+ * a peak at the pool size means cycles queued for a connection.
+ *
+ * The endpoint is plain HTTP, so the numbers show connection reuse and pool contention, not the TLS
+ * handshakes that each new connection costs on top against the real service.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+    private static final int CYCLES = 64;
+
+    @Param({"LAMBDA", "URL_CONNECTION", "APACHE", "NETTY"})
+    public String transportName;
+
+    @Param({"0", "20"})
+    public int latencyMillis;
+
+    @Param({"16"})
+    public int blockingThreads;
+
+    private final AtomicLong names = new AtomicLong();
+    private final LoggerProxy logger = new LoggerProxy() {
+        @Override
+        public void log(final String message) {
+        }
+    };
+    //
+    // Every read goes to the endpoint, a cached one would not measure the transport
+    //
+    private final ReadHandler read = new ReadHandler(new LogGroupCache(Duration.ZERO, 0, System::nanoTime));
+    private Transport transport;
+    private FakeLogsEndpoint endpoint;
+    private ExecutorService pool;
+    private AmazonWebServicesClientProxy proxy;
+    private AsyncPipeline pipeline;
+
+    @Setup
+    public void setup() throws IOException {
+        transport = Transport.valueOf(transportName);
+        endpoint = FakeLogsEndpoint.start();
+        endpoint.setLatency(Duration.ofMillis(latencyMillis));
+        System.setProperty("aws.region", "us-east-1");
+        System.setProperty(ClientBuilder.ENDPOINT_PROPERTY, endpoint.getEndpoint().toString());
+        if (transport != Transport.NETTY) {
+            System.setProperty(Transport.PROPERTY, transport.name().toLowerCase(Locale.ROOT));
+        }
+        RateLimiter.shared().setDefaultRate(0);
+        pool = Executors.newFixedThreadPool(blockingThreads);
+        proxy = new AmazonWebServicesClientProxy(logger, new Credentials("accessKey", "secretKey", "token"),
+            () -> TimeUnit.MINUTES.toMillis(15));
+        pipeline = new AsyncPipeline(proxy, ClientBuilder.getAsyncClient(), logger);
+    }
+
+    @TearDown
+    public void tearDown() {
+        final TransportMetrics metrics = ClientBuilder.transportMetrics(transport);
+        System.out.println();
+        System.out.println(metrics == null ? "Transport " + transport + " not used" : metrics.summary());
+        pool.shutdownNow();
+        endpoint.close();
+        System.clearProperty(ClientBuilder.ENDPOINT_PROPERTY);
+        System.clearProperty(Transport.PROPERTY);
+        RateLimiter.shared().reset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public void createReadDelete() throws InterruptedException, ExecutionException {
+        if (transport == Transport.NETTY) {
+            asyncCycles();
+            return;
+        }
+        final List<Future<?>> cycles = new ArrayList<>(CYCLES);
+        for (int i = 0; i < CYCLES; i++) {
+            final ResourceHandlerRequest<ResourceModel> request = request();
+            cycles.add(pool.submit(() -> {
+                succeeded(new CreateHandler().handleRequest(proxy, request, null, logger));
+                succeeded(read.handleRequest(proxy, request, null, logger));
+                succeeded(new DeleteHandler().handleRequest(proxy, request, null, logger));
+            }));
+        }
+        for (final Future<?> cycle : cycles) {
+            cycle.get();
+        }
+    }
+
+    private void asyncCycles() {
+        final CompletableFuture<?>[] cycles = new CompletableFuture<?>[CYCLES];
+        for (int i = 0; i < CYCLES; i++) {
+            final ResourceHandlerRequest<ResourceModel> request = request();
+            cycles[i] = pipeline.create(request)
+                .thenCompose(created -> {
+                    succeeded(created);
+                    return pipeline.read(request);
+                })
+                .thenCompose(readBack -> {
+                    succeeded(readBack);
+                    return pipeline.delete(request);
+                })
+                .thenAccept(TransportBenchmark::succeeded);
+        }
+        CompletableFuture.allOf(cycles).join();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request() {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder()
+                .logGroupName("transport-" + names.incrementAndGet())
+                .retentionInDays(7)
+                .build())
+            .build();
+    }
+
+    private static void succeeded(final ProgressEvent<ResourceModel, CallbackContext> event) {
+        if (event.getStatus() != OperationStatus.SUCCESS) {
+            throw new IllegalStateException(event.getStatus() + ": " + event.getMessage());
+        }
+    }
+}
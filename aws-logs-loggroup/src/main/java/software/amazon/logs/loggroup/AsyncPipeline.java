@@ -0,0 +1,429 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.http.HttpStatusCode;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DisassociateKmsKeyRequest;
+import software.amazon.cloudformation.exceptions.BaseHandlerException;
+import software.amazon.cloudformation.exceptions.CfnNotStabilizedException;
+import software.amazon.cloudformation.exceptions.ResourceNotFoundException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Delay;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of the Create, Read, Update, Delete and List handlers. Every step sends
+ * the same request the blocking handlers build through {@link Translator}, but on
+ * CloudWatchLogsAsyncClient, and is composed with the next step instead of waited on. The waits
+ * between delete polls, {@link KmsRetryPolicy} retries and for {@link RateLimiter} tokens are
+ * scheduled rather than slept, so an operation holds no thread while it is in flight and one JVM can
+ * keep many of them going at once.
+ *
+ * Models come back with their Tags, and Update reconciles them, the same as the blocking handlers.
+ * Operations run to completion, they never return IN_PROGRESS. Failures come back as failed
+ * events with the error codes the blocking handlers report.
+ */
+final class AsyncPipeline {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "log-group-async-pipeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AmazonWebServicesClientProxy proxy;
+    private final CloudWatchLogsAsyncClient client;
+    private final Logger logger;
+    private final ScheduledExecutorService scheduler;
+    private final Supplier<Delay> backoff;
+    private final LogGroupCache cache;
+    private final Function<CallbackContext, KmsRetryPolicy> kmsRetries;
+    private final RateLimiter limiter;
+
+    AsyncPipeline(final AmazonWebServicesClientProxy proxy,
+                  final CloudWatchLogsAsyncClient client,
+                  final Logger logger) {
+        this(proxy, client, logger, SCHEDULER, JitteredBackoff::withDefaults);
+    }
+
+    AsyncPipeline(final AmazonWebServicesClientProxy proxy,
+                  final CloudWatchLogsAsyncClient client,
+                  final Logger logger,
+                  final ScheduledExecutorService scheduler,
+                  final Supplier<Delay> backoff) {
+        this(proxy, client, logger, scheduler, backoff, LogGroupCache.shared());
+    }
+
+    AsyncPipeline(final AmazonWebServicesClientProxy proxy,
+                  final CloudWatchLogsAsyncClient client,
+                  final Logger logger,
+                  final ScheduledExecutorService scheduler,
+                  final Supplier<Delay> backoff,
+                  final LogGroupCache cache) {
+        this(proxy, client, logger, scheduler, backoff, cache,
+            context -> KmsRetryPolicy.withDefaults(logger, context), RateLimiter.shared());
+    }
+
+    AsyncPipeline(final AmazonWebServicesClientProxy proxy,
+                  final CloudWatchLogsAsyncClient client,
+                  final Logger logger,
+                  final ScheduledExecutorService scheduler,
+                  final Supplier<Delay> backoff,
+                  final LogGroupCache cache,
+                  final Function<CallbackContext, KmsRetryPolicy> kmsRetries,
+                  final RateLimiter limiter) {
+        this.proxy = proxy;
+        this.client = client;
+        this.logger = logger;
+        this.scheduler = scheduler;
+        this.backoff = backoff;
+        this.cache = cache;
+        this.kmsRetries = kmsRetries;
+        this.limiter = limiter;
+    }
+
+    CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> create(
+        final ResourceHandlerRequest<ResourceModel> request) {
+
+        final ResourceModel model = CreateHandler.resourceModel(request);
+        final CallbackContext context = new CallbackContext();
+        return recover(model, context, validated(model, () ->
+            change(model, Translator.translateToCreateRequest(model), client::createLogGroup)
+                .thenCompose(created -> {
+                    //
+                    // Retention and KMS association only depend on the log group existing
+                    //
+                    final List<CompletableFuture<?>> followUps = new ArrayList<>();
+                    if (model.getRetentionInDays() != null) {
+                        followUps.add(change(model, Translator.translateToPutRetentionPolicyRequest(model),
+                            client::putRetentionPolicy));
+                    }
+                    if (model.getKmsKeyArn() != null) {
+                        followUps.add(associateKmsKey(model, context));
+                    }
+                    return CompletableFuture.allOf(followUps.toArray(new CompletableFuture<?>[0]));
+                })
+                .thenCompose(ignored -> describe(model, context))));
+    }
+
+    CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> read(
+        final ResourceHandlerRequest<ResourceModel> request) {
+
+        final ResourceModel model = request.getDesiredResourceState();
+        final CallbackContext context = new CallbackContext();
+        return recover(model, context, deferred(() -> describe(model, context)));
+    }
+
+    CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> update(
+        final ResourceHandlerRequest<ResourceModel> request) {
+
+        final ResourceModel desired = request.getDesiredResourceState();
+        final CallbackContext context = new CallbackContext();
+        final Set<UpdatePlanner.Call> plan = UpdatePlanner.plan(desired, request.getPreviousResourceState());
+        logger.log(UpdatePlanner.summary(desired, plan));
+
+        return recover(desired, context, validated(desired, () -> {
+            final List<CompletableFuture<?>> calls = new ArrayList<>();
+            if (plan.contains(UpdatePlanner.Call.DELETE_RETENTION_POLICY)) {
+                calls.add(change(desired, Translator.translateToDeleteRetentionPolicyRequest(desired),
+                    client::deleteRetentionPolicy));
+            }
+            if (plan.contains(UpdatePlanner.Call.PUT_RETENTION_POLICY)) {
+                calls.add(change(desired, Translator.translateToPutRetentionPolicyRequest(desired),
+                    client::putRetentionPolicy));
+            }
+            if (plan.contains(UpdatePlanner.Call.DISASSOCIATE_KMS_KEY)) {
+                calls.add(change(desired,
+                    DisassociateKmsKeyRequest.builder().logGroupName(desired.getLogGroupName()).build(),
+                    client::disassociateKmsKey));
+            }
+            if (plan.contains(UpdatePlanner.Call.ASSOCIATE_KMS_KEY)) {
+                calls.add(associateKmsKey(desired, context));
+            }
+            if (plan.contains(UpdatePlanner.Call.UPDATE_TAGS)) {
+                calls.add(updateTags(desired));
+            }
+            return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(ignored -> describe(desired, context));
+        }));
+    }
+
+    CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> delete(
+        final ResourceHandlerRequest<ResourceModel> request) {
+
+        final ResourceModel model = request.getDesiredResourceState();
+        final CallbackContext context = new CallbackContext();
+        context.setDeleteRequestedAt(System.currentTimeMillis());
+        return recover(model, context, deferred(() ->
+            change(model, Translator.translateToDeleteRequest(model), client::deleteLogGroup)
+                .exceptionally(e -> {
+                    if (unwrap(e) instanceof software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException) {
+                        throw new ResourceNotFoundException(unwrap(e));
+                    }
+                    throw new CompletionException(unwrap(e));
+                })
+                .thenCompose(deleted -> stabilize(model.getLogGroupName(), () -> {
+                    context.setDeletePolls(context.getDeletePolls() + 1);
+                    final LogGroupLookup lookup = new LogGroupLookup(model.getLogGroupName(), 1);
+                    return describe(lookup, Translator.translateToReadRequest(model))
+                        .thenApply(response -> response.logGroups().isEmpty());
+                }, backoff.get(), 1))
+                .thenApply(stabilized -> {
+                    logger.log(String.format("Log group %s deleted after %d poll(s), waited %d ms",
+                        model.getLogGroupName(), context.getDeletePolls(),
+                        System.currentTimeMillis() - context.getDeleteRequestedAt()));
+                    return ProgressEvent.success(null, context);
+                })));
+    }
+
+    CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> list(
+        final ResourceHandlerRequest<ResourceModel> request) {
+
+        return recover(null, null,
+            call(Translator.translateToListRequest(request.getNextToken()), client::describeLogGroups)
+                .thenApply(response -> ProgressEvent.<ResourceModel, CallbackContext>builder()
+                    .status(OperationStatus.SUCCESS)
+                    .resourceModels(Translator.translateForList(response))
+                    .nextToken(response.nextToken())
+                    .build()));
+    }
+
+    //
+    // A desired state the schema rejects fails Create or Update before any request is sent
+    //
+    private static <T> CompletableFuture<T> validated(final ResourceModel model,
+                                                      final Supplier<CompletableFuture<T>> operation) {
+        return CompletableFuture.completedFuture(model)
+            .thenApply(ModelValidator::validate)
+            .thenCompose(valid -> operation.get());
+    }
+
+    //
+    // Read and Delete send the LogGroupName as is, anything the operation throws still fails its future
+    //
+    private static <T> CompletableFuture<T> deferred(final Supplier<CompletableFuture<T>> operation) {
+        return CompletableFuture.<Void>completedFuture(null).thenCompose(ignored -> operation.get());
+    }
+
+    //
+    // Every request takes its token from the rate limiter first, and is sent from the scheduler once
+    // the token is due, see RateLimiter
+    //
+    private <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> call(
+        final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> operation) {
+        final long wait = limiter.reserve(StepMetrics.Interceptor.asyncKey(request));
+        if (wait <= 0) {
+            return proxy.injectCredentialsAndInvokeV2Async(request, operation);
+        }
+        return after(Duration.ofNanos(wait))
+            .thenCompose(ignored -> proxy.injectCredentialsAndInvokeV2Async(request, operation));
+    }
+
+    //
+    // A call that changes the log group, dropped from the cache Read answers from before it is sent
+    // and again once it completes, the way Util does for the blocking call chains
+    //
+    private <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> change(
+        final ResourceModel model,
+        final RequestT request,
+        final Function<RequestT, CompletableFuture<ResponseT>> operation) {
+        return cache.invalidatingAsync(model.getLogGroupName(), () -> call(request, operation));
+    }
+
+    private CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> describe(
+        final ResourceModel model, final CallbackContext context) {
+
+        final LogGroupLookup lookup = new LogGroupLookup(model.getLogGroupName());
+        return describe(lookup, Translator.translateToReadRequest(model))
+            .thenApply(response -> {
+                logger.log(lookup.summary());
+                if (response.logGroups().isEmpty()) {
+                    throw new ResourceNotFoundException(ResourceModel.TYPE_NAME, model.getLogGroupName());
+                }
+                return Translator.translateForRead(response, model.getLogGroupName());
+            })
+            .thenCompose(read -> listTags(read).thenApply(tags -> {
+                read.setTags(Translator.translateTagsToModel(tags));
+                return ProgressEvent.success(read, context);
+            }));
+    }
+
+    //
+    // Tags come from their own call, as in ReadHandler. Newer SDKs deprecate the log group tagging
+    // APIs, see Util.updateTags.
+    //
+    @SuppressWarnings("deprecation")
+    private CompletableFuture<Map<String, String>> listTags(final ResourceModel model) {
+        return call(Translator.translateToListTagsRequest(model), client::listTagsLogGroup)
+            .thenApply(response -> response.tags() == null ? new HashMap<>() : response.tags());
+    }
+
+    //
+    // Reads the tags the log group has and sends the difference to the desired ones, one TagLogGroup
+    // call for additions and changes and one UntagLogGroup call for removals, like Util.updateTags
+    //
+    @SuppressWarnings("deprecation")
+    private CompletableFuture<?> updateTags(final ResourceModel model) {
+        final String name = model.getLogGroupName();
+        return cache.invalidatingAsync(name, () ->
+            call(Translator.translateToListTagsRequest(model), client::listTagsLogGroup).thenCompose(current -> {
+                final UpdatePlanner.TagChanges changes = UpdatePlanner.tagChanges(
+                    current.tags() == null ? new HashMap<>() : current.tags(),
+                    Translator.translateTags(model.getTags()));
+                final List<CompletableFuture<?>> calls = new ArrayList<>();
+                if (!changes.getToAdd().isEmpty()) {
+                    calls.add(call(Translator.translateToTagRequest(name, changes.getToAdd()), client::tagLogGroup));
+                }
+                if (!changes.getToRemove().isEmpty()) {
+                    calls.add(call(Translator.translateToUntagRequest(name, changes.getToRemove()),
+                        client::untagLogGroup));
+                }
+                return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                    logger.log(String.format("Tags of %s: added or changed %s, removed %s",
+                        name, changes.getToAdd().keySet(), changes.getToRemove()));
+                    return changes;
+                });
+            }));
+    }
+
+    private CompletableFuture<DescribeLogGroupsResponse> describe(final LogGroupLookup lookup,
+                                                                  final DescribeLogGroupsRequest request) {
+        return call(request, client::describeLogGroups).thenCompose(page -> {
+            final String nextToken = lookup.next(page);
+            return nextToken == null
+                ? CompletableFuture.completedFuture(lookup.result(page))
+                : describe(lookup, request.toBuilder().nextToken(nextToken).build());
+        });
+    }
+
+    //
+    // Retried under the same policy as Util.associateKMSKey, on its own short backoff and budget
+    //
+    private CompletableFuture<?> associateKmsKey(final ResourceModel model, final CallbackContext context) {
+        final KmsRetryPolicy retries = kmsRetries.apply(context);
+        return retry(() -> retries.attempt(() ->
+                change(model, Translator.translateToAssociateKmsKeyRequest(model), client::associateKmsKey)),
+            retries::retries, retries, 1);
+    }
+
+    private <T> CompletableFuture<T> retry(final Supplier<CompletableFuture<T>> call,
+                                           final Predicate<Throwable> retryable,
+                                           final Delay delay,
+                                           final int attempt) {
+        return call.get().handle((response, thrown) -> {
+            if (thrown == null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            final Throwable cause = unwrap(thrown);
+            final Duration next = retryable.test(cause) ? delay.nextDelay(attempt) : Duration.ZERO;
+            if (next.isZero()) {
+                final CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(cause);
+                return failed;
+            }
+            logger.log(String.format("Retrying after %s, attempt %d: %s", next, attempt, cause.getMessage()));
+            return after(next).thenCompose(ignored -> retry(call, retryable, delay, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> stabilize(final String logGroupName,
+                                              final Supplier<CompletableFuture<Boolean>> probe,
+                                              final Delay delay,
+                                              final int attempt) {
+        return probe.get().thenCompose(done -> {
+            if (done) {
+                return CompletableFuture.completedFuture(null);
+            }
+            final Duration next = delay.nextDelay(attempt);
+            if (next.isZero()) {
+                throw new CfnNotStabilizedException(ResourceModel.TYPE_NAME, logGroupName);
+            }
+            return after(next).thenCompose(ignored -> stabilize(logGroupName, probe, delay, attempt + 1));
+        });
+    }
+
+    private CompletableFuture<Void> after(final Duration delay) {
+        final CompletableFuture<Void> elapsed = new CompletableFuture<>();
+        scheduler.schedule(() -> elapsed.complete(null), delay.toNanos(), TimeUnit.NANOSECONDS);
+        return elapsed;
+    }
+
+    //
+    // Same mapping the proxy's default error handler applies to the blocking call chains, with
+    // handler exceptions reported the way the wrapper reports them when a handler throws
+    //
+    private CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> recover(
+        final ResourceModel model,
+        final CallbackContext context,
+        final CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> operation) {
+
+        return operation.exceptionally(thrown -> failed(model, context, unwrap(thrown)));
+    }
+
+    //
+    // The event the wrapper would report for an exception out of a handler
+    //
+    static ProgressEvent<ResourceModel, CallbackContext> failed(final ResourceModel model,
+                                                                final CallbackContext context,
+                                                                final Throwable e) {
+        if (e instanceof BaseHandlerException) {
+            return ProgressEvent.failed(model, context, ((BaseHandlerException) e).getErrorCode(), e.getMessage());
+        }
+        if (e instanceof AwsServiceException && ((AwsServiceException) e).awsErrorDetails() != null) {
+            final AwsErrorDetails details = ((AwsServiceException) e).awsErrorDetails();
+            final String message = "Exception=[" + e.getClass() + "] " + "ErrorCode=[" + details.errorCode()
+                + "],  ErrorMessage=[" + details.errorMessage() + "]";
+            return ProgressEvent.failed(model, context, errorCode(((AwsServiceException) e).statusCode()), message);
+        }
+        return ProgressEvent.failed(model, context, HandlerErrorCode.InternalFailure, e.getMessage());
+    }
+
+    static HandlerErrorCode errorCode(final int statusCode) {
+        switch (statusCode) {
+            case HttpStatusCode.BAD_REQUEST:
+                return HandlerErrorCode.InvalidRequest;
+            case HttpStatusCode.UNAUTHORIZED:
+            case HttpStatusCode.FORBIDDEN:
+                return HandlerErrorCode.AccessDenied;
+            case HttpStatusCode.NOT_FOUND:
+                return HandlerErrorCode.NotFound;
+            case HttpStatusCode.SERVICE_UNAVAILABLE:
+            case HttpStatusCode.GATEWAY_TIMEOUT:
+            case HttpStatusCode.THROTTLING:
+                return HandlerErrorCode.Throttling;
+            default:
+                return HandlerErrorCode.GeneralServiceException;
+        }
+    }
+
+    private static Throwable unwrap(final Throwable thrown) {
+        Throwable e = thrown;
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,280 @@
+package software.amazon.logs.loggroup;
+
+import org.apache.commons.lang3.StringUtils;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.cloudformation.exceptions.BaseHandlerException;
+import software.amazon.cloudformation.exceptions.ResourceNotFoundException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Reads many log groups at once, for callers that drive the handlers directly for a fleet of log
+ * groups. Each ReadHandler invocation describes its own name as a prefix, one call or more per log
+ * group. Here the names are sorted and split into groups that share a prefix of at least
+ * {@link #DEFAULT_MIN_PREFIX_LENGTH} characters, and each group is read with a single paged scan of
+ * that prefix that stops once it sorts past the last name of the group. Thousands of log groups
+ * under a few prefixes then take as many calls as there are pages of 50, not one per log group.
+ *
+ * A shared prefix says nothing about how many other log groups sort between the names, a handful
+ * of names under /aws can have thousands of pages between them. A scan is only continued while it
+ * has found at least one name of its group per page read, which is what looking the names up one
+ * by one with {@link LogGroupLookup} would cost. Past that, the names after the last one it read
+ * are looked up, a call each, so a group never costs more than one call over the lookups.
+ *
+ * Every request gets its own event, in the order given, with what ReadHandler would have returned
+ * for it: the model with its Tags, or NotFound or the error of the scan that covered it. Tags have
+ * no batch call, they are listed per log group found unless already cached. Log groups found go
+ * into {@link LogGroupCache} with their tags, unless one changed while it was read, and cached ones
+ * are not scanned for. All requests are made with the credentials of the proxy, so a batch is for
+ * one account and region.
+ */
+public class BatchReadHandler {
+    static final int DEFAULT_MIN_PREFIX_LENGTH = 4;
+
+    private final LogGroupCache cache;
+    private final int minPrefixLength;
+
+    public BatchReadHandler() {
+        this(LogGroupCache.shared(), DEFAULT_MIN_PREFIX_LENGTH);
+    }
+
+    BatchReadHandler(final LogGroupCache cache, final int minPrefixLength) {
+        this.cache = cache;
+        this.minPrefixLength = minPrefixLength;
+    }
+
+    //
+    // Newer SDKs deprecate ListTagsLogGroup, see Util.updateTags
+    //
+    @SuppressWarnings("deprecation")
+    public List<ProgressEvent<ResourceModel, CallbackContext>> handleRequests(
+        final AmazonWebServicesClientProxy proxy,
+        final List<ResourceHandlerRequest<ResourceModel>> requests,
+        final Logger logger) {
+
+        final CloudWatchLogsClient client = ClientBuilder.getClient();
+        return handleRequests(requests, logger,
+            request -> proxy.injectCredentialsAndInvokeV2(request, client::describeLogGroups),
+            request -> proxy.injectCredentialsAndInvokeV2(request, client::listTagsLogGroup));
+    }
+
+    List<ProgressEvent<ResourceModel, CallbackContext>> handleRequests(
+        final List<ResourceHandlerRequest<ResourceModel>> requests,
+        final Logger logger,
+        final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe,
+        final Function<ListTagsLogGroupRequest, ListTagsLogGroupResponse> listTags) {
+
+        final AtomicInteger tagCalls = new AtomicInteger();
+        final Function<ListTagsLogGroupRequest, ListTagsLogGroupResponse> counted = request -> {
+            tagCalls.incrementAndGet();
+            return listTags.apply(request);
+        };
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events =
+            new ArrayList<>(Collections.nCopies(requests.size(), null));
+        final Map<String, List<Integer>> wanted = new TreeMap<>();
+        int hits = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            final ResourceModel model = requests.get(i).getDesiredResourceState();
+            if (model == null || StringUtils.isEmpty(model.getLogGroupName())) {
+                events.set(i, notFound(""));
+                continue;
+            }
+            final LogGroupCache.Key key = key(requests.get(i), model.getLogGroupName());
+            final LogGroup cached = cache.get(key);
+            if (cached != null) {
+                events.set(i, found(key, cached, counted));
+                hits++;
+                continue;
+            }
+            wanted.computeIfAbsent(model.getLogGroupName(), ignored -> new ArrayList<>()).add(i);
+        }
+
+        final Map<String, List<String>> plan = plan(new TreeSet<>(wanted.keySet()), minPrefixLength);
+        int calls = 0;
+        for (final Map.Entry<String, List<String>> scan : plan.entrySet()) {
+            final Map<String, LogGroup> scanned = new HashMap<>();
+            final Map<String, Long> generations = new HashMap<>();
+            scan.getValue().forEach(name -> generations.put(name, cache.generation(name)));
+            ProgressEvent<ResourceModel, CallbackContext> failure = null;
+            try {
+                calls += scan(scan.getKey(), new TreeSet<>(scan.getValue()), describe, scanned);
+            } catch (RuntimeException e) {
+                failure = failed(e);
+            }
+            for (final String name : scan.getValue()) {
+                final LogGroup logGroup = scanned.get(name);
+                for (final int index : wanted.get(name)) {
+                    if (failure != null) {
+                        events.set(index, failure);
+                    } else if (logGroup == null) {
+                        events.set(index, notFound(name));
+                    } else {
+                        final LogGroupCache.Key key = key(requests.get(index), name);
+                        cache.put(key, logGroup, generations.get(name));
+                        events.set(index, found(key, logGroup, counted));
+                    }
+                }
+            }
+        }
+        logger.log(String.format(
+            "Batch read of %d log group(s): %d cached, %d prefix scan(s), %d call(s), %d tag call(s)",
+            requests.size(), hits, plan.size(), calls, tagCalls.get()));
+        return events;
+    }
+
+    /**
+     * Splits sorted names into the prefixes to scan, each with the names it covers. Names that share
+     * at least minPrefixLength characters are scanned together under their longest common prefix,
+     * the others are split on the character after it until they do. A name shorter than that is
+     * scanned alone.
+     */
+    static Map<String, List<String>> plan(final NavigableSet<String> names, final int minPrefixLength) {
+        final Map<String, List<String>> prefixes = new LinkedHashMap<>();
+        if (!names.isEmpty()) {
+            plan(new ArrayList<>(names), minPrefixLength, prefixes);
+        }
+        return prefixes;
+    }
+
+    private static void plan(final List<String> names,
+                             final int minPrefixLength,
+                             final Map<String, List<String>> prefixes) {
+        final String common = StringUtils.getCommonPrefix(names.toArray(new String[0]));
+        if (names.size() == 1 || common.length() >= minPrefixLength) {
+            prefixes.put(names.size() == 1 ? names.get(0) : common, names);
+            return;
+        }
+        //
+        // Sorted, so a name equal to the common prefix comes first and the rest are in runs by
+        // their next character
+        //
+        final Map<Character, List<String>> byNext = new TreeMap<>();
+        for (final String name : names) {
+            if (name.length() == common.length()) {
+                prefixes.put(name, Collections.singletonList(name));
+            } else {
+                byNext.computeIfAbsent(name.charAt(common.length()), ignored -> new ArrayList<>()).add(name);
+            }
+        }
+        byNext.values().forEach(group -> plan(group, minPrefixLength, prefixes));
+    }
+
+    //
+    // Pages through the prefix in name order, until every name is found, the scan sorts past the
+    // last one or costs more than looking the rest up, see above
+    //
+    private static int scan(final String prefix,
+                            final NavigableSet<String> names,
+                            final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe,
+                            final Map<String, LogGroup> found) {
+        final String last = names.last();
+        String nextToken = null;
+        String scanned = null;
+        int pages = 0;
+        do {
+            final DescribeLogGroupsResponse page = describe.apply(Translator.translateToListRequest(nextToken, prefix));
+            pages++;
+            nextToken = page.nextToken();
+            for (final LogGroup logGroup : page.logGroups()) {
+                final String name = logGroup.logGroupName();
+                if (name == null) {
+                    continue;
+                }
+                scanned = name;
+                if (names.contains(name)) {
+                    found.put(name, logGroup);
+                }
+                if (name.compareTo(last) >= 0 || found.size() == names.size()) {
+                    return pages;
+                }
+            }
+        } while (nextToken != null && found.size() >= pages);
+
+        if (nextToken == null) {
+            return pages;
+        }
+        for (final String name : scanned == null ? names : names.tailSet(scanned, false)) {
+            pages += lookup(name, describe, found);
+        }
+        return pages;
+    }
+
+    private static int lookup(final String name,
+                              final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe,
+                              final Map<String, LogGroup> found) {
+        final LogGroupLookup lookup = new LogGroupLookup(name);
+        String nextToken = null;
+        do {
+            nextToken = lookup.next(describe.apply(Translator.translateToListRequest(nextToken, name)));
+        } while (nextToken != null);
+        if (lookup.isFound()) {
+            found.put(name, lookup.getMatch());
+        }
+        return lookup.getPages();
+    }
+
+    //
+    // The model with its tags, listed unless cached, a failed ListTags fails the request alone
+    //
+    private ProgressEvent<ResourceModel, CallbackContext> found(
+        final LogGroupCache.Key key,
+        final LogGroup logGroup,
+        final Function<ListTagsLogGroupRequest, ListTagsLogGroupResponse> listTags) {
+
+        final ResourceModel model = Translator.translateLogGroup(logGroup);
+        Map<String, String> tags = cache.tags(key);
+        if (tags == null) {
+            final long generation = cache.generation(key.getLogGroupName());
+            try {
+                tags = listTags.apply(Translator.translateToListTagsRequest(model)).tags();
+            } catch (RuntimeException e) {
+                return failed(e);
+            }
+            tags = tags == null ? new HashMap<>() : tags;
+            cache.putTags(key, tags, generation);
+        }
+        model.setTags(Translator.translateTagsToModel(tags));
+        return ProgressEvent.success(model, new CallbackContext());
+    }
+
+    private static ProgressEvent<ResourceModel, CallbackContext> notFound(final String logGroupName) {
+        return ProgressEvent.failed(null, null, HandlerErrorCode.NotFound,
+            new ResourceNotFoundException(ResourceModel.TYPE_NAME, logGroupName).getMessage());
+    }
+
+    private static ProgressEvent<ResourceModel, CallbackContext> failed(final RuntimeException e) {
+        if (e instanceof BaseHandlerException) {
+            return ProgressEvent.failed(null, null, ((BaseHandlerException) e).getErrorCode(), e.getMessage());
+        }
+        if (e instanceof AwsServiceException) {
+            return ProgressEvent.failed(null, null,
+                AsyncPipeline.errorCode(((AwsServiceException) e).statusCode()), e.getMessage());
+        }
+        return ProgressEvent.failed(null, null, HandlerErrorCode.InternalFailure, e.getMessage());
+    }
+
+    private static LogGroupCache.Key key(final ResourceHandlerRequest<ResourceModel> request, final String name) {
+        return LogGroupCache.Key.of(request.getAwsAccountId(), request.getRegion(), name);
+    }
+}
@@ -1,13 +1,48 @@
 package software.amazon.logs.loggroup;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import software.amazon.cloudformation.proxy.StdCallbackContext;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 @Builder
 @EqualsAndHashCode(callSuper = true)
-public class CallbackContext extends StdCallbackContext {}
+public class CallbackContext extends StdCallbackContext {
+    //
+    // Delete stabilization progress, kept across re-invocations so the reported numbers cover the
+    // whole delete, not just the last Lambda invocation
+    //
+    private int deletePolls;
+    private Long deleteRequestedAt;
+
+    //
+    // Outcome of the follow-up calls a concurrent create made after the log group existed, keyed by
+    // call name with the error for each call that failed. Null until those calls have run.
+    //
+    private Map<String, String> followUpFailures;
+
+    //
+    // When each mutating step last succeeded, epoch millis, null until it has. A re-invocation after
+    // an IN_PROGRESS return resumes at the first step without one instead of repeating calls that
+    // already went through, CreateLogGroup in particular would fail with ResourceAlreadyExists.
+    // Retention covers putting and deleting the policy, the KMS key associating and disassociating,
+    // tags the whole reconciliation.
+    //
+    private Long createdAt;
+    private Long retentionAppliedAt;
+    private Long kmsKeyAppliedAt;
+    private Long tagsAppliedAt;
+
+    //
+    // When AssociateKmsKey was first attempted, epoch millis, so the KMS retry budget covers every
+    // invocation of the operation, not just the last one
+    //
+    private Long kmsKeyFirstAttemptAt;
+}
@@ -0,0 +1,306 @@
+package software.amazon.logs.loggroup;
+
+import lombok.Value;
+import software.amazon.awssdk.awscore.AwsExecutionAttribute;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.cloudformation.exceptions.CfnServiceInternalErrorException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * One circuit per region and CloudWatch Logs API, shared by every handler in the container, so that
+ * during a regional brownout a CreateLogGroup or AssociateKmsKey fails in milliseconds instead of
+ * after the SDK's retries and the chain's backoff, and the stack fails over to CloudFormation's own
+ * retries instead of hanging.
+ *
+ * A circuit trips open when at least half of the last {@link #WINDOW} calls, and at least
+ * {@link #MIN_CALLS} of them, failed with a 5xx or no answer at all, or took longer than the slow
+ * call threshold. Throttling and other 4xx answers are the service working and are left to the
+ * {@link RateLimiter}, and client side errors other than I/O and attempt timeouts are not counted
+ * at all. While open every call fails at once with CfnServiceInternalErrorException.
+ * After {@link #DEFAULT_OPEN_DURATION} up to {@link #PROBES} calls are let through as probes, the
+ * circuit closes once that many have succeeded and opens again on the first that fails.
+ *
+ * Every change of state is logged through the logger of the step whose call caused it, see
+ * {@link StepMetrics.Interceptor#log}.
+ */
+final class CircuitBreaker {
+    static final int WINDOW = 20;
+    static final int MIN_CALLS = 10;
+    static final double FAILURE_RATE = 0.5;
+    static final double SLOW_RATE = 0.5;
+    static final int PROBES = 3;
+    static final Duration DEFAULT_SLOW_CALL = Duration.ofSeconds(5);
+    static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private static final CircuitBreaker SHARED =
+        new CircuitBreaker(DEFAULT_SLOW_CALL, DEFAULT_OPEN_DURATION, System::nanoTime);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private final Map<Key, Circuit> circuits = new ConcurrentHashMap<>();
+
+    CircuitBreaker(final Duration slowCall, final Duration openDuration, final LongSupplier clock) {
+        this.slowCallNanos = slowCall.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    static CircuitBreaker shared() {
+        return SHARED;
+    }
+
+    State state(final Key key) {
+        final Circuit circuit = circuits.get(key);
+        if (circuit == null) {
+            return State.CLOSED;
+        }
+        synchronized (circuit) {
+            return circuit.state;
+        }
+    }
+
+    /**
+     * Lets a call through, or fails it while its circuit is open.
+     *
+     * @return whether the call is a probe of a half open circuit
+     * @throws CfnServiceInternalErrorException while the circuit is open, or all its probes are out
+     */
+    boolean admit(final Key key, final Consumer<String> log) {
+        final Circuit circuit = circuits.computeIfAbsent(key, ignored -> new Circuit());
+        synchronized (circuit) {
+            final long now = clock.getAsLong();
+            if (circuit.state == State.OPEN && now - circuit.openedAt >= openNanos) {
+                circuit.state = State.HALF_OPEN;
+                circuit.probes = 0;
+                circuit.probeSuccesses = 0;
+                log.accept(String.format("Circuit for %s is HALF_OPEN, probing with up to %d call(s)", key, PROBES));
+            }
+            switch (circuit.state) {
+                case CLOSED:
+                    return false;
+                case HALF_OPEN:
+                    if (circuit.probes < PROBES) {
+                        circuit.probes++;
+                        return true;
+                    }
+                    throw open(key, circuit.reason, 0);
+                default:
+                    throw open(key, circuit.reason, openNanos - (now - circuit.openedAt));
+            }
+        }
+    }
+
+    /**
+     * Takes in the outcome of a call {@link #admit} let through
+     *
+     * @param failed whether the service failed to answer, a 4xx is an answer
+     */
+    void completed(final Key key, final boolean probe, final long nanos, final boolean failed,
+                   final Consumer<String> log) {
+        final Circuit circuit = circuits.computeIfAbsent(key, ignored -> new Circuit());
+        final boolean slow = nanos > slowCallNanos;
+        synchronized (circuit) {
+            if (circuit.state == State.HALF_OPEN && probe) {
+                circuit.probes--;
+                if (failed || slow) {
+                    trip(key, circuit, String.format("probe %s after %d ms", failed ? "failed" : "was slow",
+                        TimeUnit.NANOSECONDS.toMillis(nanos)), log);
+                } else if (++circuit.probeSuccesses >= PROBES) {
+                    circuit.state = State.CLOSED;
+                    circuit.reset();
+                    log.accept(String.format("Circuit for %s is CLOSED after %d successful probe(s)", key, PROBES));
+                }
+                return;
+            }
+            if (circuit.state != State.CLOSED) {
+                //
+                // Started before the circuit opened, the window it belongs to is gone
+                //
+                return;
+            }
+            circuit.record(failed, slow);
+            if (circuit.calls >= MIN_CALLS && circuit.failures >= circuit.calls * FAILURE_RATE) {
+                trip(key, circuit, String.format("%d of the last %d calls failed", circuit.failures, circuit.calls),
+                    log);
+            } else if (circuit.calls >= MIN_CALLS && circuit.slow >= circuit.calls * SLOW_RATE) {
+                trip(key, circuit, String.format("%d of the last %d calls took over %d ms", circuit.slow,
+                    circuit.calls, TimeUnit.NANOSECONDS.toMillis(slowCallNanos)), log);
+            }
+        }
+    }
+
+    private void trip(final Key key, final Circuit circuit, final String reason, final Consumer<String> log) {
+        circuit.state = State.OPEN;
+        circuit.openedAt = clock.getAsLong();
+        circuit.reason = reason;
+        circuit.reset();
+        log.accept(String.format("Circuit for %s is OPEN for %d s, %s", key,
+            TimeUnit.NANOSECONDS.toSeconds(openNanos), reason));
+    }
+
+    //
+    // The message of the exception is all the handler reports, so it carries the reason
+    //
+    private static CfnServiceInternalErrorException open(final Key key, final String reason, final long remaining) {
+        return new CfnServiceInternalErrorException(String.format("%s, failing fast while the circuit is open (%s), "
+            + "retry in %d s", key, reason, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999))));
+    }
+
+    @Value
+    static class Key {
+        String region;
+        String operation;
+
+        @Override
+        public String toString() {
+            return operation + " in " + region;
+        }
+    }
+
+    private static final class Circuit {
+        private State state = State.CLOSED;
+        private long openedAt;
+        private String reason;
+        private int probes;
+        private int probeSuccesses;
+        //
+        // The last WINDOW outcomes, failed and slow, and their counts
+        //
+        private final boolean[] failedCalls = new boolean[WINDOW];
+        private final boolean[] slowCalls = new boolean[WINDOW];
+        private int next;
+        private int calls;
+        private int failures;
+        private int slow;
+
+        private void record(final boolean failed, final boolean slowCall) {
+            if (calls == WINDOW) {
+                failures -= failedCalls[next] ? 1 : 0;
+                slow -= slowCalls[next] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failedCalls[next] = failed;
+            slowCalls[next] = slowCall;
+            failures += failed ? 1 : 0;
+            slow += slowCall ? 1 : 0;
+            next = (next + 1) % WINDOW;
+        }
+
+        private void reset() {
+            next = 0;
+            calls = 0;
+            failures = 0;
+            slow = 0;
+        }
+    }
+
+    /**
+     * Gates every request of the synchronous and async clients on the circuit of its region and API.
+     * An execution is one call, SDK retries included, so a call that only succeeded on its third
+     * attempt shows up as slow rather than failed. It is registered after the StepMetrics interceptor,
+     * so a call is timed from when its first request has a token, not while it waits for one, and
+     * logs through the step that made the call whichever thread completes it.
+     */
+    static final class Interceptor implements ExecutionInterceptor {
+        private static final ExecutionAttribute<Long> STARTED_AT = new ExecutionAttribute<>("CircuitStartedAt");
+        private static final ExecutionAttribute<Boolean> PROBE = new ExecutionAttribute<>("CircuitProbe");
+
+        private final CircuitBreaker breaker;
+
+        Interceptor(final CircuitBreaker breaker) {
+            this.breaker = breaker;
+        }
+
+        @Override
+        public void beforeExecution(final Context.BeforeExecution context,
+                                    final ExecutionAttributes executionAttributes) {
+            final boolean probe = breaker.admit(key(executionAttributes),
+                message -> StepMetrics.Interceptor.log(executionAttributes, message));
+            executionAttributes.putAttribute(PROBE, probe);
+        }
+
+        @Override
+        public void beforeTransmission(final Context.BeforeTransmission context,
+                                       final ExecutionAttributes executionAttributes) {
+            if (executionAttributes.getAttribute(STARTED_AT) == null) {
+                executionAttributes.putAttribute(STARTED_AT, System.nanoTime());
+            }
+        }
+
+        @Override
+        public void afterExecution(final Context.AfterExecution context,
+                                   final ExecutionAttributes executionAttributes) {
+            completed(executionAttributes, false);
+        }
+
+        @Override
+        public void onExecutionFailure(final Context.FailedExecution context,
+                                       final ExecutionAttributes executionAttributes) {
+            //
+            // A call the circuit failed fast was never let through and has no outcome
+            //
+            completed(executionAttributes, isOutage(context.exception()));
+        }
+
+        /**
+         * @return whether the call failed for the service or the network: a 5xx, an attempt that timed out or
+         *     an I/O error. Any other client side error, e.g. unusable credentials, is not the region's fault.
+         */
+        static boolean isOutage(final Throwable e) {
+            if (e instanceof SdkServiceException) {
+                final SdkServiceException service = (SdkServiceException) e;
+                return service.statusCode() >= 500 && !service.isThrottlingException();
+            }
+            if (e instanceof ApiCallAttemptTimeoutException) {
+                return true;
+            }
+            if (e instanceof SdkClientException) {
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void completed(final ExecutionAttributes executionAttributes, final boolean failed) {
+            final Boolean probe = executionAttributes.getAttribute(PROBE);
+            if (probe == null) {
+                return;
+            }
+            final Long startedAt = executionAttributes.getAttribute(STARTED_AT);
+            breaker.completed(key(executionAttributes), probe, startedAt == null ? 0 : System.nanoTime() - startedAt,
+                failed, message -> StepMetrics.Interceptor.log(executionAttributes, message));
+        }
+
+        private static Key key(final ExecutionAttributes executionAttributes) {
+            final Region region = executionAttributes.getAttribute(AwsExecutionAttribute.AWS_REGION);
+            return new Key(region == null ? "" : region.id(),
+                executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME));
+        }
+    }
+}
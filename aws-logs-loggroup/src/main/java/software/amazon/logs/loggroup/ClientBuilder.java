@@ -1,14 +1,132 @@
 package software.amazon.logs.loggroup;
 
+import lombok.Value;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClientBuilder;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
-import software.amazon.cloudformation.LambdaWrapper;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClientBuilder;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClientBuilder {
+    //
+    // Building a client resolves endpoints, sets up the interceptor chain and the signer, which is
+    // far more expensive than the calls we make with it. Clients are thread-safe, so we build one
+    // per region/endpoint the first time it is asked for and keep it for the life of the container.
+    //
+    private static final Map<ClientKey, CloudWatchLogsClient> CLIENTS = new ConcurrentHashMap<>();
+    private static final Map<ClientKey, CloudWatchLogsAsyncClient> ASYNC_CLIENTS = new ConcurrentHashMap<>();
+    //
+    // One HTTP client per transport, its pool is shared by the clients of every region and endpoint
+    //
+    private static final Map<Transport, TransportMetrics.Sync> HTTP_CLIENTS = new ConcurrentHashMap<>();
+    private static final Map<Transport, TransportMetrics.Async> ASYNC_HTTP_CLIENTS = new ConcurrentHashMap<>();
+
+    //
+    // Points the clients handed out by getClient() and getAsyncClient() at another endpoint, e.g. a
+    // local stand-in for load tests and benchmarks
+    //
+    static final String ENDPOINT_PROPERTY = "software.amazon.logs.loggroup.endpoint";
+
     private ClientBuilder() {}
 
     public static CloudWatchLogsClient getClient() {
-        return CloudWatchLogsClient.builder()
-                .httpClient(LambdaWrapper.HTTP_CLIENT)
-                .build();
+        return getClient(null, defaultEndpoint());
+    }
+
+    /**
+     * @param region region to talk to, null uses the default region provider chain
+     * @param endpointOverride endpoint to talk to, null uses the endpoint resolved for the region
+     */
+    public static CloudWatchLogsClient getClient(final Region region, final URI endpointOverride) {
+        return getClient(region, endpointOverride, Transport.configured());
+    }
+
+    /**
+     * @throws IllegalArgumentException for NETTY, which only has the client of {@link #getAsyncClient(Region, URI)}
+     */
+    static CloudWatchLogsClient getClient(final Region region, final URI endpointOverride, final Transport transport) {
+        if (!transport.isBlocking()) {
+            throw new IllegalArgumentException(transport + " has no blocking client, use getAsyncClient");
+        }
+        return CLIENTS.computeIfAbsent(new ClientKey(region, endpointOverride, transport), ClientBuilder::newClient);
+    }
+
+    static CloudWatchLogsClient newClient(final ClientKey key) {
+        final CloudWatchLogsClientBuilder builder = CloudWatchLogsClient.builder()
+                .httpClient(HTTP_CLIENTS.computeIfAbsent(key.getTransport(), Transport::newSyncClient))
+                .overrideConfiguration(overrideConfiguration(true));
+        if (key.getRegion() != null) {
+            builder.region(key.getRegion());
+        }
+        if (key.getEndpointOverride() != null) {
+            builder.endpointOverride(key.getEndpointOverride());
+        }
+        return builder.build();
+    }
+
+    public static CloudWatchLogsAsyncClient getAsyncClient() {
+        return getAsyncClient(null, defaultEndpoint());
+    }
+
+    /**
+     * Async counterpart of {@link #getClient(Region, URI)}, on the Netty transport
+     */
+    public static CloudWatchLogsAsyncClient getAsyncClient(final Region region, final URI endpointOverride) {
+        return ASYNC_CLIENTS.computeIfAbsent(new ClientKey(region, endpointOverride, Transport.NETTY),
+            ClientBuilder::newAsyncClient);
+    }
+
+    static CloudWatchLogsAsyncClient newAsyncClient(final ClientKey key) {
+        final CloudWatchLogsAsyncClientBuilder builder = CloudWatchLogsAsyncClient.builder()
+            .httpClient(ASYNC_HTTP_CLIENTS.computeIfAbsent(key.getTransport(), ignored -> Transport.newAsyncClient()))
+            .overrideConfiguration(overrideConfiguration(false));
+        if (key.getRegion() != null) {
+            builder.region(key.getRegion());
+        }
+        if (key.getEndpointOverride() != null) {
+            builder.endpointOverride(key.getEndpointOverride());
+        }
+        return builder.build();
+    }
+
+    //
+    // The same interceptors for both clients: requests are paced and metered first, then gated by
+    // their circuit, which times a call from when its first request has a token. Only the blocking
+    // client waits for tokens in its interceptor, async callers take theirs before sending.
+    //
+    private static ClientOverrideConfiguration overrideConfiguration(final boolean blocking) {
+        return ClientOverrideConfiguration.builder()
+            .addExecutionInterceptor(new StepMetrics.Interceptor(RateLimiter.shared(), blocking))
+            .addExecutionInterceptor(new CircuitBreaker.Interceptor(CircuitBreaker.shared()))
+            .build();
+    }
+
+    /**
+     * @return the request and connection counts of the transport, null if no client has used it yet
+     */
+    static TransportMetrics transportMetrics(final Transport transport) {
+        if (transport == Transport.NETTY) {
+            final TransportMetrics.Async client = ASYNC_HTTP_CLIENTS.get(transport);
+            return client == null ? null : client.getMetrics();
+        }
+        final TransportMetrics.Sync client = HTTP_CLIENTS.get(transport);
+        return client == null ? null : client.getMetrics();
+    }
+
+    private static URI defaultEndpoint() {
+        final String endpoint = System.getProperty(ENDPOINT_PROPERTY);
+        return endpoint == null ? null : URI.create(endpoint);
+    }
+
+    @Value
+    static class ClientKey {
+        Region region;
+        URI endpointOverride;
+        Transport transport;
     }
 }
@@ -6,16 +6,30 @@ import org.json.JSONTokener;
 import java.util.Map;
 
 class Configuration extends BaseConfiguration {
+    static final String SCHEMA_FILENAME = "aws-logs-loggroup.json";
 
     public Configuration() {
-        super("aws-logs-loggroup.json");
+        super(SCHEMA_FILENAME);
     }
 
+    //
+    // The schema is parsed once per JVM. Callers only read it, the wrapper validates models against
+    // it and ModelValidator compiles its constraints
+    //
     public JSONObject resourceSchemaJSONObject() {
-        return new JSONObject(new JSONTokener(this.getClass().getClassLoader().getResourceAsStream(schemaFilename)));
+        return Schema.JSON;
     }
 
     public Map<String, String> resourceDefinedTags(final ResourceModel resourceModel) {
-        return null;
+        return resourceModel == null ? null : Translator.translateTags(resourceModel.getTags());
+    }
+
+    static JSONObject resourceSchema() {
+        return Schema.JSON;
+    }
+
+    private static final class Schema {
+        private static final JSONObject JSON = new JSONObject(new JSONTokener(
+            Configuration.class.getClassLoader().getResourceAsStream(SCHEMA_FILENAME)));
     }
 }
@@ -1,5 +1,7 @@
 package software.amazon.logs.loggroup;
 
+import org.apache.commons.lang3.StringUtils;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.CallChain;
@@ -7,7 +9,8 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 import software.amazon.cloudformation.resource.IdentifierUtils;
-import com.amazonaws.util.StringUtils;
+
+import java.util.function.Supplier;
 
 import static software.amazon.logs.loggroup.Util.*;
 
@@ -15,21 +18,47 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
     private static final String DEFAULT_LOG_GROUP_NAME_PREFIX = "LogGroup";
     private static final int MAX_LENGTH_LOG_GROUP_NAME = 512;
 
+    //
+    // When set, retention and KMS association are made concurrently on the async client once the
+    // log group exists, instead of one after the other
+    //
+    private final Supplier<CloudWatchLogsAsyncClient> asyncClient;
+
+    public CreateHandler() {
+        this(false);
+    }
+
+    public CreateHandler(final boolean concurrentFollowUps) {
+        this(concurrentFollowUps ? ClientBuilder::getAsyncClient : null);
+    }
+
+    CreateHandler(final Supplier<CloudWatchLogsAsyncClient> asyncClient) {
+        this.asyncClient = asyncClient;
+    }
+
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(final AmazonWebServicesClientProxy proxy,
                                                                        final ResourceHandlerRequest<ResourceModel> request,
                                                                        final CallbackContext callbackContext,
                                                                        final Logger logger) {
 
-        final ResourceModel model = resourceModel(request);
+        final ResourceModel model = ModelValidator.validate(resourceModel(request));
         final CallbackContext context = callbackContext == null ? new CallbackContext() : callbackContext;
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext>
             initiator = proxy.newInitiator(ClientBuilder::getClient, model, context);
+        final StepMetrics metrics = new StepMetrics(logger, "Create", request.getAwsAccountId());
+
+        if (asyncClient != null) {
+            return
+                createLogGroup(initiator, metrics)
+                .then(event -> applyFollowUpsConcurrently(proxy, asyncClient.get(), initiator, metrics, event))
+                .then(event -> new ReadHandler().handleRequest(proxy, request, event.getCallbackContext(), logger));
+        }
 
         return
-            createLogGroup(initiator)
-            .then(event -> updateRetentionInDays(initiator, event))
-            .then(event -> associateKMSKey(initiator, event))
+            createLogGroup(initiator, metrics)
+            .then(event -> updateRetentionInDays(initiator, metrics, event))
+            .then(event -> associateKMSKey(initiator, metrics, event))
             .then(event -> new ReadHandler().handleRequest(proxy, request, event.getCallbackContext(), logger));
     }
 
@@ -42,7 +71,7 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
      * 2. Generating a log name if one is not given. This is a createOnly property,
      *    but we generate one if one is not provided.
      */
-    private ResourceModel resourceModel(ResourceHandlerRequest<ResourceModel> request) {
+    static ResourceModel resourceModel(ResourceHandlerRequest<ResourceModel> request) {
         if (request.getDesiredResourceState() == null) {
             request.setDesiredResourceState(new ResourceModel());
         }
@@ -52,7 +81,7 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
             DEFAULT_LOG_GROUP_NAME_PREFIX :
             request.getLogicalResourceIdentifier();
 
-        if (StringUtils.isNullOrEmpty(model.getLogGroupName())) {
+        if (StringUtils.isEmpty(model.getLogGroupName())) {
             model.setLogGroupName(
                 IdentifierUtils.generateResourceIdentifier(
                     identifierPrefix,
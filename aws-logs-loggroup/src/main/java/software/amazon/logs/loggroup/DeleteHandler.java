@@ -2,16 +2,28 @@ package software.amazon.logs.loggroup;
 
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DeleteLogGroupRequest;
-import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
-import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.CallChain;
+import software.amazon.cloudformation.proxy.Delay;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
 
+import java.util.function.Supplier;
+
 public class DeleteHandler extends BaseHandler<CallbackContext> {
+    static final String DELETE_LOG_GROUP = "logs:deleteLogGroup";
+
+    private final Supplier<Delay> backoff;
+
+    public DeleteHandler() {
+        this(JitteredBackoff::withDefaults);
+    }
+
+    DeleteHandler(final Supplier<Delay> backoff) {
+        this.backoff = backoff;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -24,28 +36,48 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
         final CallbackContext context = callbackContext == null ? new CallbackContext() : callbackContext;
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext>
             initiator = proxy.newInitiator(ClientBuilder::getClient, model, context);
+        final StepMetrics metrics = new StepMetrics(logger, "Delete", request.getAwsAccountId());
 
-        return initiator.initiate("logs:deleteLogGroup")
+        //
+        // The first probe runs right after the delete returns, later ones back off exponentially with
+        // jitter so that many deletes in one stack don't throttle DescribeLogGroups. A prefix equal to
+        // the name always lists the exact match first, so each probe reads a single page.
+        //
+        return metrics.step(DELETE_LOG_GROUP, () -> initiator.initiate(DELETE_LOG_GROUP)
             .translateToServiceRequest(m -> DeleteLogGroupRequest.builder().logGroupName(m.getLogGroupName()).build())
+            .backoffDelay(backoff.get())
             .makeServiceCall((r, c) -> {
                 try {
-                    return c.injectCredentialsAndInvokeV2(r, c.client()::deleteLogGroup);
+                    if (context.getDeleteRequestedAt() == null) {
+                        context.setDeleteRequestedAt(System.currentTimeMillis());
+                    }
+                    return LogGroupCache.shared().invalidating(r.logGroupName(), () ->
+                        c.injectCredentialsAndInvokeV2(r, c.client()::deleteLogGroup));
                 } catch (ResourceNotFoundException e) {
                     throw new software.amazon.cloudformation.exceptions.ResourceNotFoundException(e);
                 }
             })
             .stabilize((request_, response, client, model_, context_) -> {
+                context_.setDeletePolls(context_.getDeletePolls() + 1);
                 try {
-                    DescribeLogGroupsResponse res = client.injectCredentialsAndInvokeV2(
-                        DescribeLogGroupsRequest.builder().logGroupNamePrefix(model_.getLogGroupName()).build(),
-                        client.client()::describeLogGroups
-                    );
-                    return res.logGroups().stream().noneMatch(
-                        grp -> grp.logGroupName().equals(model_.getLogGroupName()));
+                    final LogGroupLookup lookup = new LogGroupLookup(model_.getLogGroupName(), 1);
+                    final boolean deleted = lookup.describe(Translator.translateToReadRequest(model_), client)
+                        .logGroups().isEmpty();
+                    logger.log(lookup.summary());
+                    return deleted;
                 } catch (ResourceNotFoundException e) {
                     return true;
                 }
             })
-            .done(ignored -> ProgressEvent.success(null, context));
+            .done(ignored -> {
+                //
+                // A Read while the delete was still settling may have cached the log group again
+                //
+                LogGroupCache.shared().invalidate(model.getLogGroupName());
+                logger.log(String.format("Log group %s deleted after %d poll(s), waited %d ms",
+                    model.getLogGroupName(), context.getDeletePolls(),
+                    System.currentTimeMillis() - context.getDeleteRequestedAt()));
+                return ProgressEvent.success(null, context);
+            }));
     }
 }
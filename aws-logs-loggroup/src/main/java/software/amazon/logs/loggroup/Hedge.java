@@ -0,0 +1,267 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.awssdk.utils.Logger;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent reads, off unless {@link #PROPERTY} names a percentile. A call that
+ * has not answered after that percentile of the latencies recently observed gets a second, identical
+ * request, and whichever succeeds first is the answer. DescribeLogGroups behind the Read every Create
+ * and Update ends with has a long tail, a hedge at p95 turns most of those seconds into milliseconds.
+ *
+ * Hedges are paid for out of a budget: every call adds {@link #BUDGET_PROPERTY} of a hedge, 10% by
+ * default, up to a burst of {@link #MAX_BURST}, and a hedge is only sent when a whole one has built
+ * up. When the service is slow across the board the budget runs out instead of doubling the load,
+ * and the hedges still go through the {@link RateLimiter} like any other request.
+ *
+ * Both attempts run on {@link StepMetrics#propagate propagated} threads so they count against the
+ * step that made the call. The one that loses is left to finish, an SDK call cannot be cancelled.
+ * A property that does not parse is logged and ignored, like the ones of {@link RateLimiter}.
+ */
+final class Hedge {
+    static final String PROPERTY = "software.amazon.logs.loggroup.hedge.percentile";
+    static final String BUDGET_PROPERTY = "software.amazon.logs.loggroup.hedge.budget";
+    static final double DEFAULT_BUDGET = 0.1;
+    static final int MAX_BURST = 10;
+    //
+    // Latencies kept to take the percentile of, and how many are needed before any call is hedged
+    //
+    static final int WINDOW = 512;
+    static final int MIN_SAMPLES = 20;
+
+    private static final Hedge DISABLED = new Hedge(0, 0, Runnable::run);
+    private static final ExecutorService ATTEMPTS = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "log-group-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Logger LOG = Logger.loggerFor(Hedge.class);
+    private static final Hedge SHARED = configured(System.getProperties());
+
+    private final double percentile;
+    private final double budget;
+    private final Executor executor;
+    private final long[] latencies = new long[WINDOW];
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong won = new AtomicLong();
+    private long samples;
+    private int next;
+    private long delayNanos = -1;
+    private double credit;
+
+    /**
+     * @param percentile of the observed latencies to wait for before hedging, in (0, 100), 0 to never hedge
+     * @param budget hedges each call adds to the budget, 0.1 for at most one hedge in ten calls
+     */
+    Hedge(final double percentile, final double budget, final Executor executor) {
+        this.percentile = percentile;
+        this.budget = budget;
+        this.executor = executor;
+    }
+
+    static Hedge shared() {
+        return SHARED;
+    }
+
+    static Hedge disabled() {
+        return DISABLED;
+    }
+
+    boolean isEnabled() {
+        return percentile > 0;
+    }
+
+    /**
+     * @return what the first attempt to succeed returned
+     * @throws RuntimeException what the call threw, when no attempt succeeded
+     */
+    <T> T call(final Supplier<T> attempt) {
+        if (!isEnabled()) {
+            return attempt.get();
+        }
+        calls.incrementAndGet();
+        final long delay = nextDelay();
+        if (delay < 0) {
+            return timed(attempt).get();
+        }
+        final CompletableFuture<T> primary = start(attempt);
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!spend()) {
+                return join(primary);
+            }
+            hedged.incrementAndGet();
+            final CompletableFuture<T> hedge = start(attempt);
+            final AtomicReference<CompletableFuture<T>> winner = new AtomicReference<>();
+            final T answer = join(firstSuccess(primary, hedge, winner));
+            if (winner.get() == hedge) {
+                won.incrementAndGet();
+            }
+            return answer;
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel(false);
+            throw new CancellationException("Interrupted waiting for a hedged call");
+        }
+    }
+
+    /**
+     * Adds the latency of a call made some other way
+     */
+    synchronized void record(final long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % WINDOW;
+        samples++;
+        //
+        // The percentile is taken again every 16 calls, not on every one
+        //
+        if (samples >= MIN_SAMPLES && (samples & 15) == (MIN_SAMPLES & 15)) {
+            final long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            Arrays.sort(window);
+            delayNanos = window[Math.min(window.length - 1, (int) (window.length * percentile / 100))];
+        }
+    }
+
+    String summary() {
+        return String.format("Hedged %d of %d call(s) at p%s, %d won, delay %d ms", hedged.get(), calls.get(),
+            percentile, won.get(), TimeUnit.NANOSECONDS.toMillis(Math.max(0, delay())));
+    }
+
+    synchronized long delay() {
+        return delayNanos;
+    }
+
+    long hedged() {
+        return hedged.get();
+    }
+
+    long won() {
+        return won.get();
+    }
+
+    private synchronized long nextDelay() {
+        credit = Math.min(MAX_BURST, credit + budget);
+        return delayNanos;
+    }
+
+    private synchronized boolean spend() {
+        if (credit < 1) {
+            return false;
+        }
+        credit -= 1;
+        return true;
+    }
+
+    private <T> Supplier<T> timed(final Supplier<T> attempt) {
+        return () -> {
+            final long start = System.nanoTime();
+            final T result = attempt.get();
+            record(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    private <T> CompletableFuture<T> start(final Supplier<T> attempt) {
+        return CompletableFuture.supplyAsync(StepMetrics.propagate(timed(attempt)), executor);
+    }
+
+    //
+    // A failure only decides the call once both attempts have failed, the error is the last one's
+    //
+    private static <T> CompletableFuture<T> firstSuccess(final CompletableFuture<T> primary,
+                                                         final CompletableFuture<T> hedge,
+                                                         final AtomicReference<CompletableFuture<T>> winner) {
+        final CompletableFuture<T> first = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((result, e) -> settle(primary, result, e, first, winner, failures));
+        hedge.whenComplete((result, e) -> settle(hedge, result, e, first, winner, failures));
+        return first;
+    }
+
+    private static <T> void settle(final CompletableFuture<T> attempt,
+                                   final T result,
+                                   final Throwable e,
+                                   final CompletableFuture<T> first,
+                                   final AtomicReference<CompletableFuture<T>> winner,
+                                   final AtomicInteger failures) {
+        if (e == null) {
+            if (winner.compareAndSet(null, attempt)) {
+                first.complete(result);
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            first.completeExceptionally(e);
+        }
+    }
+
+    private static <T> T join(final CompletableFuture<T> attempt) {
+        try {
+            return attempt.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(final Throwable e) {
+        final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new CompletionException(cause);
+    }
+
+    //
+    // e.g. 95 or p99, unset or off for no hedging. Hedging stays off for a percentile that does not
+    // parse and the budget is the default for one that is not a fraction.
+    //
+    static Hedge configured(final Properties properties) {
+        final String value = properties.getProperty(PROPERTY);
+        if (value == null || value.trim().isEmpty() || "off".equalsIgnoreCase(value.trim())) {
+            return DISABLED;
+        }
+        final String number = value.trim().toLowerCase(Locale.ROOT);
+        final double percentile = parse(number.startsWith("p") ? number.substring(1) : number);
+        if (!(percentile > 0 && percentile < 100)) {
+            LOG.warn(() -> String.format("%s=%s is not a percentile, hedging is off", PROPERTY, value));
+            return DISABLED;
+        }
+        final String budgetValue = properties.getProperty(BUDGET_PROPERTY);
+        double budget = budgetValue == null ? DEFAULT_BUDGET : parse(budgetValue.trim());
+        if (!(budget >= 0)) {
+            LOG.warn(() -> String.format("%s=%s is not a budget, using %s", BUDGET_PROPERTY, budgetValue,
+                DEFAULT_BUDGET));
+            budget = DEFAULT_BUDGET;
+        }
+        return new Hedge(percentile, budget, ATTEMPTS);
+    }
+
+    private static double parse(final String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.cloudformation.proxy.Delay;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Exponential backoff with equal jitter: the n-th delay is picked uniformly between half and all
+ * of min(cap, base * 2^(n-1)), so callers stabilizing at the same time spread their polls out
+ * instead of retrying in lock step. The proxy sleeps in whole seconds, so every delay is rounded
+ * up to at least one second. Returns {@link Duration#ZERO} once the delays handed out exceed the
+ * timeout, which the proxy reports as NotStabilized.
+ */
+final class JitteredBackoff implements Delay {
+    static final Duration DEFAULT_BASE = Duration.ofSeconds(1);
+    static final Duration DEFAULT_CAP = Duration.ofSeconds(20);
+    static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(10);
+
+    private final Duration base;
+    private final Duration cap;
+    private final Duration timeout;
+    private final Random random;
+    private Duration accrued = Duration.ZERO;
+
+    static JitteredBackoff withDefaults() {
+        return new JitteredBackoff(DEFAULT_BASE, DEFAULT_CAP, DEFAULT_TIMEOUT);
+    }
+
+    JitteredBackoff(final Duration base, final Duration cap, final Duration timeout) {
+        this(base, cap, timeout, new Random());
+    }
+
+    JitteredBackoff(final Duration base, final Duration cap, final Duration timeout, final Random random) {
+        this.base = base;
+        this.cap = cap;
+        this.timeout = timeout;
+        this.random = random;
+    }
+
+    @Override
+    public Duration nextDelay(final int attempt) {
+        final long ceiling = Math.min(cap.toMillis(), base.toMillis() << Math.min(Math.max(attempt - 1, 0), 30));
+        final long jittered = ceiling / 2 + (long) (random.nextDouble() * (ceiling - ceiling / 2));
+        final Duration next = Duration.ofSeconds(Math.max(1, (jittered + 999) / 1000));
+        accrued = accrued.plus(next);
+        return accrued.compareTo(timeout) > 0 ? Duration.ZERO : next;
+    }
+}
@@ -0,0 +1,174 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.RetryableException;
+import software.amazon.awssdk.http.HttpStatusCode;
+import software.amazon.cloudformation.proxy.Delay;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Retries of AssociateKmsKey, for one call chain. Every failure is classified first: a key created
+ * alongside the log group answers AccessDenied for a few seconds while it propagates, and throttling
+ * goes away by itself, but a key that does not exist, is disabled or is pending deletion never
+ * succeeds, so those fail on the first attempt instead of after minutes of retries.
+ *
+ * Retryable failures back off from one second up to eight, with jitter, until {@link #BUDGET} has
+ * passed since the first attempt, which is kept in the {@link CallbackContext} so the budget is not
+ * started over when the handler is invoked again. A key that still denies access after that is most
+ * likely missing the key policy for CloudWatch Logs, and the AccessDenied is reported as is. The
+ * time spent on each classification, the failed attempt and the wait after it, is recorded with
+ * {@link StepMetrics}. The blocking call chains use the policy as their error handler and delay,
+ * AsyncPipeline asks {@link #retries} and schedules {@link #nextDelay} itself.
+ */
+final class KmsRetryPolicy implements Delay {
+    static final Duration BASE = Duration.ofSeconds(1);
+    static final Duration CAP = Duration.ofSeconds(8);
+    static final Duration BUDGET = Duration.ofSeconds(60);
+    //
+    // Codes KMS answers with that CloudWatch Logs passes through. ResourceNotFoundException is the
+    // log group that is missing, not the key, and is left to the default mapping.
+    //
+    static final Set<String> KEY_NOT_FOUND_CODES = new HashSet<>(Arrays.asList(
+        "NotFoundException", "KMSNotFoundException"));
+    static final Set<String> KEY_UNUSABLE_CODES = new HashSet<>(Arrays.asList(
+        "DisabledException", "KMSDisabledException", "KMSInvalidStateException", "KeyUnavailableException",
+        "KMSInvalidKeyUsageException"));
+
+    enum Classification {
+        PROPAGATING(true),
+        THROTTLED(true),
+        KEY_NOT_FOUND(false),
+        KEY_UNUSABLE(false),
+        OTHER(false);
+
+        private final boolean retryable;
+
+        Classification(final boolean retryable) {
+            this.retryable = retryable;
+        }
+
+        boolean isRetryable() {
+            return retryable;
+        }
+    }
+
+    private final Delay backoff;
+    private final Duration budget;
+    private final Logger logger;
+    private final Duration carried;
+    private Duration waited = Duration.ZERO;
+    private Classification last;
+    private long attemptStartedAt = System.nanoTime();
+
+    static KmsRetryPolicy withDefaults(final Logger logger, final CallbackContext context) {
+        return new KmsRetryPolicy(backoff(), BUDGET, logger, context);
+    }
+
+    static Delay backoff() {
+        return new JitteredBackoff(BASE, CAP, JitteredBackoff.DEFAULT_TIMEOUT);
+    }
+
+    KmsRetryPolicy(final Delay backoff, final Duration budget, final Logger logger, final CallbackContext context) {
+        this.backoff = backoff;
+        this.budget = budget;
+        this.logger = logger;
+        final long now = System.currentTimeMillis();
+        if (context.getKmsKeyFirstAttemptAt() == null) {
+            context.setKmsKeyFirstAttemptAt(now);
+        }
+        this.carried = Duration.ofMillis(Math.max(0, now - context.getKmsKeyFirstAttemptAt()));
+    }
+
+    static Classification classify(final Throwable exception) {
+        if (!(exception instanceof AwsServiceException)) {
+            return Classification.OTHER;
+        }
+        final AwsServiceException serviceException = (AwsServiceException) exception;
+        final AwsErrorDetails details = serviceException.awsErrorDetails();
+        if (details == null) {
+            return Classification.OTHER;
+        }
+        final String code = String.valueOf(details.errorCode());
+        if (serviceException.isThrottlingException() || serviceException.statusCode() == HttpStatusCode.THROTTLING
+            || StepMetrics.Interceptor.THROTTLING_CODES.contains(code)) {
+            return Classification.THROTTLED;
+        }
+        if (KEY_NOT_FOUND_CODES.contains(code)) {
+            return Classification.KEY_NOT_FOUND;
+        }
+        if (KEY_UNUSABLE_CODES.contains(code)) {
+            return Classification.KEY_UNUSABLE;
+        }
+        //
+        // These two codes cover more than one case, the message tells them apart
+        //
+        final String message = String.valueOf(details.errorMessage()).toLowerCase(Locale.ROOT);
+        switch (code) {
+            case "AccessDeniedException":
+                return isKeyNotFound(message) ? Classification.KEY_NOT_FOUND : Classification.PROPAGATING;
+            case "InvalidParameterException":
+                if (isKeyNotFound(message)) {
+                    return Classification.KEY_NOT_FOUND;
+                }
+                return message.contains("disabled") || message.contains("pending deletion")
+                    || message.contains("pendingdeletion") || message.contains("not in a valid state")
+                    ? Classification.KEY_UNUSABLE : Classification.OTHER;
+            default:
+                return Classification.OTHER;
+        }
+    }
+
+    private static boolean isKeyNotFound(final String message) {
+        return message.contains("could not be found") || message.contains("does not exist");
+    }
+
+    /**
+     * Makes one attempt, the time until it fails is part of the time of its classification
+     */
+    <T> T attempt(final Supplier<T> call) {
+        attemptStartedAt = System.nanoTime();
+        return call.get();
+    }
+
+    /**
+     * Classifies a failed attempt, true if it is retryable and the budget is not spent yet
+     */
+    boolean retries(final Throwable exception) {
+        last = classify(exception);
+        StepMetrics.classified(last.name(), System.nanoTime() - attemptStartedAt, 1);
+        final Duration spent = carried.plus(waited);
+        final boolean retrying = last.isRetryable() && spent.compareTo(budget) < 0;
+        logger.log(String.format("AssociateKmsKey failed with %s after waiting %s, %s: %s",
+            last, spent, retrying ? "retrying" : "not retrying", exception.getMessage()));
+        return retrying;
+    }
+
+    /**
+     * Error handler of the call chain, asks the proxy to retry or rethrows for its default mapping
+     */
+    ProgressEvent<ResourceModel, CallbackContext> handle(final Exception exception) throws Exception {
+        if (!retries(exception)) {
+            throw exception;
+        }
+        throw RetryableException.builder().cause(exception).build();
+    }
+
+    @Override
+    public Duration nextDelay(final int attempt) {
+        final Duration next = backoff.nextDelay(attempt);
+        waited = waited.plus(next);
+        if (last != null) {
+            StepMetrics.classified(last.name(), next.toNanos(), 0);
+        }
+        return next;
+    }
+}
@@ -5,9 +5,26 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
 
 public class ListHandler extends BaseHandler<CallbackContext> {
+    private static final ShardedListing SHARDED_LISTING = new ShardedListing(ShardedListing.DEFAULT_WORKERS);
+
+    //
+    // Off unless ShardedListing.PROPERTY is set, see ShardedListing for what a sharded page costs.
+    // Tokens handed out in sharded mode keep the enumeration sharded, whichever mode the handler
+    // that resumes it was created with.
+    //
+    private final boolean sharded;
+
+    public ListHandler() {
+        this(ShardedListing.isEnabled());
+    }
+
+    ListHandler(final boolean sharded) {
+        this.sharded = sharded;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -16,9 +33,15 @@ public class ListHandler extends BaseHandler<CallbackContext> {
         final CallbackContext callbackContext,
         final Logger logger) {
 
-        final DescribeLogGroupsResponse response =
-                proxy.injectCredentialsAndInvokeV2(Translator.translateToListRequest(request.getNextToken()),
-                    ClientBuilder.getClient()::describeLogGroups);
+        final CloudWatchLogsClient client = ClientBuilder.getClient();
+        final DescribeLogGroupsResponse response;
+        if (sharded && request.getNextToken() == null || ShardedListing.isShardedToken(request.getNextToken())) {
+            response = SHARDED_LISTING.describe(request.getNextToken(),
+                shardRequest -> proxy.injectCredentialsAndInvokeV2(shardRequest, client::describeLogGroups));
+        } else {
+            response = proxy.injectCredentialsAndInvokeV2(Translator.translateToListRequest(request.getNextToken()),
+                client::describeLogGroups);
+        }
         return ProgressEvent.<ResourceModel, CallbackContext>builder()
                 .status(OperationStatus.SUCCESS)
                 .resourceModels(Translator.translateForList(response))
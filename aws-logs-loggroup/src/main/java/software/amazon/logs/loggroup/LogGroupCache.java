@@ -0,0 +1,210 @@
+package software.amazon.logs.loggroup;
+
+import lombok.Value;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Log groups described by ReadHandler, kept for the life of a warm container so that the reads
+ * CloudFormation makes right after one another, and the Read every Create and Update ends with,
+ * don't all go to DescribeLogGroups and ListTagsLogGroup. Entries are keyed by account, region and
+ * name, expire after {@link #DEFAULT_TTL} and the least recently used are dropped beyond
+ * {@link #DEFAULT_CAPACITY}. The tags of an entry are unknown until {@link #putTags} adds them, as
+ * for the log groups BatchReadHandler describes.
+ *
+ * Every call that changes a log group goes through {@link #invalidating}, or {@link #invalidatingAsync}
+ * on the async client, which drops the entries for its name before the call and again once it
+ * returns, so a Read never sees what the container itself changed. Changes made elsewhere show up
+ * within the TTL.
+ *
+ * A Read whose describe is still in flight when a change completes would otherwise cache what the
+ * log group looked like before it. Each invalidation bumps a {@link #generation} of the name, a
+ * reader takes the generation before its call and what it puts is dropped if the generation moved
+ * meanwhile. Generations are kept for {@link #GENERATION_STRIPES} buckets of names rather than per
+ * name, so they take no memory per log group; a change to another name of the same bucket only costs
+ * a reader its put.
+ */
+final class LogGroupCache {
+    static final Duration DEFAULT_TTL = Duration.ofSeconds(15);
+    static final int DEFAULT_CAPACITY = 1000;
+    static final int GENERATION_STRIPES = 256;
+
+    private static final LogGroupCache SHARED = new LogGroupCache(DEFAULT_TTL, DEFAULT_CAPACITY, System::nanoTime);
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<Key, Entry> entries;
+    //
+    // Guarded by entries, like the entries themselves
+    //
+    private final long[] generations = new long[GENERATION_STRIPES];
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    LogGroupCache(final Duration ttl, final int capacity, final LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    static LogGroupCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the log group, or null when it is not cached or has expired
+     */
+    LogGroup get(final Key key) {
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.cachedAt < ttlNanos) {
+                hits.incrementAndGet();
+                return entry.logGroup;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @return the generation of a name, taken before the call whose result is put
+     */
+    long generation(final String logGroupName) {
+        synchronized (entries) {
+            return generations[stripe(logGroupName)];
+        }
+    }
+
+    /**
+     * Caches a log group read at the given generation, unless the name was invalidated since
+     */
+    void put(final Key key, final LogGroup logGroup, final long generation) {
+        synchronized (entries) {
+            if (generations[stripe(key.getLogGroupName())] == generation) {
+                entries.put(key, new Entry(logGroup, null, clock.getAsLong()));
+            }
+        }
+    }
+
+    /**
+     * @return the tags of a cached log group, or null when they are unknown or it is not cached
+     */
+    Map<String, String> tags(final Key key) {
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            return entry != null && clock.getAsLong() - entry.cachedAt < ttlNanos ? entry.tags : null;
+        }
+    }
+
+    /**
+     * Adds the tags, listed at the given generation, of a log group that is cached. A log group
+     * invalidated since it was described or its tags were listed is left out.
+     */
+    void putTags(final Key key, final Map<String, String> tags, final long generation) {
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null && generations[stripe(key.getLogGroupName())] == generation) {
+                entries.put(key, new Entry(entry.logGroup, Collections.unmodifiableMap(new HashMap<>(tags)),
+                    entry.cachedAt));
+            }
+        }
+    }
+
+    /**
+     * Drops the log group with this name in every account and region, callers that change a log
+     * group know its name but not always where the request came from
+     */
+    void invalidate(final String logGroupName) {
+        synchronized (entries) {
+            generations[stripe(logGroupName)]++;
+            entries.keySet().removeIf(key -> key.getLogGroupName().equals(logGroupName));
+        }
+    }
+
+    /**
+     * Makes a call that changes the log group, invalidating it before and after
+     */
+    <T> T invalidating(final String logGroupName, final Supplier<T> call) {
+        invalidate(logGroupName);
+        try {
+            return call.get();
+        } finally {
+            invalidate(logGroupName);
+        }
+    }
+
+    /**
+     * Async counterpart of {@link #invalidating}, the second invalidation is once the call completes
+     */
+    <T> CompletableFuture<T> invalidatingAsync(final String logGroupName, final Supplier<CompletableFuture<T>> call) {
+        return invalidating(logGroupName, call).whenComplete((result, e) -> invalidate(logGroupName));
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static int stripe(final String logGroupName) {
+        return Math.floorMod(logGroupName.hashCode(), GENERATION_STRIPES);
+    }
+
+    String summary() {
+        return String.format("Log group cache: %d entries, %d hits, %d misses", size(), hits(), misses());
+    }
+
+    @Value
+    static class Key {
+        private final String account;
+        private final String region;
+        private final String logGroupName;
+
+        static Key of(final String account, final String region, final String logGroupName) {
+            return new Key(account == null ? "" : account, region == null ? "" : region, logGroupName);
+        }
+    }
+
+    private static final class Entry {
+        private final LogGroup logGroup;
+        private final Map<String, String> tags;
+        private final long cachedAt;
+
+        private Entry(final LogGroup logGroup, final Map<String, String> tags, final long cachedAt) {
+            this.logGroup = logGroup;
+            this.tags = tags;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
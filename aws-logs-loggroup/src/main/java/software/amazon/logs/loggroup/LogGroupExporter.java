@@ -0,0 +1,241 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONObject;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports every log group of the account, or of a name prefix, to a file of newline delimited JSON,
+ * one object per log group with all the attributes DescribeLogGroups returns, storedBytes, creationTime
+ * and kmsKeyId included. Pages are requested the way ListHandler requests them, the next one while
+ * the current one is written, and each page is written as it arrives, so memory stays at two pages
+ * however many log groups there are. A file named *.gz is written gzip compressed.
+ *
+ * Every {@link #DEFAULT_CHECKPOINT_PAGES} pages the output is flushed and a checkpoint, the next token
+ * and the length of the file, is saved next to it. An export that fails part way picks up from the
+ * last checkpoint when run again for the same file, the file is cut back to the checkpointed length
+ * first so no log group is written twice. The checkpoint is removed once the export completes.
+ */
+public final class LogGroupExporter {
+    static final int DEFAULT_CHECKPOINT_PAGES = 20;
+    static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "log-group-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe;
+    private final Executor executor;
+    private final int checkpointPages;
+
+    LogGroupExporter(final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe,
+                     final Executor executor,
+                     final int checkpointPages) {
+        this.describe = describe;
+        this.executor = executor;
+        this.checkpointPages = checkpointPages;
+    }
+
+    /**
+     * @param prefix of the log group names to export, null for all
+     * @return the number of log groups in the file
+     */
+    public static long export(final AmazonWebServicesClientProxy proxy,
+                              final Path file,
+                              final String prefix) throws IOException {
+        final CloudWatchLogsClient client = ClientBuilder.getClient();
+        return new LogGroupExporter(request -> proxy.injectCredentialsAndInvokeV2(request, client::describeLogGroups),
+            PREFETCH, DEFAULT_CHECKPOINT_PAGES).export(file, prefix);
+    }
+
+    long export(final Path file, final String prefix) throws IOException {
+        final Path checkpointFile = file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX);
+        final Checkpoint resumed = Checkpoint.read(checkpointFile, prefix);
+        final boolean gzip = file.getFileName().toString().endsWith(".gz");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(resumed.length);
+            channel.position(resumed.length);
+            long exported = resumed.exported;
+            int pages = 0;
+            Writer segment = null;
+            CompletableFuture<DescribeLogGroupsResponse> next = fetch(resumed.nextToken, prefix);
+            try {
+                while (next != null) {
+                    final DescribeLogGroupsResponse page = join(next);
+                    next = page.nextToken() == null ? null : fetch(page.nextToken(), prefix);
+                    if (segment == null) {
+                        segment = open(channel, gzip);
+                    }
+                    for (final LogGroup logGroup : page.logGroups()) {
+                        write(logGroup, segment);
+                        exported++;
+                    }
+                    if (++pages % checkpointPages == 0 && next != null) {
+                        //
+                        // Closing the segment ends the gzip member, so the file up to here is
+                        // complete on its own and a resume can append the next member to it
+                        //
+                        segment.close();
+                        segment = null;
+                        new Checkpoint(prefix, page.nextToken(), exported, channel.size()).write(checkpointFile);
+                    }
+                }
+                if (segment != null) {
+                    segment.close();
+                }
+            } finally {
+                if (next != null) {
+                    next.cancel(false);
+                }
+            }
+            Files.deleteIfExists(checkpointFile);
+            return exported;
+        }
+    }
+
+    //
+    // One line per log group, attributes the service did not return are left out
+    //
+    private static void write(final LogGroup logGroup, final Writer out) throws IOException {
+        out.write('{');
+        boolean first = field("logGroupName", quote(logGroup.logGroupName()), true, out);
+        first = field("arn", quote(logGroup.arn()), first, out);
+        first = field("creationTime", logGroup.creationTime(), first, out);
+        first = field("retentionInDays", logGroup.retentionInDays(), first, out);
+        first = field("metricFilterCount", logGroup.metricFilterCount(), first, out);
+        first = field("storedBytes", logGroup.storedBytes(), first, out);
+        field("kmsKeyId", quote(logGroup.kmsKeyId()), first, out);
+        out.write("}\n");
+    }
+
+    private static boolean field(final String name,
+                                 final Object value,
+                                 final boolean first,
+                                 final Writer out) throws IOException {
+        if (value == null) {
+            return first;
+        }
+        if (!first) {
+            out.write(',');
+        }
+        out.write('"');
+        out.write(name);
+        out.write("\":");
+        out.write(value.toString());
+        return false;
+    }
+
+    private static String quote(final String value) {
+        return value == null ? null : JSONObject.quote(value);
+    }
+
+    private static Writer open(final FileChannel channel, final boolean gzip) throws IOException {
+        //
+        // The channel outlives the segments written to it, closing a segment only flushes it
+        //
+        final OutputStream file = new FilterOutputStream(Channels.newOutputStream(channel)) {
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        final OutputStream out = gzip ? new GZIPOutputStream(file, BUFFER_SIZE) : file;
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private CompletableFuture<DescribeLogGroupsResponse> fetch(final String nextToken, final String prefix) {
+        return CompletableFuture.supplyAsync(
+            () -> describe.apply(Translator.translateToListRequest(nextToken, prefix)), executor);
+    }
+
+    private static DescribeLogGroupsResponse join(final CompletableFuture<DescribeLogGroupsResponse> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Checkpoint {
+        private static final Checkpoint START = new Checkpoint(null, null, 0, 0);
+
+        private final String prefix;
+        private final String nextToken;
+        private final long exported;
+        private final long length;
+
+        private Checkpoint(final String prefix, final String nextToken, final long exported, final long length) {
+            this.prefix = prefix;
+            this.nextToken = nextToken;
+            this.exported = exported;
+            this.length = length;
+        }
+
+        private static Checkpoint read(final Path file, final String prefix) throws IOException {
+            if (!Files.exists(file)) {
+                return START;
+            }
+            final JSONObject json = new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            final String checkpointed = json.optString("prefix", null);
+            if (!Objects.equals(checkpointed, prefix)) {
+                throw new IllegalArgumentException(String.format(
+                    "%s is for an export of prefix %s, not %s", file, checkpointed, prefix));
+            }
+            return new Checkpoint(checkpointed, json.getString("nextToken"),
+                json.getLong("exported"), json.getLong("length"));
+        }
+
+        //
+        // Written aside and moved into place, a failure while saving leaves the previous checkpoint
+        //
+        private void write(final Path file) throws IOException {
+            final JSONObject json = new JSONObject()
+                .put("nextToken", nextToken)
+                .put("exported", exported)
+                .put("length", length);
+            if (prefix != null) {
+                json.put("prefix", prefix);
+            }
+            final Path saving = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(saving, json.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(saving, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks every log group of the account, or of a name prefix, page by page with the requests
+ * ListHandler makes. As soon as a page arrives the next one is requested in the background, so
+ * while the caller works through page N, page N+1 is already on its way and the walk costs about
+ * one round trip in total rather than one per page.
+ *
+ * At most two pages are held at any time, the one being consumed and the one being fetched, however
+ * many log groups there are. Nothing is fetched beyond the page after the one being consumed, so
+ * stopping early, a short-circuiting stream operation or {@link #close()}, wastes a page at most.
+ */
+public final class LogGroupIterator implements Iterator<ResourceModel>, AutoCloseable {
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "log-group-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe;
+    private final Executor executor;
+    private final String prefix;
+    private Iterator<ResourceModel> page;
+    private CompletableFuture<DescribeLogGroupsResponse> next;
+    private boolean closed;
+
+    /**
+     * @param describe makes the DescribeLogGroups call, on the executor's threads
+     * @param prefix of the log group names to walk, null for all
+     */
+    LogGroupIterator(final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe,
+                     final Executor executor,
+                     final String prefix) {
+        this.describe = describe;
+        this.executor = executor;
+        this.prefix = prefix;
+        this.next = fetch(null);
+    }
+
+    /**
+     * @return the log groups with names starting with prefix, null for all of them, in name order.
+     *         Close the stream to stop the walk before the end.
+     */
+    public static Stream<ResourceModel> stream(final AmazonWebServicesClientProxy proxy, final String prefix) {
+        final CloudWatchLogsClient client = ClientBuilder.getClient();
+        return stream(new LogGroupIterator(
+            request -> proxy.injectCredentialsAndInvokeV2(request, client::describeLogGroups), PREFETCH, prefix));
+    }
+
+    static Stream<ResourceModel> stream(final LogGroupIterator iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+            .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!closed && (page == null || !page.hasNext())) {
+            if (next == null) {
+                return false;
+            }
+            final DescribeLogGroupsResponse response = join(next);
+            next = response.nextToken() == null ? null : fetch(response.nextToken());
+            page = Translator.translateForList(response).iterator();
+        }
+        return !closed;
+    }
+
+    @Override
+    public ResourceModel next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Stops the walk, the page being fetched, if any, is dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        page = null;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    private CompletableFuture<DescribeLogGroupsResponse> fetch(final String nextToken) {
+        return CompletableFuture.supplyAsync(
+            () -> describe.apply(Translator.translateToListRequest(nextToken, prefix)), executor);
+    }
+
+    private static DescribeLogGroupsResponse join(final CompletableFuture<DescribeLogGroupsResponse> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
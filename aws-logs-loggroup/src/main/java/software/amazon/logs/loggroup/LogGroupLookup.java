@@ -0,0 +1,110 @@
+package software.amazon.logs.loggroup;
+
+import lombok.Getter;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.util.Collections;
+
+/**
+ * Finds a log group by its exact name. DescribeLogGroups only matches on prefix, so a name like
+ * /aws/lambda/foo also returns every /aws/lambda/foo* sibling. Results come back in lexical order,
+ * so we page through them with the largest page size and stop as soon as we see the name or
+ * sort past it, instead of trusting whatever the first page happened to contain.
+ */
+@Getter
+final class LogGroupLookup {
+    static final int MAX_PAGE_SIZE = 50;
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final String logGroupName;
+    private final int maxPages;
+    private final Hedge hedge;
+    private int pages;
+    private long bytes;
+    private boolean found;
+    private LogGroup match;
+
+    LogGroupLookup(final String logGroupName) {
+        this(logGroupName, Integer.MAX_VALUE);
+    }
+
+    LogGroupLookup(final String logGroupName, final int maxPages) {
+        this(logGroupName, maxPages, Hedge.disabled());
+    }
+
+    LogGroupLookup(final String logGroupName, final int maxPages, final Hedge hedge) {
+        this.logGroupName = logGroupName;
+        this.maxPages = maxPages;
+        this.hedge = hedge;
+    }
+
+    /**
+     * Reads pages until the lookup is decided, see {@link #result(DescribeLogGroupsResponse)}. Each
+     * page is one call of the hedge, a slow page can be requested twice.
+     */
+    DescribeLogGroupsResponse describe(final DescribeLogGroupsRequest request,
+                                       final ProxyClient<CloudWatchLogsClient> client) {
+        String nextToken = request.nextToken();
+        DescribeLogGroupsResponse response;
+        do {
+            final DescribeLogGroupsRequest page = request.toBuilder().nextToken(nextToken).build();
+            response = hedge.call(() -> client.injectCredentialsAndInvokeV2(page, client.client()::describeLogGroups));
+            nextToken = next(response);
+        } while (nextToken != null);
+        return result(response);
+    }
+
+    /**
+     * Takes in the next page of results, for callers that make the calls themselves.
+     *
+     * @return the token of the page to read next, or null once the lookup is decided
+     */
+    String next(final DescribeLogGroupsResponse page) {
+        pages++;
+        bytes += contentLength(page);
+        for (final LogGroup logGroup : page.logGroups()) {
+            if (logGroup.logGroupName() == null) {
+                continue;
+            }
+            final int order = logGroup.logGroupName().compareTo(logGroupName);
+            if (order == 0) {
+                found = true;
+                match = logGroup;
+                return null;
+            }
+            if (order > 0) {
+                return null;
+            }
+        }
+        return pages < maxPages ? page.nextToken() : null;
+    }
+
+    /**
+     * @return the last page read, narrowed down to the exact match, or with no log groups if there
+     *         is none
+     */
+    DescribeLogGroupsResponse result(final DescribeLogGroupsResponse last) {
+        return last.toBuilder()
+            .logGroups(found ? Collections.singletonList(match) : Collections.emptyList())
+            .nextToken(null)
+            .build();
+    }
+
+    String summary() {
+        return String.format("Log group %s %s after %d page(s), %d bytes",
+            logGroupName, found ? "found" : "not found", pages, bytes);
+    }
+
+    private static long contentLength(final DescribeLogGroupsResponse response) {
+        if (response.sdkHttpResponse() == null) {
+            return 0;
+        }
+        return response.sdkHttpResponse().firstMatchingHeader(CONTENT_LENGTH)
+            .map(Long::parseLong)
+            .orElse(0L);
+    }
+}
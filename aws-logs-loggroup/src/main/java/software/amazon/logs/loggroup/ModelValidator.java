@@ -0,0 +1,129 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The pattern, minLength, maxLength and enum constraints of the resource schema, compiled once
+ * into checks Create and Update run on the desired state before making any service call. Input the
+ * schema rejects then fails with InvalidRequest without a round trip to CloudWatch Logs. Read and
+ * Delete only need the LogGroupName and leave it to the service.
+ *
+ * Properties that are not set are not checked, CreateHandler generates a missing LogGroupName. The
+ * read-only Arn is the service's to set and is not checked either.
+ */
+final class ModelValidator {
+    private static final Map<String, Function<ResourceModel, Object>> PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        PROPERTIES.put("LogGroupName", ResourceModel::getLogGroupName);
+        PROPERTIES.put("RetentionInDays", ResourceModel::getRetentionInDays);
+        PROPERTIES.put("KmsKeyArn", ResourceModel::getKmsKeyArn);
+    }
+
+    private static final ModelValidator SCHEMA = new ModelValidator(Configuration.resourceSchema());
+
+    private final List<Check> checks;
+
+    ModelValidator(final JSONObject schema) {
+        final JSONObject properties = schema.getJSONObject("properties");
+        final List<Check> compiled = new ArrayList<>();
+        PROPERTIES.forEach((property, accessor) -> {
+            final JSONObject definition = properties.optJSONObject(property);
+            if (definition != null) {
+                compile(property, accessor, definition, compiled);
+            }
+        });
+        this.checks = Collections.unmodifiableList(compiled);
+    }
+
+    /**
+     * @return the model, once it satisfies the schema
+     * @throws CfnInvalidRequestException naming every violated constraint
+     */
+    static ResourceModel validate(final ResourceModel model) {
+        return SCHEMA.check(model);
+    }
+
+    ResourceModel check(final ResourceModel model) {
+        final List<String> violations = violations(model);
+        if (!violations.isEmpty()) {
+            throw new CfnInvalidRequestException(String.join("; ", violations));
+        }
+        return model;
+    }
+
+    List<String> violations(final ResourceModel model) {
+        if (model == null) {
+            return Collections.emptyList();
+        }
+        final List<String> violations = new ArrayList<>();
+        for (final Check check : checks) {
+            final Object value = check.accessor.apply(model);
+            if (value != null && !check.test.test(value)) {
+                violations.add(String.format("%s %s, got %s", check.property, check.description, value));
+            }
+        }
+        return violations;
+    }
+
+    private static void compile(final String property,
+                                final Function<ResourceModel, Object> accessor,
+                                final JSONObject definition,
+                                final List<Check> checks) {
+        if (definition.has("minLength")) {
+            final int minLength = definition.getInt("minLength");
+            checks.add(new Check(property, accessor, value -> value.toString().length() >= minLength,
+                "must be at least " + minLength + " characters long"));
+        }
+        if (definition.has("maxLength")) {
+            final int maxLength = definition.getInt("maxLength");
+            checks.add(new Check(property, accessor, value -> value.toString().length() <= maxLength,
+                "must be at most " + maxLength + " characters long"));
+        }
+        if (definition.has("pattern")) {
+            final Pattern pattern = Pattern.compile(definition.getString("pattern"));
+            checks.add(new Check(property, accessor, value -> pattern.matcher(value.toString()).find(),
+                "must match " + pattern.pattern()));
+        }
+        if (definition.has("enum")) {
+            final JSONArray values = definition.getJSONArray("enum");
+            final Set<String> allowed = new HashSet<>();
+            for (int i = 0; i < values.length(); i++) {
+                allowed.add(values.get(i).toString());
+            }
+            checks.add(new Check(property, accessor, value -> allowed.contains(value.toString()),
+                "must be one of " + values.toList().stream().map(Object::toString).collect(Collectors.joining(", "))));
+        }
+    }
+
+    private static final class Check {
+        private final String property;
+        private final Function<ResourceModel, Object> accessor;
+        private final Predicate<Object> test;
+        private final String description;
+
+        private Check(final String property,
+                      final Function<ResourceModel, Object> accessor,
+                      final Predicate<Object> test,
+                      final String description) {
+            this.property = property;
+            this.accessor = accessor;
+            this.test = test;
+            this.description = description;
+        }
+    }
+}
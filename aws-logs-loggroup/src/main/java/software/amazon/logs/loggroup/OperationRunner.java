@@ -0,0 +1,128 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs resource operations outside Lambda, each one to completion in a thread of its own: the handler is
+ * invoked again with the returned context after the callback delay while it reports IN_PROGRESS, the way
+ * the wrapper would, and an exception out of it becomes the FAILED event the wrapper would report.
+ *
+ * On JDK 21 and later every operation gets a virtual thread, so the sleeps of the stabilization loops in
+ * DeleteHandler and Util and the blocking SDK calls cost a parked continuation rather than a platform
+ * thread, and tens of thousands of operations can be in flight at once. The source still targets Java 8,
+ * so the virtual thread executor is looked up at runtime; on older runtimes operations share a pool of
+ * {@link #DEFAULT_PLATFORM_THREADS} platform threads and queue for a free one.
+ *
+ * Nothing the handlers block in holds a monitor while it waits, RateLimiter sleeps outside its lock and
+ * the proxy's backoff is a plain Thread.sleep, so a waiting operation does not pin its carrier thread.
+ */
+public final class OperationRunner implements AutoCloseable {
+    static final int DEFAULT_PLATFORM_THREADS = 64;
+
+    interface Pause {
+        void sleep(int seconds) throws InterruptedException;
+    }
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Pause pause;
+
+    OperationRunner(final ExecutorService executor, final boolean virtualThreads, final Pause pause) {
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+        this.pause = pause;
+    }
+
+    /**
+     * @return a runner on virtual threads when the runtime has them, on platform threads otherwise
+     */
+    public static OperationRunner create() {
+        final ExecutorService virtual = virtualThreadPerTaskExecutor();
+        return virtual == null
+            ? withPlatformThreads(DEFAULT_PLATFORM_THREADS)
+            : new OperationRunner(virtual, true, TimeUnit.SECONDS::sleep);
+    }
+
+    /**
+     * @return a runner on a fixed pool of daemon platform threads, the fallback before JDK 21
+     */
+    public static OperationRunner withPlatformThreads(final int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return new OperationRunner(Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "log-group-operation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }), false, TimeUnit.SECONDS::sleep);
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return the final event of the operation, SUCCESS or FAILED, never IN_PROGRESS unless the runner
+     * was closed while the operation waited for its callback
+     */
+    public CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> run(
+        final BaseHandler<CallbackContext> handler,
+        final AmazonWebServicesClientProxy proxy,
+        final ResourceHandlerRequest<ResourceModel> request,
+        final Logger logger) {
+        return CompletableFuture.supplyAsync(() -> complete(handler, proxy, request, logger), executor);
+    }
+
+    private ProgressEvent<ResourceModel, CallbackContext> complete(final BaseHandler<CallbackContext> handler,
+                                                                   final AmazonWebServicesClientProxy proxy,
+                                                                   final ResourceHandlerRequest<ResourceModel> request,
+                                                                   final Logger logger) {
+        CallbackContext context = null;
+        while (true) {
+            final ProgressEvent<ResourceModel, CallbackContext> event;
+            try {
+                event = handler.handleRequest(proxy, request, context, logger);
+            } catch (RuntimeException e) {
+                return AsyncPipeline.failed(request.getDesiredResourceState(), context, e);
+            }
+            if (event.getStatus() != OperationStatus.IN_PROGRESS) {
+                return event;
+            }
+            context = event.getCallbackContext();
+            try {
+                pause.sleep(event.getCallbackDelaySeconds());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting operations and interrupts the ones still running
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    //
+    // Executors.newVirtualThreadPerTaskExecutor is public from JDK 21, a preview on 19 and 20 that
+    // throws unless previews are enabled
+    //
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package software.amazon.logs.loggroup;
+
+import lombok.Value;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.utils.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Client side token buckets, one per account, region and CloudWatch Logs API, shared by every
+ * handler in the container. A request takes a token before it is sent and waits for the bucket to
+ * refill if there is none, so a burst of handlers is spread out instead of running into
+ * ThrottlingException and SDK retries all at once. The blocking client waits on the thread that
+ * sends the request, see {@link #acquire}. Nothing may sleep on the async client's threads, so its
+ * callers {@link #reserve} the token and send the request once it is due, see AsyncPipeline; its
+ * retries are paced by the SDK's backoff alone.
+ *
+ * The rate adapts to what the service says, additive increase and multiplicative decrease: every
+ * throttled response halves the bucket's rate, every success adds back {@link #INCREASE_FRACTION}
+ * of its ceiling, so a halved bucket is back at full rate after five successes at any ceiling.
+ * Other containers share the same account quota, so the ceiling is a ceiling, not a promise.
+ *
+ * Ceilings are the documented CloudWatch Logs quotas per account and region unless {@link #PROPERTY}
+ * says otherwise: off to not limit at all, or requests per second for every API. One API can be given
+ * its own with the property suffixed with its name, e.g. {@code .rateLimit.DescribeLogGroups=2}. A
+ * value that is not a rate is logged and ignored, the shared limiter is built in a static initializer
+ * and must not fail the class.
+ */
+final class RateLimiter {
+    static final String PROPERTY = "software.amazon.logs.loggroup.rateLimit";
+    //
+    // https://docs.aws.amazon.com/AmazonCloudWatch/latest/logs/cloudwatch_limits_cwl.html, the APIs
+    // this handler calls; anything else gets the lowest of them
+    //
+    static final Map<String, Double> DOCUMENTED_QUOTAS;
+    static final double DEFAULT_RATE = 5.0;
+    static final double MIN_RATE = 0.2;
+    static final double DECREASE_FACTOR = 0.5;
+    static final double INCREASE_FRACTION = 0.1;
+
+    static {
+        final Map<String, Double> quotas = new HashMap<>();
+        quotas.put("AssociateKmsKey", 10.0);
+        quotas.put("CreateLogGroup", 5.0);
+        quotas.put("DeleteLogGroup", 10.0);
+        quotas.put("DeleteRetentionPolicy", 5.0);
+        quotas.put("DescribeLogGroups", 10.0);
+        quotas.put("DisassociateKmsKey", 10.0);
+        quotas.put("ListTagsLogGroup", 10.0);
+        quotas.put("PutRetentionPolicy", 5.0);
+        DOCUMENTED_QUOTAS = Collections.unmodifiableMap(quotas);
+    }
+
+    private static final Logger LOG = Logger.loggerFor(RateLimiter.class);
+    private static final RateLimiter SHARED = configured();
+
+    private final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Double> rates = new ConcurrentHashMap<>();
+    private volatile Map<String, Double> quotas;
+    private volatile double defaultRate;
+
+    /**
+     * @param defaultRate requests per second for every API, 0 to not limit them
+     */
+    RateLimiter(final double defaultRate) {
+        this(defaultRate, Collections.emptyMap());
+    }
+
+    RateLimiter(final double defaultRate, final Map<String, Double> quotas) {
+        this.defaultRate = defaultRate;
+        this.quotas = quotas;
+    }
+
+    static RateLimiter shared() {
+        return SHARED;
+    }
+
+    static RateLimiter configured() {
+        final RateLimiter limiter = new RateLimiter(DEFAULT_RATE, DOCUMENTED_QUOTAS);
+        limiter.configure(System.getProperties());
+        return limiter;
+    }
+
+    /**
+     * Back to the documented quotas and whatever {@link #PROPERTY} says, undoing setDefaultRate and setRate
+     */
+    void reset() {
+        rates.clear();
+        quotas = DOCUMENTED_QUOTAS;
+        defaultRate = DEFAULT_RATE;
+        configure(System.getProperties());
+        buckets.clear();
+    }
+
+    void configure(final Properties properties) {
+        final String value = properties.getProperty(PROPERTY);
+        if (value != null && !value.trim().isEmpty()) {
+            final Double rate = "off".equalsIgnoreCase(value.trim()) ? Double.valueOf(0) : parse(PROPERTY, value);
+            if (rate != null) {
+                setDefaultRate(rate);
+            }
+        }
+        for (final String name : properties.stringPropertyNames()) {
+            if (name.startsWith(PROPERTY + ".")) {
+                final Double rate = parse(name, properties.getProperty(name));
+                if (rate != null) {
+                    setRate(name.substring(PROPERTY.length() + 1), rate);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param rate requests per second for every API without its own rate, in place of the documented
+     * quotas, 0 to not limit them
+     */
+    void setDefaultRate(final double rate) {
+        defaultRate = rate;
+        quotas = Collections.emptyMap();
+        buckets.clear();
+    }
+
+    /**
+     * @param rate requests per second for this API, 0 to not limit it
+     */
+    void setRate(final String operation, final double rate) {
+        rates.put(operation, rate);
+        buckets.clear();
+    }
+
+    /**
+     * Takes a token for a request, waiting until one is available.
+     *
+     * @return nanoseconds spent waiting
+     */
+    long acquire(final Key key) {
+        final long wait = reserve(key);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * Takes a token for a request without waiting for it.
+     *
+     * @return nanoseconds until the token is due, the request is not to be sent before
+     */
+    long reserve(final Key key) {
+        final Bucket bucket = bucket(key);
+        return bucket == null ? 0 : bucket.reserve();
+    }
+
+    void throttled(final Key key) {
+        final Bucket bucket = bucket(key);
+        if (bucket != null) {
+            bucket.adjust(rate -> Math.max(MIN_RATE, rate * DECREASE_FACTOR));
+        }
+    }
+
+    void succeeded(final Key key) {
+        final Bucket bucket = bucket(key);
+        if (bucket != null) {
+            bucket.adjust(rate -> Math.min(bucket.ceiling, rate + bucket.ceiling * INCREASE_FRACTION));
+        }
+    }
+
+    /**
+     * @return the current rate of the bucket for key, 0 when the API is not limited
+     */
+    double rate(final Key key) {
+        final Bucket bucket = bucket(key);
+        return bucket == null ? 0 : bucket.rate();
+    }
+
+    private Bucket bucket(final Key key) {
+        final Double rate = rates.get(key.getOperation());
+        final double ceiling = rate != null ? rate : quotas.getOrDefault(key.getOperation(), defaultRate);
+        if (ceiling <= 0) {
+            return null;
+        }
+        return buckets.computeIfAbsent(key, ignored -> new Bucket(ceiling));
+    }
+
+    //
+    // null for a value that is not a rate, which leaves the default in place
+    //
+    private static Double parse(final String name, final String value) {
+        double rate;
+        try {
+            rate = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            rate = Double.NaN;
+        }
+        if (!(rate >= 0)) {
+            LOG.warn(() -> String.format("%s=%s is not a rate, ignored", name, value));
+            return null;
+        }
+        return rate;
+    }
+
+    @Value
+    static class Key {
+        private final String account;
+        private final String region;
+        private final String operation;
+    }
+
+    /**
+     * @return the API a request is for, the name the SDK reports it under, e.g. DescribeLogGroups
+     */
+    static String operation(final SdkRequest request) {
+        final String name = request.getClass().getSimpleName();
+        return name.endsWith("Request") ? name.substring(0, name.length() - "Request".length()) : name;
+    }
+
+    //
+    // Tokens can go negative, a request that finds none reserves the next one and sleeps until it
+    // is due. Requests are then served in the order they arrived, without a queue of waiters.
+    //
+    private static final class Bucket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final double ceiling;
+        private double rate;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private Bucket(final double ceiling) {
+            this.ceiling = ceiling;
+            this.rate = ceiling;
+            this.tokens = Math.max(1.0, ceiling);
+        }
+
+        long reserve() {
+            lock.lock();
+            try {
+                refill();
+                tokens -= 1.0;
+                return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void adjust(final DoubleUnaryOperator change) {
+            lock.lock();
+            try {
+                refill();
+                rate = change.applyAsDouble(rate);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double rate() {
+            lock.lock();
+            try {
+                return rate;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refill() {
+            final long now = System.nanoTime();
+            tokens = Math.min(Math.max(1.0, ceiling), tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package software.amazon.logs.loggroup;
 
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
-import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.cloudformation.exceptions.ResourceNotFoundException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.CallChain;
@@ -10,7 +10,28 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class ReadHandler extends BaseHandler<CallbackContext> {
+    static final String DESCRIBE_LOG_GROUPS = "logs:describeLogsGroup";
+    static final String LIST_TAGS = "logs:ListTagsLogGroup";
+
+    private final LogGroupCache cache;
+    private final Hedge hedge;
+
+    public ReadHandler() {
+        this(LogGroupCache.shared(), Hedge.shared());
+    }
+
+    ReadHandler(final LogGroupCache cache) {
+        this(cache, Hedge.shared());
+    }
+
+    ReadHandler(final LogGroupCache cache, final Hedge hedge) {
+        this.cache = cache;
+        this.hedge = hedge;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -26,14 +47,81 @@ public class ReadHandler extends BaseHandler<CallbackContext> {
         final CallbackContext context = callbackContext == null ? new CallbackContext() : callbackContext;
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext>
             initiator = proxy.newInitiator(ClientBuilder::getClient, model, context);
-        return initiator.initiate("logs:describeLogsGroup")
-            .translateToServiceRequest(m -> DescribeLogGroupsRequest.builder().logGroupNamePrefix(m.getLogGroupName()).build())
-            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::describeLogGroups))
+        final StepMetrics metrics = new StepMetrics(logger, "Read", request.getAwsAccountId());
+
+        //
+        // A log group this container described moments ago, and has not changed since, is answered
+        // without a call
+        //
+        final LogGroupCache.Key key = LogGroupCache.Key.of(
+            request.getAwsAccountId(), request.getRegion(), model.getLogGroupName());
+        final LogGroup cached = cache.get(key);
+        final ProgressEvent<ResourceModel, CallbackContext> described;
+        if (cached != null) {
+            logger.log(cache.summary());
+            described = ProgressEvent.success(Translator.translateLogGroup(cached), context);
+        } else {
+            described = describe(initiator, metrics, key, model, context, logger);
+        }
+        return described.onSuccess(event -> readTags(proxy, metrics, key, event.getResourceModel(), context));
+    }
+
+    private ProgressEvent<ResourceModel, CallbackContext> describe(
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics,
+        final LogGroupCache.Key key,
+        final ResourceModel model,
+        final CallbackContext context,
+        final Logger logger) {
+        //
+        // DescribeLogGroups is idempotent, a slow page is requested again when hedging is enabled
+        //
+        final LogGroupLookup lookup = new LogGroupLookup(model.getLogGroupName(), Integer.MAX_VALUE, hedge);
+        final long generation = cache.generation(model.getLogGroupName());
+        return metrics.step(DESCRIBE_LOG_GROUPS, () -> initiator.initiate(DESCRIBE_LOG_GROUPS)
+            .translateToServiceRequest(Translator::translateToReadRequest)
+            .makeServiceCall(lookup::describe)
             .done(describeLogGroupsResponse -> {
+                logger.log(lookup.summary());
+                if (hedge.isEnabled()) {
+                    logger.log(hedge.summary());
+                }
                 if (describeLogGroupsResponse.logGroups().isEmpty()) {
                     throw new ResourceNotFoundException(ResourceModel.TYPE_NAME, model.getPrimaryIdentifier().toString());
                 }
-                return ProgressEvent.success(Translator.translateForRead(describeLogGroupsResponse), context);
-            });
+                cache.put(key, describeLogGroupsResponse.logGroups().get(0), generation);
+                return ProgressEvent.success(
+                    Translator.translateForRead(describeLogGroupsResponse, model.getLogGroupName()), context);
+            }));
+    }
+
+    //
+    // DescribeLogGroups has no tags, without them drift detection would report every tag as removed.
+    // Newer SDKs deprecate ListTagsLogGroup for ListTagsForResource, see Util.updateTags.
+    //
+    @SuppressWarnings("deprecation")
+    private ProgressEvent<ResourceModel, CallbackContext> readTags(
+        final AmazonWebServicesClientProxy proxy,
+        final StepMetrics metrics,
+        final LogGroupCache.Key key,
+        final ResourceModel model,
+        final CallbackContext context) {
+        final Map<String, String> cached = cache.tags(key);
+        if (cached != null) {
+            model.setTags(Translator.translateTagsToModel(cached));
+            return ProgressEvent.success(model, context);
+        }
+        final long generation = cache.generation(model.getLogGroupName());
+        return metrics.step(LIST_TAGS, () -> proxy.newInitiator(ClientBuilder::getClient, model, context)
+            .initiate(LIST_TAGS)
+            .translateToServiceRequest(Translator::translateToListTagsRequest)
+            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::listTagsLogGroup))
+            .done(listTagsResponse -> {
+                final Map<String, String> tags =
+                    listTagsResponse.tags() == null ? Collections.emptyMap() : listTagsResponse.tags();
+                cache.putTags(key, tags, generation);
+                model.setTags(Translator.translateTagsToModel(tags));
+                return ProgressEvent.success(model, context);
+            }));
     }
 }
@@ -0,0 +1,252 @@
+package software.amazon.logs.loggroup;
+
+import lombok.Value;
+import org.json.JSONException;
+import org.json.JSONObject;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Enumerates log groups as several name prefixes read concurrently, opt-in with {@link #PROPERTY}.
+ * DescribeLogGroups can only be resumed with its own token and narrowed by prefix, so a shard is a
+ * prefix, and the shards have to cover every name the account could have.
+ *
+ * An enumeration starts as the plain sequential listing, one shard for the whole account, so an
+ * account that fits on one page costs one call. Only when that first page has a next token is the
+ * rest split, where the page ended: the names still to come are those after the last one seen, L.
+ * They are covered by the prefix of L up to one character past the common prefix of the page, read
+ * again from its start and skipping what was already returned, and by every prefix that sorts after
+ * it at the same or a shallower level, e.g. for a page of /aws/lambda/ names: /aws/lambda/f,
+ * /aws/lambda/g ... /aws/lambda/z, /aws/m ... /aws/z, /b ... z. Those are not listed up front, the
+ * token only holds the next one, and they are taken in order as calls have room for them.
+ *
+ * Each call reads one page from at most {@link #DEFAULT_WORKERS} shards, the lowest prefixes first,
+ * and probes as many of the next prefixes as that leaves room for, so it never costs more calls than
+ * that. A probe that comes back empty is dropped, so the token never holds more than that many shards
+ * and stays a few hundred bytes. The shards are disjoint, no name is returned twice. Names are in
+ * order within a call but not across calls: a later call can return names of a lower shard than one
+ * already finished.
+ */
+final class ShardedListing {
+    static final String PROPERTY = "software.amazon.logs.loggroup.list.sharded";
+    static final String TOKEN_PREFIX = "sharded:";
+    static final int DEFAULT_WORKERS = 4;
+    //
+    // Every character the schema allows in a log group name, ^[.\-_/#A-Za-z0-9]+, in name order
+    //
+    static final String ALPHABET = "#-./0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
+    private static final String SHARDS = "shards";
+    private static final String NEXT = "next";
+    private static final String TOKEN = "token";
+    private static final String AFTER = "after";
+
+    private final ExecutorService workers;
+    private final int shardsPerCall;
+
+    ShardedListing(final int workers) {
+        this(Executors.newFixedThreadPool(workers, runnable -> {
+            final Thread thread = new Thread(runnable, "log-group-list-shard");
+            thread.setDaemon(true);
+            return thread;
+        }), workers);
+    }
+
+    ShardedListing(final ExecutorService workers, final int shardsPerCall) {
+        this.workers = workers;
+        this.shardsPerCall = shardsPerCall;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    static boolean isShardedToken(final String nextToken) {
+        return nextToken != null && nextToken.startsWith(TOKEN_PREFIX);
+    }
+
+    /**
+     * @param nextToken null to start a new enumeration, or the token returned by the previous call
+     * @param describe makes the DescribeLogGroups call for one shard, must be safe to call concurrently
+     */
+    DescribeLogGroupsResponse describe(final String nextToken,
+                                       final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe) {
+        final State state = decode(nextToken);
+        final TreeMap<String, Cursor> shards = state.getShards();
+        String next = state.getNext();
+        final Map<String, CompletableFuture<DescribeLogGroupsResponse>> pages = new LinkedHashMap<>();
+        for (final Map.Entry<String, Cursor> shard : shards.entrySet()) {
+            if (pages.size() == shardsPerCall) {
+                break;
+            }
+            pages.put(shard.getKey(), read(shard.getKey(), shard.getValue().getToken(), describe));
+        }
+        while (pages.size() < shardsPerCall && next != null) {
+            shards.put(next, new Cursor(null, null));
+            pages.put(next, read(next, null, describe));
+            next = successor(next);
+        }
+
+        final List<LogGroup> logGroups = new ArrayList<>();
+        for (final Map.Entry<String, CompletableFuture<DescribeLogGroupsResponse>> page : pages.entrySet()) {
+            final String prefix = page.getKey();
+            final DescribeLogGroupsResponse response = join(page.getValue());
+            final Cursor cursor = shards.remove(prefix);
+            for (final LogGroup logGroup : response.logGroups()) {
+                if (cursor.getAfter() == null || logGroup.logGroupName().compareTo(cursor.getAfter()) > 0) {
+                    logGroups.add(logGroup);
+                }
+            }
+            if (response.nextToken() == null) {
+                continue;
+            }
+            if (nextToken == null) {
+                next = split(prefix, response, shards);
+            } else {
+                shards.put(prefix, new Cursor(response.nextToken(), cursor.getAfter()));
+            }
+        }
+        logGroups.sort((a, b) -> a.logGroupName().compareTo(b.logGroupName()));
+        return DescribeLogGroupsResponse.builder()
+            .logGroups(logGroups)
+            .nextToken(encode(new State(shards, next)))
+            .build();
+    }
+
+    //
+    // The service rejects an empty prefix, the shard of the whole account is read without one
+    //
+    private CompletableFuture<DescribeLogGroupsResponse> read(
+        final String prefix,
+        final String token,
+        final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe) {
+        final DescribeLogGroupsRequest request =
+            Translator.translateToListRequest(token, prefix.isEmpty() ? null : prefix);
+        return CompletableFuture.supplyAsync(() -> describe.apply(request), workers);
+    }
+
+    /**
+     * Replaces the rest of the first page's shard by the prefix the page ended in, see above
+     *
+     * @return the first prefix after it, null when there is none
+     */
+    static String split(final String prefix, final DescribeLogGroupsResponse page, final Map<String, Cursor> shards) {
+        final List<LogGroup> logGroups = page.logGroups();
+        final String last = logGroups.get(logGroups.size() - 1).logGroupName();
+        String common = last;
+        for (final LogGroup logGroup : logGroups) {
+            common = common.substring(0, commonLength(common, logGroup.logGroupName()));
+        }
+        final int depth = Math.min(common.length() + 1, last.length());
+        if (depth <= prefix.length()) {
+            shards.put(prefix, new Cursor(page.nextToken(), null));
+            return null;
+        }
+        final String shard = last.substring(0, depth);
+        shards.put(shard, new Cursor(null, last));
+        return successor(shard);
+    }
+
+    /**
+     * @return the prefix that covers the names right after every name starting with this one, e.g.
+     *         /aws/lambda/g after /aws/lambda/f, /aws/m after /aws/lambda/z, null after z, zz and so on
+     */
+    static String successor(final String prefix) {
+        for (int end = prefix.length(); end > 0; end--) {
+            final int next = ALPHABET.indexOf(prefix.charAt(end - 1)) + 1;
+            if (next > 0 && next < ALPHABET.length()) {
+                return prefix.substring(0, end - 1) + ALPHABET.charAt(next);
+            }
+        }
+        return null;
+    }
+
+    private static int commonLength(final String a, final String b) {
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    static State decode(final String nextToken) {
+        final TreeMap<String, Cursor> shards = new TreeMap<>();
+        if (nextToken == null) {
+            shards.put("", new Cursor(null, null));
+            return new State(shards, null);
+        }
+        if (!isShardedToken(nextToken)) {
+            throw new CfnInvalidRequestException("Invalid sharded list token " + nextToken);
+        }
+        try {
+            final JSONObject json = new JSONObject(new String(
+                Base64.getUrlDecoder().decode(nextToken.substring(TOKEN_PREFIX.length())), StandardCharsets.UTF_8));
+            final JSONObject cursors = json.getJSONObject(SHARDS);
+            for (final String prefix : cursors.keySet()) {
+                final JSONObject cursor = cursors.getJSONObject(prefix);
+                shards.put(prefix, new Cursor(cursor.optString(TOKEN, null), cursor.optString(AFTER, null)));
+            }
+            return new State(shards, json.optString(NEXT, null));
+        } catch (IllegalArgumentException | JSONException e) {
+            throw new CfnInvalidRequestException("Invalid sharded list token " + nextToken, e);
+        }
+    }
+
+    static String encode(final State state) {
+        if (state.getShards().isEmpty() && state.getNext() == null) {
+            return null;
+        }
+        final JSONObject cursors = new JSONObject();
+        state.getShards().forEach((prefix, cursor) -> cursors.put(prefix, new JSONObject()
+            .putOpt(TOKEN, cursor.getToken())
+            .putOpt(AFTER, cursor.getAfter())));
+        final JSONObject json = new JSONObject().put(SHARDS, cursors).putOpt(NEXT, state.getNext());
+        return TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(
+            json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DescribeLogGroupsResponse join(final CompletableFuture<DescribeLogGroupsResponse> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    //
+    // Where a shard resumes, its service token, null before its first page, and the last name
+    // already returned for it, if its first page overlaps a page read before the split
+    //
+    @Value
+    static class Cursor {
+        String token;
+        String after;
+    }
+
+    //
+    // The shards being read, and the next prefix to probe once there is room, null when none is left
+    //
+    @Value
+    static class State {
+        TreeMap<String, Cursor> shards;
+        String next;
+    }
+}
@@ -0,0 +1,348 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import software.amazon.awssdk.awscore.AwsExecutionAttribute;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.HttpStatusCode;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.cloudformation.exceptions.BaseHandlerException;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wall time, attempts, throttles and outcome of every call chain a handler runs, logged through the
+ * handler's Logger as one CloudWatch embedded metric format document per chain. CloudWatch turns
+ * those log events into metrics with the Action and CallChain dimensions, no agent needed.
+ *
+ * Attempts and throttles are counted per HTTP request, SDK retries and stabilization probes
+ * included, by {@link Interceptor} on the synchronous and the async client. It finds the step to
+ * count against on the thread that makes the call. On the synchronous client it also paces every
+ * request through the {@link RateLimiter} of the step's account, the time spent waiting for a token
+ * is the QueueWait metric. Requests on the async client have taken their token before they are
+ * sent, see {@link Interceptor#asyncKey}.
+ *
+ * Chains that classify their errors, like {@link KmsRetryPolicy}, report the time spent on each
+ * classification with {@link #classified}. Those are logged as one more document per
+ * classification, with a Classification dimension.
+ */
+final class StepMetrics {
+    static final String NAMESPACE = "CloudFormation/AWS::Logs::LogGroup";
+
+    private static final ThreadLocal<Step> CURRENT = new ThreadLocal<>();
+
+    private final Logger logger;
+    private final String action;
+    private final String account;
+
+    StepMetrics(final Logger logger, final String action) {
+        this(logger, action, null);
+    }
+
+    StepMetrics(final Logger logger, final String action, final String account) {
+        this.logger = logger;
+        this.action = action;
+        this.account = account == null ? "" : account;
+    }
+
+    ProgressEvent<ResourceModel, CallbackContext> step(
+        final String callChain, final Supplier<ProgressEvent<ResourceModel, CallbackContext>> chain) {
+
+        final Step step = new Step(account, logger);
+        final Step enclosing = CURRENT.get();
+        CURRENT.set(step);
+        final long start = System.nanoTime();
+        String outcome = null;
+        try {
+            final ProgressEvent<ResourceModel, CallbackContext> event = chain.get();
+            outcome = event.isFailed() ? String.valueOf(event.getErrorCode()) : event.getStatus().name();
+            return event;
+        } catch (BaseHandlerException e) {
+            outcome = e.getErrorCode().name();
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (enclosing == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(enclosing);
+            }
+            logger.log(document(callChain, outcome, millis, step).toString());
+            step.classifications.forEach((classification, totals) ->
+                logger.log(document(callChain, classification, totals).toString()));
+        }
+    }
+
+    /**
+     * @return the work, made to count against the step running on the calling thread, if any, from
+     * whichever thread it ends up running on
+     */
+    static <T> Supplier<T> propagate(final Supplier<T> work) {
+        final Step step = CURRENT.get();
+        if (step == null) {
+            return work;
+        }
+        return () -> {
+            final Step enclosing = CURRENT.get();
+            CURRENT.set(step);
+            try {
+                return work.get();
+            } finally {
+                if (enclosing == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(enclosing);
+                }
+            }
+        };
+    }
+
+    /**
+     * Logs through the logger of the step running on the calling thread, if any
+     */
+    static void log(final String message) {
+        final Step step = CURRENT.get();
+        if (step != null) {
+            step.logger.log(message);
+        }
+    }
+
+    /**
+     * Adds time, and errors if any, to a classification of the step running on the calling thread
+     */
+    static void classified(final String classification, final long nanos, final int errors) {
+        final Step step = CURRENT.get();
+        if (step != null) {
+            final long[] totals = step.classifications.computeIfAbsent(classification, ignored -> new long[2]);
+            totals[0] += nanos;
+            totals[1] += errors;
+        }
+    }
+
+    private JSONObject document(final String callChain, final String outcome, final long millis, final Step step) {
+        final boolean failed = !(OperationStatus.SUCCESS.name().equals(outcome)
+            || OperationStatus.IN_PROGRESS.name().equals(outcome));
+        final JSONObject directive = new JSONObject()
+            .put("Namespace", NAMESPACE)
+            .put("Dimensions", new JSONArray().put(new JSONArray().put("Action").put("CallChain")))
+            .put("Metrics", new JSONArray()
+                .put(metric("Time", "Milliseconds"))
+                .put(metric("Attempts", "Count"))
+                .put(metric("Throttles", "Count"))
+                .put(metric("QueueWait", "Milliseconds"))
+                .put(metric("Failures", "Count")));
+        return new JSONObject()
+            .put("_aws", new JSONObject()
+                .put("Timestamp", System.currentTimeMillis())
+                .put("CloudWatchMetrics", new JSONArray().put(directive)))
+            .put("Action", action)
+            .put("CallChain", callChain)
+            .put("Outcome", outcome)
+            .put("Time", millis)
+            .put("Attempts", step.attempts)
+            .put("Throttles", step.throttles)
+            .put("QueueWait", TimeUnit.NANOSECONDS.toMillis(step.queueWait))
+            .put("Failures", failed ? 1 : 0);
+    }
+
+    private JSONObject document(final String callChain, final String classification, final long[] totals) {
+        final JSONObject directive = new JSONObject()
+            .put("Namespace", NAMESPACE)
+            .put("Dimensions", new JSONArray().put(new JSONArray()
+                .put("Action").put("CallChain").put("Classification")))
+            .put("Metrics", new JSONArray()
+                .put(metric("ClassifiedTime", "Milliseconds"))
+                .put(metric("ClassifiedErrors", "Count")));
+        return new JSONObject()
+            .put("_aws", new JSONObject()
+                .put("Timestamp", System.currentTimeMillis())
+                .put("CloudWatchMetrics", new JSONArray().put(directive)))
+            .put("Action", action)
+            .put("CallChain", callChain)
+            .put("Classification", classification)
+            .put("ClassifiedTime", TimeUnit.NANOSECONDS.toMillis(totals[0]))
+            .put("ClassifiedErrors", totals[1]);
+    }
+
+    private static JSONObject metric(final String name, final String unit) {
+        return new JSONObject().put("Name", name).put("Unit", unit);
+    }
+
+    private static final class Step {
+        private final String account;
+        private final Logger logger;
+        private int attempts;
+        private int throttles;
+        private long queueWait;
+        //
+        // Nanoseconds and errors per classification
+        //
+        private final Map<String, long[]> classifications = new LinkedHashMap<>();
+
+        private Step(final String account, final Logger logger) {
+            this.account = account;
+            this.logger = logger;
+        }
+    }
+
+    /**
+     * Paces HTTP requests through the rate limiter, and counts them and their throttled responses
+     * against the step that made the call, if any. The step is taken when the call is made, on the
+     * calling thread, so requests the async client sends and retries on its own threads count too.
+     * Those threads are Netty's and the SDK's, so for the async client the interceptor only adapts
+     * the rate, it never waits for a token. Its buckets are not per region, the caller that takes
+     * the token does not know the client's region.
+     *
+     * A response is throttled when its status is 429 or its x-amzn-ErrorType header names a
+     * throttling error, without reading the body. A call that fails throttled without either, the
+     * SDK having found the code in the body, is counted once more when it fails.
+     */
+    static final class Interceptor implements ExecutionInterceptor {
+        static final String ERROR_TYPE_HEADER = "x-amzn-ErrorType";
+        //
+        // The throttling codes of the AWS JSON services; LimitExceededException is a resource
+        // quota in CloudWatch Logs, not a rate
+        //
+        static final Set<String> THROTTLING_CODES = new HashSet<>(Arrays.asList(
+            "Throttling", "ThrottlingException", "ThrottledException", "RequestThrottledException",
+            "TooManyRequestsException", "RequestLimitExceeded"));
+
+        private static final ExecutionAttribute<Step> STEP = new ExecutionAttribute<>("StepMetricsStep");
+        private static final ExecutionAttribute<Boolean> THROTTLED = new ExecutionAttribute<>("StepMetricsThrottled");
+
+        private final RateLimiter limiter;
+        private final boolean blocking;
+
+        Interceptor(final RateLimiter limiter) {
+            this(limiter, true);
+        }
+
+        /**
+         * @param blocking false for the async client, whose requests take their tokens before they are sent
+         */
+        Interceptor(final RateLimiter limiter, final boolean blocking) {
+            this.limiter = limiter;
+            this.blocking = blocking;
+        }
+
+        /**
+         * Key of the bucket a request on the async client takes its token from, before it is sent,
+         * for the step running on the calling thread if any
+         */
+        static RateLimiter.Key asyncKey(final SdkRequest request) {
+            final Step step = CURRENT.get();
+            return new RateLimiter.Key(step == null ? "" : step.account, "", RateLimiter.operation(request));
+        }
+
+        @Override
+        public void beforeExecution(final Context.BeforeExecution context,
+                                    final ExecutionAttributes executionAttributes) {
+            final Step step = CURRENT.get();
+            if (step != null) {
+                executionAttributes.putAttribute(STEP, step);
+            }
+        }
+
+        @Override
+        public void beforeTransmission(final Context.BeforeTransmission context,
+                                       final ExecutionAttributes executionAttributes) {
+            final Step step = executionAttributes.getAttribute(STEP);
+            final long wait = blocking ? limiter.acquire(key(step, executionAttributes)) : 0;
+            executionAttributes.putAttribute(THROTTLED, false);
+            if (step != null) {
+                //
+                // A step's requests can run on more than one thread, see propagate
+                //
+                synchronized (step) {
+                    step.attempts++;
+                    step.queueWait += wait;
+                }
+            }
+        }
+
+        @Override
+        public void afterTransmission(final Context.AfterTransmission context,
+                                      final ExecutionAttributes executionAttributes) {
+            final SdkHttpResponse response = context.httpResponse();
+            if (response.isSuccessful()) {
+                limiter.succeeded(key(executionAttributes.getAttribute(STEP), executionAttributes));
+            } else if (isThrottled(response)) {
+                executionAttributes.putAttribute(THROTTLED, true);
+                throttled(executionAttributes);
+            }
+        }
+
+        @Override
+        public void onExecutionFailure(final Context.FailedExecution context,
+                                       final ExecutionAttributes executionAttributes) {
+            final Throwable e = context.exception();
+            if (e instanceof SdkServiceException && ((SdkServiceException) e).isThrottlingException()
+                && !Boolean.TRUE.equals(executionAttributes.getAttribute(THROTTLED))) {
+                throttled(executionAttributes);
+            }
+        }
+
+        /**
+         * Logs through the logger of the step that made the call, for interceptors registered after
+         * this one, whose callbacks for the async client run on the SDK's threads
+         */
+        static void log(final ExecutionAttributes executionAttributes, final String message) {
+            final Step step = executionAttributes.getAttribute(STEP);
+            if (step == null) {
+                StepMetrics.log(message);
+            } else {
+                step.logger.log(message);
+            }
+        }
+
+        static boolean isThrottled(final SdkHttpResponse response) {
+            if (response.statusCode() == HttpStatusCode.THROTTLING) {
+                return true;
+            }
+            //
+            // e.g. ThrottlingException:http://internal.amazon.com/coral/com.amazon.coral.availability/
+            //
+            return response.firstMatchingHeader(ERROR_TYPE_HEADER)
+                .map(type -> type.split(":", 2)[0])
+                .map(type -> type.substring(type.lastIndexOf('#') + 1))
+                .filter(THROTTLING_CODES::contains)
+                .isPresent();
+        }
+
+        private void throttled(final ExecutionAttributes executionAttributes) {
+            final Step step = executionAttributes.getAttribute(STEP);
+            limiter.throttled(key(step, executionAttributes));
+            if (step != null) {
+                synchronized (step) {
+                    step.throttles++;
+                }
+            }
+        }
+
+        private RateLimiter.Key key(final Step step, final ExecutionAttributes executionAttributes) {
+            final Region region = executionAttributes.getAttribute(AwsExecutionAttribute.AWS_REGION);
+            return new RateLimiter.Key(step == null ? "" : step.account,
+                region == null || !blocking ? "" : region.id(),
+                executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME));
+        }
+    }
+}
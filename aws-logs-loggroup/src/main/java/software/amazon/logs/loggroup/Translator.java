@@ -1,19 +1,23 @@
 package software.amazon.logs.loggroup;
 
+import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DeleteLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DeleteRetentionPolicyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.TagLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.UntagLogGroupRequest;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.TreeMap;
 
 final class Translator {
     private Translator() {}
@@ -21,12 +25,18 @@ final class Translator {
     static DescribeLogGroupsRequest translateToReadRequest(final ResourceModel model) {
         return DescribeLogGroupsRequest.builder()
                 .logGroupNamePrefix(model.getLogGroupName())
+                .limit(LogGroupLookup.MAX_PAGE_SIZE)
                 .build();
     }
 
     static DescribeLogGroupsRequest translateToListRequest(final String nextToken) {
+        return translateToListRequest(nextToken, null);
+    }
+
+    static DescribeLogGroupsRequest translateToListRequest(final String nextToken, final String logGroupNamePrefix) {
         return DescribeLogGroupsRequest.builder()
                 .limit(50)
+                .logGroupNamePrefix(logGroupNamePrefix)
                 .nextToken(nextToken)
                 .build();
     }
@@ -37,10 +47,62 @@ final class Translator {
                 .build();
     }
 
+    //
+    // Tags go out with the create itself, a new log group needs no separate TagLogGroup call
+    //
     static CreateLogGroupRequest translateToCreateRequest(final ResourceModel model) {
-        return CreateLogGroupRequest.builder()
-                .logGroupName(model.getLogGroupName())
-                .build();
+        final CreateLogGroupRequest.Builder builder = CreateLogGroupRequest.builder()
+                .logGroupName(model.getLogGroupName());
+        final Map<String, String> tags = translateTags(model.getTags());
+        if (!tags.isEmpty()) {
+            builder.tags(tags);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the tags as a map of key to value, empty for none. A key given twice keeps its last value.
+     */
+    static Map<String, String> translateTags(final List<Tag> tags) {
+        final Map<String, String> map = new LinkedHashMap<>();
+        if (tags != null) {
+            for (final Tag tag : tags) {
+                map.put(tag.getKey(), tag.getValue());
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return the tags sorted by key, or null for none, the way a template without Tags reads
+     */
+    static List<Tag> translateTagsToModel(final Map<String, String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return null;
+        }
+        final List<Tag> modelTags = new ArrayList<>(tags.size());
+        new TreeMap<>(tags).forEach((key, value) -> modelTags.add(Tag.builder().key(key).value(value).build()));
+        return modelTags;
+    }
+
+    static ListTagsLogGroupRequest translateToListTagsRequest(final ResourceModel model) {
+        return ListTagsLogGroupRequest.builder()
+            .logGroupName(model.getLogGroupName())
+            .build();
+    }
+
+    static TagLogGroupRequest translateToTagRequest(final String logGroupName, final Map<String, String> tags) {
+        return TagLogGroupRequest.builder()
+            .logGroupName(logGroupName)
+            .tags(tags)
+            .build();
+    }
+
+    static UntagLogGroupRequest translateToUntagRequest(final String logGroupName, final Collection<String> keys) {
+        return UntagLogGroupRequest.builder()
+            .logGroupName(logGroupName)
+            .tags(keys)
+            .build();
     }
 
     static PutRetentionPolicyRequest translateToPutRetentionPolicyRequest(final ResourceModel model) {
@@ -50,6 +112,13 @@ final class Translator {
                 .build();
     }
 
+    static AssociateKmsKeyRequest translateToAssociateKmsKeyRequest(final ResourceModel model) {
+        return AssociateKmsKeyRequest.builder()
+            .logGroupName(model.getLogGroupName())
+            .kmsKeyId(model.getKmsKeyArn())
+            .build();
+    }
+
     static DeleteRetentionPolicyRequest translateToDeleteRetentionPolicyRequest(final ResourceModel model) {
         return DeleteRetentionPolicyRequest.builder()
             .logGroupName(model.getLogGroupName())
@@ -57,47 +126,44 @@ final class Translator {
     }
 
     static ResourceModel translateForRead(final DescribeLogGroupsResponse response) {
-        final String logGroupName = streamOfOrEmpty(response.logGroups())
-                .map(software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup::logGroupName)
-                .filter(Objects::nonNull)
-                .findAny()
-                .orElse(null);
-        final String logGroupArn = streamOfOrEmpty(response.logGroups())
-            .map(software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup::arn)
-            .filter(Objects::nonNull)
-            .findAny()
-            .orElse(null);
-        final Integer retentionInDays = streamOfOrEmpty(response.logGroups())
-                .map(software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup::retentionInDays)
-                .filter(Objects::nonNull)
-                .findAny()
-                .orElse(null);
-        final String kmsKeyId = streamOfOrEmpty(response.logGroups())
-            .map(LogGroup::kmsKeyId)
-            .filter(Objects::nonNull)
-            .findFirst().orElse(null);
-        return ResourceModel.builder()
-                .arn(logGroupArn)
-                .logGroupName(logGroupName)
-                .retentionInDays(retentionInDays)
-                .kmsKeyArn(kmsKeyId)
-                .build();
+        return translateForRead(response, null);
+    }
+
+    /**
+     * Maps the log group named logGroupName, or the first one in the response when no name is
+     * given, in a single pass. All attributes come from that one log group.
+     */
+    static ResourceModel translateForRead(final DescribeLogGroupsResponse response, final String logGroupName) {
+        final List<LogGroup> logGroups = response.logGroups();
+        if (logGroups != null) {
+            for (final LogGroup logGroup : logGroups) {
+                if (logGroupName == null || logGroupName.equals(logGroup.logGroupName())) {
+                    return translateLogGroup(logGroup);
+                }
+            }
+        }
+        return ResourceModel.builder().build();
     }
 
     static List<ResourceModel> translateForList(final DescribeLogGroupsResponse response) {
-        return streamOfOrEmpty(response.logGroups())
-                .map(logGroup -> ResourceModel.builder()
-                        .arn(logGroup.arn())
-                        .logGroupName(logGroup.logGroupName())
-                        .retentionInDays(logGroup.retentionInDays())
-                        .build())
-                .collect(Collectors.toList());
-    }
-
-    private static <T> Stream<T> streamOfOrEmpty(final Collection<T> collection) {
-        return Optional.ofNullable(collection)
-                .map(Collection::stream)
-                .orElseGet(Stream::empty);
+        final List<LogGroup> logGroups = response.logGroups();
+        if (logGroups == null || logGroups.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        final List<ResourceModel> models = new ArrayList<>(logGroups.size());
+        for (final LogGroup logGroup : logGroups) {
+            models.add(translateLogGroup(logGroup));
+        }
+        return models;
+    }
+
+    static ResourceModel translateLogGroup(final LogGroup logGroup) {
+        return ResourceModel.builder()
+                .arn(logGroup.arn())
+                .logGroupName(logGroup.logGroupName())
+                .retentionInDays(logGroup.retentionInDays())
+                .kmsKeyArn(logGroup.kmsKeyId())
+                .build();
     }
 
     static String buildResourceAlreadyExistsErrorMessage(final String resourceIdentifier) {
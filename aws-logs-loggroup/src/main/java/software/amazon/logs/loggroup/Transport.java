@@ -0,0 +1,135 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.cloudformation.LambdaWrapper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The HTTP client the CloudWatch Logs clients run on, chosen with {@link #PROPERTY}. Inside Lambda the
+ * default, the wrapper's shared client, is the right one: a handful of calls per invocation on a client
+ * that is already warm. Handlers driven in bulk outside Lambda spend most of their time on connection
+ * setup and TLS handshakes unless connections are pooled and kept alive, which the tuned transports do.
+ *
+ * ClientBuilder keeps one HTTP client per transport for the whole JVM, shared by the CloudWatch Logs
+ * clients of every region and endpoint, and metered by {@link TransportMetrics}.
+ *
+ * Only the Apache client ships in the handler jar. URL_CONNECTION and NETTY need the optional
+ * url-connection-client and netty-nio-client on the class path, as they are when run from Maven.
+ */
+enum Transport {
+    //
+    // LambdaWrapper.HTTP_CLIENT, Apache with the SDK defaults
+    //
+    LAMBDA,
+    //
+    // The JDK's HttpURLConnection, the smallest and quickest to start. Keep-alive is the JDK's, up to
+    // http.maxConnections (5 by default) idle connections per host.
+    //
+    URL_CONNECTION,
+    //
+    // Apache with a pool sized for concurrent handlers, idle connections kept for reuse and no
+    // Expect: 100-continue round trip before each request body
+    //
+    APACHE,
+    //
+    // Netty, for the async client, the only non-blocking transport
+    //
+    NETTY;
+
+    static final String PROPERTY = "software.amazon.logs.loggroup.transport";
+    static final int MAX_CONNECTIONS = 64;
+    static final Duration MAX_IDLE_TIME = Duration.ofSeconds(60);
+    static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+    static final int MAX_PENDING_ACQUIRES = 10_000;
+
+    /**
+     * @return the transport named by {@link #PROPERTY}, e.g. apache or url-connection, LAMBDA when unset
+     * @throws IllegalArgumentException for an unknown name or one without a blocking client
+     */
+    static Transport configured() {
+        final String name = System.getProperty(PROPERTY);
+        if (name == null || name.trim().isEmpty()) {
+            return LAMBDA;
+        }
+        final String normalized = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        for (final Transport transport : values()) {
+            if (transport.isBlocking() && transport.name().equals(normalized)) {
+                return transport;
+            }
+        }
+        throw new IllegalArgumentException(String.format("%s=%s is not one of %s", PROPERTY, name,
+            Arrays.stream(values()).filter(Transport::isBlocking)
+                .map(transport -> transport.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                .collect(Collectors.joining(", "))));
+    }
+
+    /**
+     * @return whether the transport has a blocking client, every one but NETTY
+     */
+    boolean isBlocking() {
+        return this != NETTY;
+    }
+
+    /**
+     * @throws IllegalArgumentException for NETTY, callers check {@link #isBlocking} before they build a client
+     */
+    TransportMetrics.Sync newSyncClient() {
+        if (!isBlocking()) {
+            throw new IllegalArgumentException(this + " has no blocking client");
+        }
+        return new TransportMetrics.Sync(newHttpClient(), new TransportMetrics(name(), maxConnections()));
+    }
+
+    /**
+     * @return the non-blocking client, always on Netty whichever transport the blocking clients are on
+     */
+    static TransportMetrics.Async newAsyncClient() {
+        return new TransportMetrics.Async(NettyNioAsyncHttpClient.builder()
+            .maxConcurrency(MAX_CONNECTIONS)
+            .maxPendingConnectionAcquires(MAX_PENDING_ACQUIRES)
+            .connectionMaxIdleTime(MAX_IDLE_TIME)
+            .useIdleConnectionReaper(true)
+            .build(), new TransportMetrics(NETTY.name(), MAX_CONNECTIONS));
+    }
+
+    //
+    // LAMBDA, NETTY never gets here, see newSyncClient
+    //
+    private SdkHttpClient newHttpClient() {
+        switch (this) {
+            case URL_CONNECTION:
+                return UrlConnectionHttpClient.builder().build();
+            case APACHE:
+                return ApacheHttpClient.builder()
+                    .maxConnections(MAX_CONNECTIONS)
+                    .connectionMaxIdleTime(MAX_IDLE_TIME)
+                    .connectionTimeToLive(TIME_TO_LIVE)
+                    .useIdleConnectionReaper(true)
+                    .expectContinueEnabled(false)
+                    .build();
+            default:
+                return LambdaWrapper.HTTP_CLIENT;
+        }
+    }
+
+    //
+    // The SDK's Apache default pool is 50 connections, HttpURLConnection has no fixed limit
+    //
+    private int maxConnections() {
+        switch (this) {
+            case URL_CONNECTION:
+                return 0;
+            case APACHE:
+                return MAX_CONNECTIONS;
+            default:
+                return 50;
+        }
+    }
+}
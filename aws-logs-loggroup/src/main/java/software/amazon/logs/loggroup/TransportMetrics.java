@@ -0,0 +1,160 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts and pool pressure of one {@link Transport}. The HTTP clients of this SDK version
+ * don't report on their pools, so the transport's client is wrapped and every request is counted
+ * while it is in flight. For the blocking clients that is while it holds a connection, and a peak
+ * at the pool size means requests queued for one. The async client counts a request from the time
+ * it is handed over, so a peak above the pool size is the number waiting for a connection.
+ */
+final class TransportMetrics {
+    private final String transport;
+    private final int maxConnections;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * @param maxConnections size of the pool, 0 for a transport without a fixed one
+     */
+    TransportMetrics(final String transport, final int maxConnections) {
+        this.transport = transport;
+        this.maxConnections = maxConnections;
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return one line with the requests made, connections in use against the pool size and mean time per request
+     */
+    String summary() {
+        final long count = requests();
+        return String.format("Transport %s: %d request(s), %d failed, %d in flight, peak %d of %s connection(s), "
+                + "mean %.1f ms", transport, count, failures(), inFlight(), peakInFlight(),
+            maxConnections == 0 ? "unbounded" : String.valueOf(maxConnections),
+            count == 0 ? 0.0 : (double) TimeUnit.NANOSECONDS.toMicros(nanos.sum()) / count / 1000);
+    }
+
+    private long begin() {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return System.nanoTime();
+    }
+
+    private void end(final long start, final boolean succeeded) {
+        inFlight.decrementAndGet();
+        requests.increment();
+        nanos.add(System.nanoTime() - start);
+        if (!succeeded) {
+            failures.increment();
+        }
+    }
+
+    static final class Sync implements SdkHttpClient {
+        private final SdkHttpClient delegate;
+        private final TransportMetrics metrics;
+
+        Sync(final SdkHttpClient delegate, final TransportMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        TransportMetrics getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public ExecutableHttpRequest prepareRequest(final HttpExecuteRequest request) {
+            final ExecutableHttpRequest prepared = delegate.prepareRequest(request);
+            return new ExecutableHttpRequest() {
+                @Override
+                public HttpExecuteResponse call() throws IOException {
+                    final long start = metrics.begin();
+                    boolean succeeded = false;
+                    try {
+                        final HttpExecuteResponse response = prepared.call();
+                        succeeded = true;
+                        return response;
+                    } finally {
+                        metrics.end(start, succeeded);
+                    }
+                }
+
+                @Override
+                public void abort() {
+                    prepared.abort();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    static final class Async implements SdkAsyncHttpClient {
+        private final SdkAsyncHttpClient delegate;
+        private final TransportMetrics metrics;
+
+        Async(final SdkAsyncHttpClient delegate, final TransportMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        TransportMetrics getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public CompletableFuture<Void> execute(final AsyncExecuteRequest request) {
+            final long start = metrics.begin();
+            final CompletableFuture<Void> response;
+            try {
+                response = delegate.execute(request);
+            } catch (RuntimeException e) {
+                metrics.end(start, false);
+                throw e;
+            }
+            response.whenComplete((ignored, failure) -> metrics.end(start, failure == null));
+            return response;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
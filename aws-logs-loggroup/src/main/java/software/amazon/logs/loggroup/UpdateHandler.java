@@ -6,6 +6,9 @@ import software.amazon.cloudformation.proxy.CallChain;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.util.Set;
+
 import static software.amazon.logs.loggroup.Util.*;
 
 public class UpdateHandler extends BaseHandler<CallbackContext> {
@@ -18,46 +21,59 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         final Logger logger) {
 
         final ResourceModel current = request.getPreviousResourceState();
-        final ResourceModel desired = request.getDesiredResourceState();
+        final ResourceModel desired = ModelValidator.validate(request.getDesiredResourceState());
         final CallbackContext context = callbackContext == null ? new CallbackContext() : callbackContext;
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext>
             initiator = proxy.newInitiator(ClientBuilder::getClient, desired, context);
+        final StepMetrics metrics = new StepMetrics(logger, "Update", request.getAwsAccountId());
+
+        //
+        // Only call the APIs for properties that changed, an update that leaves retention, KMS key and
+        // tags untouched makes no mutating calls at all. The Read at the end still confirms the log group exists.
+        //
+        final Set<UpdatePlanner.Call> plan = UpdatePlanner.plan(desired, current);
+        logger.log(UpdatePlanner.summary(desired, plan));
 
         return
-            handleRetentionChange(desired, current, initiator)
-            .then(evt -> handleKMSKeyChange(desired, current, initiator, evt))
+            handleRetentionChange(plan, initiator, metrics)
+            .then(evt -> handleKMSKeyChange(plan, initiator, metrics, evt))
+            .then(evt -> plan.contains(UpdatePlanner.Call.UPDATE_TAGS) ? updateTags(initiator, metrics) : evt)
             .then(evt -> new ReadHandler().handleRequest(proxy, request, evt.getCallbackContext(), logger));
     }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRetentionChange(
-        final ResourceModel desired,
-        final ResourceModel current,
-        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator) {
+        final Set<UpdatePlanner.Call> plan,
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics) {
 
-        if (desired.getRetentionInDays() == null && current.getRetentionInDays() != null) {
-            return deleteRetentionPolicy(initiator);
+        final ProgressEvent<ResourceModel, CallbackContext> progress =
+            ProgressEvent.progress(initiator.getResourceModel(), initiator.getCallbackContext());
+        if (plan.contains(UpdatePlanner.Call.DELETE_RETENTION_POLICY)) {
+            return deleteRetentionPolicy(initiator, metrics);
+        }
+        if (plan.contains(UpdatePlanner.Call.PUT_RETENTION_POLICY)) {
+            return updateRetentionInDays(initiator, metrics, progress);
         }
-        return updateRetentionInDays(initiator,
-            ProgressEvent.progress(initiator.getResourceModel(), initiator.getCallbackContext()));
+        return progress;
     }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleKMSKeyChange(
-        final ResourceModel desired,
-        final ResourceModel current,
+        final Set<UpdatePlanner.Call> plan,
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics,
         final ProgressEvent<ResourceModel, CallbackContext> chainedEvent) {
 
         //
         // Handle KMS key changes
         //
-        if (desired.getKmsKeyArn() == null && current.getKmsKeyArn() != null) {
-            return disassociateKMSKey(initiator);
+        if (plan.contains(UpdatePlanner.Call.DISASSOCIATE_KMS_KEY)) {
+            return disassociateKMSKey(initiator, metrics);
         }
-        else if (desired.getKmsKeyArn() != null && !desired.getKmsKeyArn().equals(current.getKmsKeyArn())) {
+        else if (plan.contains(UpdatePlanner.Call.ASSOCIATE_KMS_KEY)) {
             //
             // Change KMS keys association
             //
-            return associateKMSKey(initiator, chainedEvent);
+            return associateKMSKey(initiator, metrics, chainedEvent);
         }
         //
         // No change, return chained Event
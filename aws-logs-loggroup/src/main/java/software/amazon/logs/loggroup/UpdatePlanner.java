@@ -0,0 +1,103 @@
+package software.amazon.logs.loggroup;
+
+import lombok.Value;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Works out which mutating calls an update needs by comparing the desired model against the
+ * previous one, so that updates which leave a log group's properties unchanged make none.
+ */
+final class UpdatePlanner {
+    enum Call {
+        PUT_RETENTION_POLICY,
+        DELETE_RETENTION_POLICY,
+        ASSOCIATE_KMS_KEY,
+        DISASSOCIATE_KMS_KEY,
+        UPDATE_TAGS
+    }
+
+    /**
+     * What it takes to bring a log group's tags to the desired ones, the tags to add or change with
+     * one TagLogGroup call and the keys to remove with one UntagLogGroup call
+     */
+    @Value
+    static class TagChanges {
+        Map<String, String> toAdd;
+        Set<String> toRemove;
+
+        boolean isEmpty() {
+            return toAdd.isEmpty() && toRemove.isEmpty();
+        }
+    }
+
+    private UpdatePlanner() {}
+
+    static Set<Call> plan(final ResourceModel desired, final ResourceModel previous) {
+        final ResourceModel before = previous == null ? new ResourceModel() : previous;
+        final Set<Call> calls = EnumSet.noneOf(Call.class);
+        if (desired.getRetentionInDays() == null) {
+            if (before.getRetentionInDays() != null) {
+                calls.add(Call.DELETE_RETENTION_POLICY);
+            }
+        } else if (!desired.getRetentionInDays().equals(before.getRetentionInDays())) {
+            calls.add(Call.PUT_RETENTION_POLICY);
+        }
+
+        if (desired.getKmsKeyArn() == null) {
+            if (before.getKmsKeyArn() != null) {
+                calls.add(Call.DISASSOCIATE_KMS_KEY);
+            }
+        } else if (!Objects.equals(desired.getKmsKeyArn(), before.getKmsKeyArn())) {
+            calls.add(Call.ASSOCIATE_KMS_KEY);
+        }
+
+        //
+        // No tags and an empty list are the same, and order does not matter
+        //
+        if (!Translator.translateTags(desired.getTags()).equals(Translator.translateTags(before.getTags()))) {
+            calls.add(Call.UPDATE_TAGS);
+        }
+        return calls;
+    }
+
+    /**
+     * Diffs the tags the log group has against the desired ones. Tags set outside of the template,
+     * on a log group whose tags the template changes, are removed.
+     */
+    static TagChanges tagChanges(final Map<String, String> current, final Map<String, String> desired) {
+        final Map<String, String> toAdd = new LinkedHashMap<>();
+        desired.forEach((key, value) -> {
+            if (!Objects.equals(value, current.get(key))) {
+                toAdd.put(key, value);
+            }
+        });
+        final Set<String> toRemove = new TreeSet<>(current.keySet());
+        toRemove.removeAll(desired.keySet());
+        return new TagChanges(toAdd, toRemove);
+    }
+
+    /**
+     * @return one line naming the planned calls and the calls skipped because the property they
+     *         would set already has the desired value
+     */
+    static String summary(final ResourceModel desired, final Set<Call> calls) {
+        final Set<Call> skipped = EnumSet.noneOf(Call.class);
+        if (desired.getRetentionInDays() != null && !calls.contains(Call.PUT_RETENTION_POLICY)) {
+            skipped.add(Call.PUT_RETENTION_POLICY);
+        }
+        if (desired.getKmsKeyArn() != null && !calls.contains(Call.ASSOCIATE_KMS_KEY)) {
+            skipped.add(Call.ASSOCIATE_KMS_KEY);
+        }
+        if (desired.getTags() != null && !calls.contains(Call.UPDATE_TAGS)) {
+            skipped.add(Call.UPDATE_TAGS);
+        }
+        return String.format("Update of log group %s calls %s, skipped %s as unchanged",
+            desired.getLogGroupName(), calls, skipped);
+    }
+}
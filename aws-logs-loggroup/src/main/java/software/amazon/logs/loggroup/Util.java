@@ -1,106 +1,195 @@
 package software.amazon.logs.loggroup;
 
-import software.amazon.awssdk.core.exception.RetryableException;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
-import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyRequest;
-import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
-import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DisassociateKmsKeyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.InvalidParameterException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.CallChain;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 final class Util {
+    static final String PUT_RETENTION_POLICY = "logs:PutRetentionPolicy";
+    static final String ASSOCIATE_KMS_KEY = "logs:AssociateKmsKey";
+
+    //
+    // Call chain names, also the CallChain dimension of the step metrics. The create and KMS
+    // association chains are not named with initiate, they are reported under their API
+    //
+    static final String CREATE_LOG_GROUP = "logs:CreateLogGroup";
+    static final String UPDATE_RETENTION_IN_DAYS = "logs:UpdateRetentionInDays";
+    static final String DELETE_RETENTION_POLICY = "logs:deleteRetentionPolicyRequest";
+    static final String DISASSOCIATE_KMS_KEY = "logs:disassociateKMSKey";
+    static final String UPDATE_TAGS = "logs:UpdateTags";
+
     private Util() {}
 
     static ProgressEvent<ResourceModel, CallbackContext> createLogGroup(
-        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator) {
-
-        return initiator
-            .translateToServiceRequest(model ->
-                CreateLogGroupRequest.builder()
-                    .logGroupName(model.getLogGroupName())
-                    .build())
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics) {
 
-            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::createLogGroup))
+        if (completed(initiator, CREATE_LOG_GROUP, initiator.getCallbackContext().getCreatedAt())) {
+            return ProgressEvent.progress(initiator.getResourceModel(), initiator.getCallbackContext());
+        }
+        return metrics.step(CREATE_LOG_GROUP, () -> initiator
+            .translateToServiceRequest(Translator::translateToCreateRequest)
+            .makeServiceCall((r, c) -> LogGroupCache.shared().invalidating(r.logGroupName(), () ->
+                c.injectCredentialsAndInvokeV2(r, c.client()::createLogGroup)))
             //
             // Unfortunately create response does not return the Arn. However the primary identifier
             // is the log group name, so we will delegate to ReadHandler to set it up later
             //
-            .progress();
+            .done((request, response, client, model, context) -> checkpoint(context::setCreatedAt, model, context)));
     }
 
     static ProgressEvent<ResourceModel, CallbackContext> updateRetentionInDays(
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics,
         final ProgressEvent<ResourceModel, CallbackContext> event) {
         return
-            // if nothing to set, return previous event
-            initiator.getResourceModel().getRetentionInDays() == null ? event :
+            // if nothing to set, or already set by an earlier invocation, return previous event
+            initiator.getResourceModel().getRetentionInDays() == null
+                || completed(initiator, UPDATE_RETENTION_IN_DAYS,
+                    initiator.getCallbackContext().getRetentionAppliedAt())
+                ? event :
                 //
                 // Else make the call to update retention in days
                 //
-                initiator.initiate("logs:UpdateRetentionInDays")
+                metrics.step(UPDATE_RETENTION_IN_DAYS, () -> initiator.initiate(UPDATE_RETENTION_IN_DAYS)
                     .translateToServiceRequest(Translator::translateToPutRetentionPolicyRequest)
-                    .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::putRetentionPolicy))
-                    .progress();
+                    .makeServiceCall((r, c) -> LogGroupCache.shared().invalidating(r.logGroupName(), () ->
+                        c.injectCredentialsAndInvokeV2(r, c.client()::putRetentionPolicy)))
+                    .done((request, response, client, model, context) ->
+                        checkpoint(context::setRetentionAppliedAt, model, context)));
     }
 
     static ProgressEvent<ResourceModel, CallbackContext> deleteRetentionPolicy(
-        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator) {
-        return initiator.initiate("logs:deleteRetentionPolicyRequest")
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics) {
+        if (completed(initiator, DELETE_RETENTION_POLICY, initiator.getCallbackContext().getRetentionAppliedAt())) {
+            return ProgressEvent.progress(initiator.getResourceModel(), initiator.getCallbackContext());
+        }
+        return metrics.step(DELETE_RETENTION_POLICY, () -> initiator.initiate(DELETE_RETENTION_POLICY)
             .translateToServiceRequest(Translator::translateToDeleteRetentionPolicyRequest)
-            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::deleteRetentionPolicy))
-            .progress();
+            .makeServiceCall((r, c) -> LogGroupCache.shared().invalidating(r.logGroupName(), () ->
+                c.injectCredentialsAndInvokeV2(r, c.client()::deleteRetentionPolicy)))
+            .done((request, response, client, model, context) ->
+                checkpoint(context::setRetentionAppliedAt, model, context)));
     }
 
     static ProgressEvent<ResourceModel, CallbackContext> associateKMSKey(
         final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics,
         final ProgressEvent<ResourceModel, CallbackContext> event) {
-        return initiator.getResourceModel().getKmsKeyArn() == null ? event :
-            initiator
-                .translateToServiceRequest(m ->
-                    AssociateKmsKeyRequest.builder()
-                        .logGroupName(m.getLogGroupName())
-                        .kmsKeyId(m.getKmsKeyArn())
-                        .build())
-                //
-                // Sometimes when KMS keys is created along with the Log groups it takes a while to be in region
-                // We default delay of 5s and 20 tries is sufficient. The KMS resource already waits to existence
-                // in region, but there can still be some minor propagation problems. Default model of 5s/20 retries
-                // is sufficient to protect from this error. If CMK is disabled, the error will indicate that
-                //
-                .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::associateKmsKey))
-                .handleError(
-                    //
-                    // TODO, need to check the error message about disable vs propagation error
-                    //
-                    (request, exception, client_, model_, context_) -> {
-                        if (exception instanceof CloudWatchLogsException) {
-                            CloudWatchLogsException cwe = (CloudWatchLogsException) exception;
-                            if (cwe.awsErrorDetails().errorMessage().contains("The specified KMS Key Id could not be found")) {
-                                throw exception;
-                            }
-
-                            if (cwe.awsErrorDetails().errorCode().equals("AccessDeniedException")) {
-                                initiator.getLogger().log("Got AccessDeniedException when associating KMS, retrying "
-                                    + context_.attempts("logs:AssociateKmsKey"));
-                                throw RetryableException.builder().cause(exception).build();
-                            }
-                        }
-                        throw exception;
-                    }
-                )
-                .progress();
+        if (initiator.getResourceModel().getKmsKeyArn() == null
+            || completed(initiator, ASSOCIATE_KMS_KEY, initiator.getCallbackContext().getKmsKeyAppliedAt())) {
+            return event;
+        }
+        //
+        // A KMS key created along with the log group can take a few seconds to be usable in region,
+        // AssociateKmsKey answers AccessDenied until then. The policy retries that, and throttling,
+        // on a short growing backoff within a budget, and fails at once on a key that is missing,
+        // disabled or pending deletion
+        //
+        final KmsRetryPolicy retries = KmsRetryPolicy.withDefaults(initiator.getLogger(),
+            initiator.getCallbackContext());
+        return metrics.step(ASSOCIATE_KMS_KEY, () -> initiator
+            .translateToServiceRequest(Translator::translateToAssociateKmsKeyRequest)
+            .backoffDelay(retries)
+            .makeServiceCall((r, c) -> retries.attempt(() -> LogGroupCache.shared().invalidating(r.logGroupName(), () ->
+                c.injectCredentialsAndInvokeV2(r, c.client()::associateKmsKey))))
+            .handleError((request, exception, client_, model_, context_) -> retries.handle(exception))
+            .done((request, response, client, model, context) ->
+                checkpoint(context::setKmsKeyAppliedAt, model, context)));
+    }
+
+    //
+    // Newer SDKs deprecate the log group tagging APIs for TagResource, which takes an ARN the
+    // model only has after a read
+    //
+    @SuppressWarnings("deprecation")
+    static ProgressEvent<ResourceModel, CallbackContext> updateTags(
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics) {
+        if (completed(initiator, UPDATE_TAGS, initiator.getCallbackContext().getTagsAppliedAt())) {
+            return ProgressEvent.progress(initiator.getResourceModel(), initiator.getCallbackContext());
+        }
+        //
+        // The tags the log group has are read once and diffed against the desired ones, then all
+        // additions and changes go in one TagLogGroup call and all removals in one UntagLogGroup call.
+        // A retry reads and diffs again, so calls that went through before are not repeated.
+        //
+        final Map<String, String> desired = Translator.translateTags(initiator.getResourceModel().getTags());
+        return metrics.step(UPDATE_TAGS, () -> initiator.initiate(UPDATE_TAGS)
+            .translateToServiceRequest(Translator::translateToListTagsRequest)
+            .makeServiceCall((r, c) -> LogGroupCache.shared().invalidating(r.logGroupName(), () -> {
+                final ListTagsLogGroupResponse current =
+                    c.injectCredentialsAndInvokeV2(r, c.client()::listTagsLogGroup);
+                final UpdatePlanner.TagChanges changes = UpdatePlanner.tagChanges(
+                    current.tags() == null ? new HashMap<>() : current.tags(), desired);
+                if (!changes.getToAdd().isEmpty()) {
+                    c.injectCredentialsAndInvokeV2(Translator.translateToTagRequest(r.logGroupName(),
+                        changes.getToAdd()), c.client()::tagLogGroup);
+                }
+                if (!changes.getToRemove().isEmpty()) {
+                    c.injectCredentialsAndInvokeV2(Translator.translateToUntagRequest(r.logGroupName(),
+                        changes.getToRemove()), c.client()::untagLogGroup);
+                }
+                return changes;
+            }))
+            .done((request, changes, client, model, context) -> {
+                initiator.getLogger().log(String.format("Tags of %s: added or changed %s, removed %s",
+                    model.getLogGroupName(), changes.getToAdd().keySet(), changes.getToRemove()));
+                return checkpoint(context::setTagsAppliedAt, model, context);
+            }));
+    }
+
+    //
+    // A step that succeeded in an earlier invocation of the same operation is not made again
+    //
+    private static boolean completed(
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final String step,
+        final Long checkpoint) {
+        if (checkpoint == null) {
+            return false;
+        }
+        initiator.getLogger().log(String.format("%s for %s already done at %s, skipping",
+            step, initiator.getResourceModel().getLogGroupName(), Instant.ofEpochMilli(checkpoint)));
+        return true;
+    }
+
+    private static ProgressEvent<ResourceModel, CallbackContext> checkpoint(
+        final Consumer<Long> step, final ResourceModel model, final CallbackContext context) {
+        step.accept(System.currentTimeMillis());
+        return ProgressEvent.progress(model, context);
     }
 
     static ProgressEvent<ResourceModel, CallbackContext> disassociateKMSKey(
-        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator) {
-        return initiator.initiate("logs:disassociateKMSKey")
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics) {
+        if (completed(initiator, DISASSOCIATE_KMS_KEY, initiator.getCallbackContext().getKmsKeyAppliedAt())) {
+            return ProgressEvent.progress(initiator.getResourceModel(), initiator.getCallbackContext());
+        }
+        return metrics.step(DISASSOCIATE_KMS_KEY, () -> initiator.initiate(DISASSOCIATE_KMS_KEY)
             .translateToServiceRequest(m ->
                 DisassociateKmsKeyRequest.builder()
                     .logGroupName(m.getLogGroupName())
                     .build())
-            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::disassociateKmsKey))
+            .makeServiceCall((r, c) -> LogGroupCache.shared().invalidating(r.logGroupName(), () ->
+                c.injectCredentialsAndInvokeV2(r, c.client()::disassociateKmsKey)))
             .handleError(
                 //
                 // Handle exceptions from the call. If InvalidParameterException error message happens to be
@@ -108,16 +197,82 @@ final class Util {
                 //
                 (request, exception, client_, model_, context) -> {
                     if (exception instanceof InvalidParameterException) {
-                        //
-                        // TODO: check the error message
-                        //
-                        ProgressEvent.progress(model_, context);
+                        return ProgressEvent.progress(model_, context);
                     }
                     throw exception;
                 }
             )
-            .progress();
+            .done((request, response, client, model, context) ->
+                checkpoint(context::setKmsKeyAppliedAt, model, context)));
     }
 
+    static ProgressEvent<ResourceModel, CallbackContext> applyFollowUpsConcurrently(
+        final AmazonWebServicesClientProxy proxy,
+        final CloudWatchLogsAsyncClient client,
+        final CallChain.Initiator<CloudWatchLogsClient, ResourceModel, CallbackContext> initiator,
+        final StepMetrics metrics,
+        final ProgressEvent<ResourceModel, CallbackContext> event) {
 
+        final ResourceModel model = initiator.getResourceModel();
+        final CallbackContext context = initiator.getCallbackContext();
+        if (context.getFollowUpFailures() == null) {
+            //
+            // Once the log group exists, retention and KMS association don't depend on each other,
+            // so both go out together and we wait for the slower one instead of their sum
+            //
+            final Map<String, CompletableFuture<?>> calls = new LinkedHashMap<>();
+            LogGroupCache.shared().invalidate(model.getLogGroupName());
+            if (model.getRetentionInDays() != null) {
+                calls.put(PUT_RETENTION_POLICY, sendPaced(proxy,
+                    Translator.translateToPutRetentionPolicyRequest(model), client::putRetentionPolicy));
+            }
+            if (model.getKmsKeyArn() != null) {
+                calls.put(ASSOCIATE_KMS_KEY, sendPaced(proxy,
+                    Translator.translateToAssociateKmsKeyRequest(model), client::associateKmsKey));
+            }
+            final Map<String, String> failures = new HashMap<>();
+            calls.forEach((call, response) -> {
+                try {
+                    response.join();
+                    if (PUT_RETENTION_POLICY.equals(call)) {
+                        context.setRetentionAppliedAt(System.currentTimeMillis());
+                    } else {
+                        context.setKmsKeyAppliedAt(System.currentTimeMillis());
+                    }
+                } catch (CompletionException e) {
+                    final Throwable cause = e.getCause() == null ? e : e.getCause();
+                    failures.put(call, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+                    initiator.getLogger().log(String.format("%s for %s failed concurrently, retrying in sequence: %s",
+                        call, model.getLogGroupName(), failures.get(call)));
+                }
+            });
+            LogGroupCache.shared().invalidate(model.getLogGroupName());
+            context.setFollowUpFailures(failures);
+        }
+
+        //
+        // A failed call, e.g. AccessDenied while a new KMS key propagates, goes through the same sequential
+        // step a non concurrent create uses, which owns the retries and the mapping to handler errors
+        //
+        ProgressEvent<ResourceModel, CallbackContext> result = event;
+        if (context.getFollowUpFailures().containsKey(PUT_RETENTION_POLICY)) {
+            result = result.then(evt -> updateRetentionInDays(initiator, metrics, evt));
+        }
+        if (context.getFollowUpFailures().containsKey(ASSOCIATE_KMS_KEY)) {
+            result = result.then(evt -> associateKMSKey(initiator, metrics, evt));
+        }
+        return result;
+    }
+
+    //
+    // The async client's interceptor does not wait for rate limiter tokens, the handler thread takes
+    // them before sending, see RateLimiter
+    //
+    private static <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> sendPaced(
+        final AmazonWebServicesClientProxy proxy,
+        final RequestT request,
+        final Function<RequestT, CompletableFuture<ResponseT>> operation) {
+        RateLimiter.shared().acquire(StepMetrics.Interceptor.asyncKey(request));
+        return proxy.injectCredentialsAndInvokeV2Async(request, operation);
+    }
 }
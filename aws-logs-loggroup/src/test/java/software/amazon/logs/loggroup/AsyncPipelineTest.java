@@ -0,0 +1,418 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DeleteLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.TagLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.UntagLogGroupResponse;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.test.AbstractMockTestBase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncPipelineTest extends AbstractMockTestBase<CloudWatchLogsAsyncClient> {
+    private static final String LOG_GROUP_NAME = "LogGroup";
+    private static final String KMS_KEY = "arn:aws:kms:us-east-1:123456789012:key/a";
+
+    private final ResourceModel model = ResourceModel.builder()
+        .logGroupName(LOG_GROUP_NAME)
+        .retentionInDays(7)
+        .kmsKeyArn(KMS_KEY)
+        .build();
+
+    public AsyncPipelineTest() {
+        super(CloudWatchLogsAsyncClient.class);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        when(getServiceClient().listTagsLogGroup(any(ListTagsLogGroupRequest.class)))
+            .thenReturn(done(ListTagsLogGroupResponse.builder().build()));
+    }
+
+    @Test
+    public void create_Success() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(done(CreateLogGroupResponse.builder().build()));
+        when(client.putRetentionPolicy(argThat(argCmp(Translator.translateToPutRetentionPolicyRequest(model)))))
+            .thenReturn(done(PutRetentionPolicyResponse.builder().build()));
+        when(client.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(done(AssociateKmsKeyResponse.builder().build()));
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().create(request(model)).join();
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(event.getResourceModel()).isEqualTo(model);
+    }
+
+    @Test
+    public void create_RetriesKmsKeyWhilePropagating() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(done(CreateLogGroupResponse.builder().build()));
+        when(client.putRetentionPolicy(argThat(argCmp(Translator.translateToPutRetentionPolicyRequest(model)))))
+            .thenReturn(done(PutRetentionPolicyResponse.builder().build()));
+        when(client.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(failed(CloudWatchLogsException.builder()
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                    .errorCode("AccessDeniedException")
+                    .errorMessage("User is not authorized to use the KMS key")
+                    .build())
+                .build()))
+            .thenReturn(done(AssociateKmsKeyResponse.builder().build()));
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().create(request(model)).join();
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(event.getCallbackContext().getKmsKeyFirstAttemptAt()).isNotNull();
+        verify(client, times(2)).associateKmsKey(any(AssociateKmsKeyRequest.class));
+    }
+
+    @Test
+    public void create_FailsAtOnceOnDisabledKmsKey() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(done(CreateLogGroupResponse.builder().build()));
+        when(client.putRetentionPolicy(argThat(argCmp(Translator.translateToPutRetentionPolicyRequest(model)))))
+            .thenReturn(done(PutRetentionPolicyResponse.builder().build()));
+        when(client.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(failed(CloudWatchLogsException.builder()
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                    .errorCode("InvalidParameterException")
+                    .errorMessage("The KMS key is disabled")
+                    .build())
+                .build()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().create(request(model)).join();
+
+        assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        verify(client, times(1)).associateKmsKey(any(AssociateKmsKeyRequest.class));
+    }
+
+    @Test
+    public void create_AlreadyExists() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(failed(make(ResourceAlreadyExistsException.builder(), 400, "already exists",
+                ResourceAlreadyExistsException.class)));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().create(request(model)).join();
+
+        assertThat(event.isFailed()).isTrue();
+        assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(event.getMessage()).contains("already exists");
+        verify(client, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+    }
+
+    @Test
+    public void update_InvalidInputFailsBeforeAnyCall() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        final ResourceModel invalid = ResourceModel.builder().logGroupName(LOG_GROUP_NAME).retentionInDays(2).build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().update(request(invalid)).join();
+
+        assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(event.getMessage()).contains("RetentionInDays must be one of");
+        verify(client, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+    }
+
+    @Test
+    public void read_NotFound() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(DescribeLogGroupsResponse.builder().build()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().read(request(model)).join();
+
+        assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+    }
+
+    @Test
+    public void read_DoesNotValidateThePassedState() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        final ResourceModel passed = ResourceModel.builder().logGroupName(LOG_GROUP_NAME).retentionInDays(2).build();
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(passed)))))
+            .thenReturn(done(describeResponse()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().read(request(passed)).join();
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(event.getResourceModel().getRetentionInDays()).isEqualTo(7);
+    }
+
+    @Test
+    public void delete_PollsUntilGone() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.deleteLogGroup(argThat(argCmp(Translator.translateToDeleteRequest(model)))))
+            .thenReturn(done(DeleteLogGroupResponse.builder().build()));
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()))
+            .thenReturn(done(DescribeLogGroupsResponse.builder().build()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().delete(request(model)).join();
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(event.getCallbackContext().getDeletePolls()).isEqualTo(2);
+    }
+
+    @Test
+    public void delete_NotFound() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.deleteLogGroup(argThat(argCmp(Translator.translateToDeleteRequest(model)))))
+            .thenReturn(failed(make(ResourceNotFoundException.builder(), 400, "does not exist",
+                ResourceNotFoundException.class)));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().delete(request(model)).join();
+
+        assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+    }
+
+    @Test
+    public void delete_NotStabilized() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.deleteLogGroup(argThat(argCmp(Translator.translateToDeleteRequest(model)))))
+            .thenReturn(done(DeleteLogGroupResponse.builder().build()));
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = new AsyncPipeline(proxy, getServiceClient(),
+            getLoggerProxy(), Executors.newSingleThreadScheduledExecutor(),
+            () -> attempt -> attempt < 3 ? Duration.ofMillis(1) : Duration.ZERO)
+            .delete(request(model)).join();
+
+        assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.NotStabilized);
+        assertThat(event.getCallbackContext().getDeletePolls()).isEqualTo(3);
+    }
+
+    @Test
+    public void update_InvalidatesCachedLogGroupOnceMutationCompletes() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        final LogGroupCache cache = new LogGroupCache(
+            LogGroupCache.DEFAULT_TTL, LogGroupCache.DEFAULT_CAPACITY, System::nanoTime);
+        final LogGroupCache.Key key = LogGroupCache.Key.of("123456789012", "us-east-1", LOG_GROUP_NAME);
+        final LogGroup cached = describeResponse().logGroups().get(0);
+        final CompletableFuture<PutRetentionPolicyResponse> pending = new CompletableFuture<>();
+        when(client.putRetentionPolicy(any(PutRetentionPolicyRequest.class))).thenReturn(pending);
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()));
+        cache.put(key, cached, cache.generation(LOG_GROUP_NAME));
+
+        final ResourceModel desired = ResourceModel.builder()
+            .logGroupName(LOG_GROUP_NAME)
+            .retentionInDays(14)
+            .kmsKeyArn(KMS_KEY)
+            .build();
+        final CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>> update = new AsyncPipeline(proxy,
+            client, getLoggerProxy(), Executors.newSingleThreadScheduledExecutor(),
+            () -> attempt -> Duration.ofMillis(1), cache)
+            .update(ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(desired)
+                .previousResourceState(model)
+                .build());
+        assertThat(cache.get(key)).isNull();
+
+        //
+        // A Read racing the call caches what the log group looked like before it
+        //
+        cache.put(key, cached, cache.generation(LOG_GROUP_NAME));
+        pending.complete(PutRetentionPolicyResponse.builder().build());
+
+        assertThat(update.join().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    public void read_ReturnsTags() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()));
+        when(client.listTagsLogGroup(argThat(argCmp(Translator.translateToListTagsRequest(model)))))
+            .thenReturn(done(ListTagsLogGroupResponse.builder()
+                .tags(Collections.singletonMap("team", "logs"))
+                .build()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().read(request(model)).join();
+
+        assertThat(event.getResourceModel().getTags())
+            .containsExactly(Tag.builder().key("team").value("logs").build());
+    }
+
+    @Test
+    public void update_ReconcilesTags() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        final Map<String, String> current = new HashMap<>();
+        current.put("team", "logs");
+        current.put("stage", "beta");
+        final Map<String, String> added = new HashMap<>();
+        added.put("team", "metrics");
+        added.put("owner", "ops");
+        final ResourceModel desired = ResourceModel.builder()
+            .logGroupName(LOG_GROUP_NAME)
+            .retentionInDays(7)
+            .kmsKeyArn(KMS_KEY)
+            .tags(Arrays.asList(Tag.builder().key("team").value("metrics").build(),
+                Tag.builder().key("owner").value("ops").build()))
+            .build();
+        when(client.listTagsLogGroup(argThat(argCmp(Translator.translateToListTagsRequest(model)))))
+            .thenReturn(done(ListTagsLogGroupResponse.builder().tags(current).build()),
+                done(ListTagsLogGroupResponse.builder().tags(added).build()));
+        when(client.tagLogGroup(argThat(argCmp(Translator.translateToTagRequest(LOG_GROUP_NAME, added)))))
+            .thenReturn(done(TagLogGroupResponse.builder().build()));
+        when(client.untagLogGroup(argThat(argCmp(Translator.translateToUntagRequest(LOG_GROUP_NAME,
+            Collections.singleton("stage"))))))
+            .thenReturn(done(UntagLogGroupResponse.builder().build()));
+        when(client.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(done(describeResponse()));
+
+        final ProgressEvent<ResourceModel, CallbackContext> event = pipeline().update(
+            ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(desired)
+                .previousResourceState(model)
+                .build()).join();
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(event.getResourceModel().getTags()).containsExactlyInAnyOrderElementsOf(desired.getTags());
+        verify(client).tagLogGroup(argThat(argCmp(Translator.translateToTagRequest(LOG_GROUP_NAME, added))));
+        verify(client).untagLogGroup(argThat(argCmp(Translator.translateToUntagRequest(LOG_GROUP_NAME,
+            Collections.singleton("stage")))));
+        verify(client, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+    }
+
+    @Test
+    public void list_WaitsForTokensOnTheScheduler() {
+        final CloudWatchLogsAsyncClient client = getServiceClient();
+        when(client.describeLogGroups(any(DescribeLogGroupsRequest.class))).thenReturn(done(describeResponse()));
+        final AsyncPipeline pipeline = new AsyncPipeline(proxy, client, getLoggerProxy(),
+            Executors.newSingleThreadScheduledExecutor(), () -> attempt -> Duration.ofMillis(1), new LogGroupCache(
+                LogGroupCache.DEFAULT_TTL, LogGroupCache.DEFAULT_CAPACITY, System::nanoTime),
+            context -> KmsRetryPolicy.withDefaults(getLoggerProxy(), context), new RateLimiter(2));
+
+        final long startedAt = System.nanoTime();
+        final List<CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>>> lists = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            lists.add(pipeline.list(ResourceHandlerRequest.<ResourceModel>builder().build()));
+        }
+        final long issued = System.nanoTime() - startedAt;
+        CompletableFuture.allOf(lists.toArray(new CompletableFuture<?>[0])).join();
+
+        assertThat(Duration.ofNanos(issued)).isLessThan(Duration.ofMillis(200));
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(Duration.ofMillis(500));
+        assertThat(lists).allMatch(list -> list.join().isSuccess());
+    }
+
+    @Test
+    public void lifecycle_AgainstFakeEndpoint() throws Exception {
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            final CloudWatchLogsAsyncClient client = ClientBuilder.getAsyncClient(Region.US_EAST_1, endpoint.getEndpoint());
+            final AsyncPipeline pipeline = new AsyncPipeline(proxy, client, getLoggerProxy(),
+                Executors.newSingleThreadScheduledExecutor(), () -> attempt -> Duration.ofMillis(1));
+
+            final ProgressEvent<ResourceModel, CallbackContext> created = pipeline.create(request(model)).join();
+            assertThat(created.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+            assertThat(created.getResourceModel().getRetentionInDays()).isEqualTo(7);
+            assertThat(created.getResourceModel().getKmsKeyArn()).isEqualTo(KMS_KEY);
+            assertThat(created.getResourceModel().getArn()).isNotNull();
+
+            final ResourceModel desired = ResourceModel.builder().logGroupName(LOG_GROUP_NAME).retentionInDays(14).build();
+            final ProgressEvent<ResourceModel, CallbackContext> updated = pipeline.update(
+                ResourceHandlerRequest.<ResourceModel>builder()
+                    .desiredResourceState(desired)
+                    .previousResourceState(model)
+                    .build()).join();
+            assertThat(updated.getResourceModel().getRetentionInDays()).isEqualTo(14);
+            assertThat(updated.getResourceModel().getKmsKeyArn()).isNull();
+
+            final ResourceModel tagged = ResourceModel.builder()
+                .logGroupName(LOG_GROUP_NAME)
+                .retentionInDays(14)
+                .tags(Collections.singletonList(Tag.builder().key("team").value("logs").build()))
+                .build();
+            pipeline.update(ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(tagged)
+                .previousResourceState(desired)
+                .build()).join();
+            assertThat(pipeline.read(request(desired)).join().getResourceModel().getTags()).isEqualTo(tagged.getTags());
+
+            assertThat(pipeline.list(ResourceHandlerRequest.<ResourceModel>builder().build()).join()
+                .getResourceModels()).extracting(ResourceModel::getLogGroupName).containsExactly(LOG_GROUP_NAME);
+
+            assertThat(pipeline.delete(request(desired)).join().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+            assertThat(endpoint.getLogGroups()).isEmpty();
+            assertThat(pipeline.read(request(desired)).join().getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        }
+    }
+
+    private AsyncPipeline pipeline() {
+        return new AsyncPipeline(proxy, getServiceClient(), getLoggerProxy(),
+            Executors.newSingleThreadScheduledExecutor(), () -> attempt -> Duration.ofMillis(1), new LogGroupCache(
+                LogGroupCache.DEFAULT_TTL, LogGroupCache.DEFAULT_CAPACITY, System::nanoTime),
+            context -> new KmsRetryPolicy(attempt -> Duration.ofMillis(1), KmsRetryPolicy.BUDGET,
+                getLoggerProxy(), context), new RateLimiter(0));
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel model) {
+        return ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build();
+    }
+
+    private static DescribeLogGroupsResponse describeResponse() {
+        return DescribeLogGroupsResponse.builder()
+            .logGroups(LogGroup.builder()
+                .logGroupName(LOG_GROUP_NAME)
+                .retentionInDays(7)
+                .kmsKeyId(KMS_KEY)
+                .build())
+            .build();
+    }
+
+    private static <T> CompletableFuture<T> done(final T response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static <T> CompletableFuture<T> failed(final Throwable e) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+}
@@ -0,0 +1,225 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchReadHandlerTest {
+    private final LogGroupCache cache = new LogGroupCache(
+        LogGroupCache.DEFAULT_TTL, LogGroupCache.DEFAULT_CAPACITY, System::nanoTime);
+    private final BatchReadHandler handler = new BatchReadHandler(cache, BatchReadHandler.DEFAULT_MIN_PREFIX_LENGTH);
+    private final NavigableMap<String, LogGroup> logGroups = new TreeMap<>();
+    private final Map<String, Map<String, String>> tags = new HashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger tagCalls = new AtomicInteger();
+    private final List<String> logged = new ArrayList<>();
+
+    @Test
+    public void plan_GroupsNamesSharingPrefix() {
+        final Map<String, List<String>> plan = BatchReadHandler.plan(new TreeSet<>(Arrays.asList(
+            "/aws/ecs/x", "/aws/lambda/a", "/aws/lambda/b", "ab", "other")), 4);
+
+        assertThat(plan.keySet()).containsExactly("/aws/", "ab", "other");
+        assertThat(plan.get("/aws/")).containsExactly("/aws/ecs/x", "/aws/lambda/a", "/aws/lambda/b");
+    }
+
+    @Test
+    public void handleRequests_AnswersEveryRequestInOrder() {
+        create("/aws/lambda/a", 7);
+        create("/aws/lambda/b", 14);
+        create("/aws/lambda/c", 30);
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events = handler.handleRequests(Arrays.asList(
+            request(ResourceModel.builder().logGroupName("/aws/lambda/b").build()),
+            request(ResourceModel.builder().logGroupName("/aws/lambda/missing").build()),
+            request(ResourceModel.builder().logGroupName("/aws/lambda/a").retentionInDays(10).build()),
+            request(null),
+            request(ResourceModel.builder().logGroupName("/aws/lambda/a").build())),
+            logged::add, describe(), listTags());
+
+        assertThat(events.get(0).getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(events.get(0).getResourceModel().getRetentionInDays()).isEqualTo(14);
+        assertThat(events.get(1).getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        assertThat(events.get(2).getResourceModel().getRetentionInDays()).isEqualTo(7);
+        assertThat(events.get(3).getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        assertThat(events.get(4).getResourceModel().getRetentionInDays()).isEqualTo(7);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void handleRequests_ReturnsTagsAndCachesThem() {
+        create("/aws/lambda/a", 7);
+        create("/aws/lambda/b", 7);
+        tags.put("/aws/lambda/a", Collections.singletonMap("team", "logs"));
+        final List<ResourceHandlerRequest<ResourceModel>> requests = Arrays.asList(
+            request(ResourceModel.builder().logGroupName("/aws/lambda/a").build()),
+            request(ResourceModel.builder().logGroupName("/aws/lambda/b").build()));
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events =
+            handler.handleRequests(requests, logged::add, describe(), listTags());
+
+        assertThat(events.get(0).getResourceModel().getTags())
+            .containsExactly(Tag.builder().key("team").value("logs").build());
+        assertThat(events.get(1).getResourceModel().getTags()).isNull();
+        assertThat(tagCalls.get()).isEqualTo(2);
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> cached =
+            handler.handleRequests(requests, logged::add, describe(), listTags());
+
+        assertThat(cached.get(0).getResourceModel()).isEqualTo(events.get(0).getResourceModel());
+        assertThat(tagCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void handleRequests_TagFailureFailsItsRequestOnly() {
+        create("/aws/lambda/a", 7);
+        create("/aws/lambda/b", 7);
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events = handler.handleRequests(Arrays.asList(
+            request(ResourceModel.builder().logGroupName("/aws/lambda/a").build()),
+            request(ResourceModel.builder().logGroupName("/aws/lambda/b").build())), logged::add, describe(),
+            request -> {
+                if (request.logGroupName().endsWith("a")) {
+                    throw CloudWatchLogsException.builder().statusCode(403).message("Denied").build();
+                }
+                return ListTagsLogGroupResponse.builder().build();
+            });
+
+        assertThat(events.get(0).getErrorCode()).isEqualTo(HandlerErrorCode.AccessDenied);
+        assertThat(events.get(1).isSuccess()).isTrue();
+    }
+
+    @Test
+    public void handleRequests_ThousandsOfLogGroupsInTensOfCalls() {
+        final BatchReadHandler handler = new BatchReadHandler(new LogGroupCache(
+            LogGroupCache.DEFAULT_TTL, 10000, System::nanoTime), BatchReadHandler.DEFAULT_MIN_PREFIX_LENGTH);
+        final List<ResourceHandlerRequest<ResourceModel>> requests = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final String name = String.format("/aws/lambda/fleet-%04d", i);
+            create(name, 7);
+            requests.add(request(ResourceModel.builder().logGroupName(name).build()));
+        }
+        for (int i = 0; i < 2000; i++) {
+            create(String.format("/aws/ecs/other-%04d", i), 1);
+        }
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events =
+            handler.handleRequests(requests, logged::add, describe(), listTags());
+
+        assertThat(events).hasSize(5000).allMatch(ProgressEvent::isSuccess);
+        assertThat(calls.get()).isEqualTo(5000 / LogGroupLookup.MAX_PAGE_SIZE);
+
+        calls.set(0);
+        assertThat(handler.handleRequests(requests, logged::add, describe(), listTags()))
+            .allMatch(ProgressEvent::isSuccess);
+        assertThat(calls.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void handleRequests_FewNamesAcrossLargeNamespaceAreLookedUp() {
+        for (int i = 0; i < 10000; i++) {
+            create(String.format("/aws/lambda/fleet-%05d", i), 7);
+        }
+        final List<String> names = Arrays.asList(
+            "/aws/lambda/fleet-00000", "/aws/lambda/fleet-05000", "/aws/lambda/fleet-09999", "/aws/lambda/gone");
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events = handler.handleRequests(Arrays.asList(
+            request(ResourceModel.builder().logGroupName(names.get(0)).build()),
+            request(ResourceModel.builder().logGroupName(names.get(1)).build()),
+            request(ResourceModel.builder().logGroupName(names.get(2)).build()),
+            request(ResourceModel.builder().logGroupName(names.get(3)).build())), logged::add, describe(), listTags());
+
+        assertThat(BatchReadHandler.plan(new TreeSet<>(names), BatchReadHandler.DEFAULT_MIN_PREFIX_LENGTH))
+            .hasSize(1);
+        assertThat(events.subList(0, 3)).allMatch(ProgressEvent::isSuccess);
+        assertThat(events.get(3).getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        assertThat(calls.get()).isLessThanOrEqualTo(names.size() + 1);
+    }
+
+    @Test
+    public void handleRequests_ScanFailureFailsItsRequestsOnly() {
+        create("/aws/lambda/a", 7);
+        create("other", 7);
+        final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe = describe();
+
+        final List<ProgressEvent<ResourceModel, CallbackContext>> events = handler.handleRequests(Arrays.asList(
+            request(ResourceModel.builder().logGroupName("/aws/lambda/a").build()),
+            request(ResourceModel.builder().logGroupName("other").build())), logged::add, request -> {
+                if (request.logGroupNamePrefix().startsWith("/aws")) {
+                    throw CloudWatchLogsException.builder().statusCode(429).message("Rate exceeded").build();
+                }
+                return describe.apply(request);
+            }, listTags());
+
+        assertThat(events.get(0).getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+        assertThat(events.get(1).isSuccess()).isTrue();
+    }
+
+    private void create(final String name, final int retentionInDays) {
+        logGroups.put(name, LogGroup.builder().logGroupName(name).retentionInDays(retentionInDays).build());
+    }
+
+    //
+    // Pages of 50 in name order, the token is the last name of the previous page
+    //
+    private Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe() {
+        return request -> {
+            calls.incrementAndGet();
+            final String prefix = request.logGroupNamePrefix() == null ? "" : request.logGroupNamePrefix();
+            final NavigableMap<String, LogGroup> range = request.nextToken() == null
+                ? logGroups.tailMap(prefix, true)
+                : logGroups.tailMap(request.nextToken(), false);
+            final List<LogGroup> page = new ArrayList<>();
+            String last = null;
+            for (final LogGroup logGroup : range.values()) {
+                if (!logGroup.logGroupName().startsWith(prefix) || page.size() == request.limit()) {
+                    break;
+                }
+                page.add(logGroup);
+                last = logGroup.logGroupName();
+            }
+            final String higher = last == null ? null : logGroups.higherKey(last);
+            return DescribeLogGroupsResponse.builder()
+                .logGroups(page)
+                .nextToken(higher != null && higher.startsWith(prefix) ? last : null)
+                .build();
+        };
+    }
+
+    private Function<ListTagsLogGroupRequest, ListTagsLogGroupResponse> listTags() {
+        return request -> {
+            tagCalls.incrementAndGet();
+            return ListTagsLogGroupResponse.builder().tags(tags.get(request.logGroupName())).build();
+        };
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel model) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+            .awsAccountId("123456789012")
+            .region("us-east-1")
+            .desiredResourceState(model)
+            .build();
+    }
+}
@@ -0,0 +1,204 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.cloudformation.exceptions.CfnServiceInternalErrorException;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakerTest {
+    private static final CircuitBreaker.Key CREATE = new CircuitBreaker.Key("us-east-1", "CreateLogGroup");
+    private static final CircuitBreaker.Key ASSOCIATE = new CircuitBreaker.Key("us-east-1", "AssociateKmsKey");
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(Duration.ofSeconds(5), Duration.ofSeconds(30), now::get);
+    private final List<String> logged = new ArrayList<>();
+
+    @Test
+    public void completed_TripsOnErrorRate() {
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS - 1; i++) {
+            call(CREATE, FAST, i % 2 == 0);
+        }
+        assertThat(breaker.state(CREATE)).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(CREATE, FAST, false);
+
+        assertThat(breaker.state(CREATE)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.state(ASSOCIATE)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(logged).containsExactly("Circuit for CreateLogGroup in us-east-1 is OPEN for 30 s, "
+            + "5 of the last 10 calls failed");
+        final CfnServiceInternalErrorException e =
+            assertThrows(CfnServiceInternalErrorException.class, () -> breaker.admit(CREATE, logged::add));
+        assertThat(e.getMessage()).contains("CreateLogGroup in us-east-1, failing fast while the circuit is open "
+            + "(5 of the last 10 calls failed), retry in 30 s");
+    }
+
+    @Test
+    public void completed_TripsOnSlowCalls() {
+        for (int i = 0; i < CircuitBreaker.WINDOW; i++) {
+            call(ASSOCIATE, i < 11 ? FAST : TimeUnit.SECONDS.toNanos(6), false);
+        }
+        assertThat(breaker.state(ASSOCIATE)).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        //
+        // The oldest fast call leaves the window
+        //
+        call(ASSOCIATE, TimeUnit.SECONDS.toNanos(6), false);
+
+        assertThat(breaker.state(ASSOCIATE)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(logged.get(0)).endsWith("10 of the last 20 calls took over 5000 ms");
+    }
+
+    @Test
+    public void admit_HalfOpenProbesCloseTheCircuit() {
+        trip(CREATE);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        for (int i = 0; i < CircuitBreaker.PROBES; i++) {
+            assertThat(breaker.admit(CREATE, logged::add)).isTrue();
+        }
+        assertThat(breaker.state(CREATE)).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThrows(CfnServiceInternalErrorException.class, () -> breaker.admit(CREATE, logged::add));
+        for (int i = 0; i < CircuitBreaker.PROBES; i++) {
+            breaker.completed(CREATE, true, FAST, false, logged::add);
+        }
+
+        assertThat(breaker.state(CREATE)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.admit(CREATE, logged::add)).isFalse();
+        assertThat(logged).hasSize(3);
+        assertThat(logged.get(1)).endsWith("is HALF_OPEN, probing with up to 3 call(s)");
+        assertThat(logged.get(2)).endsWith("is CLOSED after 3 successful probe(s)");
+    }
+
+    @Test
+    public void admit_FailedProbeOpensAgain() {
+        trip(CREATE);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        assertThat(breaker.admit(CREATE, logged::add)).isTrue();
+        breaker.completed(CREATE, true, FAST, true, logged::add);
+
+        assertThat(breaker.state(CREATE)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(logged.get(2)).endsWith("probe failed after 100 ms");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        assertThrows(CfnServiceInternalErrorException.class, () -> breaker.admit(CREATE, logged::add));
+    }
+
+    @Test
+    public void isOutage_OnlyServerNetworkAndTimeoutErrors() {
+        assertThat(CircuitBreaker.Interceptor.isOutage(SdkServiceException.builder().statusCode(503).build()))
+            .isTrue();
+        assertThat(CircuitBreaker.Interceptor.isOutage(SdkClientException.create("unreachable",
+            new ConnectException("Connection refused")))).isTrue();
+        assertThat(CircuitBreaker.Interceptor.isOutage(ApiCallAttemptTimeoutException.create(1000L))).isTrue();
+
+        assertThat(CircuitBreaker.Interceptor.isOutage(SdkServiceException.builder().statusCode(400).build()))
+            .isFalse();
+        assertThat(CircuitBreaker.Interceptor.isOutage(SdkClientException.create("Unable to load credentials")))
+            .isFalse();
+        assertThat(CircuitBreaker.Interceptor.isOutage(SdkClientException.create("unmarshalling",
+            new IllegalStateException())))
+            .isFalse();
+        assertThat(CircuitBreaker.Interceptor.isOutage(new IllegalArgumentException())).isFalse();
+    }
+
+    @Test
+    public void interceptor_FailsFastOnceUnreachable() throws IOException {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        //
+        // A region of its own, the circuit is shared with every other client of the container
+        //
+        final CloudWatchLogsClient client = ClientBuilder.getClient(Region.AP_SOUTHEAST_3,
+            URI.create("http://localhost:" + port), Transport.URL_CONNECTION);
+        final DescribeLogGroupsRequest request = DescribeLogGroupsRequest.builder()
+            .overrideConfiguration(AwsRequestOverrideConfiguration.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("a", "b")))
+                .build())
+            .build();
+        final StepMetrics metrics = new StepMetrics(logged::add, "Read");
+        final CircuitBreaker.Key key = new CircuitBreaker.Key("ap-southeast-3", "DescribeLogGroups");
+
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            assertThrows(SdkClientException.class, () -> metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                client.describeLogGroups(request);
+                return ProgressEvent.success(null, null);
+            }));
+        }
+
+        assertThat(CircuitBreaker.shared().state(key)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(logged).anyMatch(line -> line.startsWith("Circuit for DescribeLogGroups in ap-southeast-3 is OPEN"));
+        final long start = System.nanoTime();
+        assertThrows(CfnServiceInternalErrorException.class, () -> client.describeLogGroups(request));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000L);
+    }
+
+    @Test
+    public void interceptor_FailsFastOnceUnreachable_Async() throws IOException {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final CloudWatchLogsAsyncClient client =
+            ClientBuilder.getAsyncClient(Region.EU_NORTH_1, URI.create("http://localhost:" + port));
+        final DescribeLogGroupsRequest request = DescribeLogGroupsRequest.builder()
+            .overrideConfiguration(AwsRequestOverrideConfiguration.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("a", "b")))
+                .build())
+            .build();
+        final StepMetrics metrics = new StepMetrics(logged::add, "Read");
+        final CircuitBreaker.Key key = new CircuitBreaker.Key("eu-north-1", "DescribeLogGroups");
+
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            final CompletionException e = assertThrows(CompletionException.class,
+                () -> metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                    client.describeLogGroups(request).join();
+                    return ProgressEvent.success(null, null);
+                }));
+            assertThat(e.getCause()).isInstanceOf(SdkClientException.class);
+        }
+
+        assertThat(CircuitBreaker.shared().state(key)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(logged).anyMatch(line -> line.startsWith("Circuit for DescribeLogGroups in eu-north-1 is OPEN"));
+        final long start = System.nanoTime();
+        final CompletionException e = assertThrows(CompletionException.class,
+            () -> client.describeLogGroups(request).join());
+        assertThat(e.getCause()).isInstanceOf(CfnServiceInternalErrorException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000L);
+    }
+
+    private void call(final CircuitBreaker.Key key, final long nanos, final boolean failed) {
+        breaker.completed(key, breaker.admit(key, logged::add), nanos, failed, logged::add);
+    }
+
+    private void trip(final CircuitBreaker.Key key) {
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            call(key, FAST, true);
+        }
+    }
+}
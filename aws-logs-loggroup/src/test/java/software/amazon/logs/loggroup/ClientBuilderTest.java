@@ -0,0 +1,49 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClientBuilderTest {
+
+    @Test
+    public void getClient_SameKeyReturnsSameClient() {
+        final CloudWatchLogsClient first = ClientBuilder.getClient(Region.US_EAST_2, null);
+        final CloudWatchLogsClient second = ClientBuilder.getClient(Region.of("us-east-2"), null);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void getClient_DifferentKeysReturnDifferentClients() {
+        final URI endpoint = URI.create("http://localhost:4566");
+        final CloudWatchLogsClient regional = ClientBuilder.getClient(Region.US_WEST_2, null);
+        final CloudWatchLogsClient otherRegion = ClientBuilder.getClient(Region.EU_WEST_1, null);
+        final CloudWatchLogsClient overridden = ClientBuilder.getClient(Region.US_WEST_2, endpoint);
+
+        assertThat(otherRegion).isNotSameAs(regional);
+        assertThat(overridden).isNotSameAs(regional);
+        assertThat(ClientBuilder.getClient(Region.US_WEST_2, URI.create("http://localhost:4566")))
+            .isSameAs(overridden);
+    }
+
+    @Test
+    public void getClient_ConcurrentCallersShareOneClient() {
+        final List<CompletableFuture<CloudWatchLogsClient>> futures = IntStream.range(0, 16)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> ClientBuilder.getClient(Region.AP_SOUTHEAST_2, null)))
+            .collect(Collectors.toCollection(ArrayList::new));
+        final List<CloudWatchLogsClient> clients = futures.stream()
+            .map(CompletableFuture::join)
+            .distinct()
+            .collect(Collectors.toList());
+        assertThat(clients).hasSize(1);
+    }
+}
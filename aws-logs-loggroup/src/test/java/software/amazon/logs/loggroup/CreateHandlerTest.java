@@ -5,15 +5,19 @@ import org.mockito.ArgumentMatcher;
 import software.amazon.awssdk.awscore.AwsRequest;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutResourcePolicyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyRequest;
 import software.amazon.cloudformation.exceptions.CfnAlreadyExistsException;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
@@ -26,6 +30,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
@@ -37,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -49,6 +56,17 @@ public class CreateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         super(CloudWatchLogsClient.class);
     }
 
+    @BeforeEach
+    public void setUp() {
+        LogGroupCache.shared().clear();
+
+        //
+        // Every Read ends with ListTagsLogGroup, tests that care about tags stub it again
+        //
+        when(getServiceClient().listTagsLogGroup(any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().build());
+    }
+
     @Test
     public void handleRequest_Success() {
 
@@ -84,6 +102,7 @@ public class CreateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         final DescribeLogGroupsRequest describeLogGroupsRequest =
             DescribeLogGroupsRequest.builder()
                 .logGroupNamePrefix(logGroupName)
+                .limit(50)
                 .build();
         final LogGroup logGroup =
             LogGroup.builder()
@@ -151,6 +170,7 @@ public class CreateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         final DescribeLogGroupsRequest describeLogGroupsRequest =
             DescribeLogGroupsRequest.builder()
                 .logGroupNamePrefix(logGroupName)
+                .limit(50)
                 .build();
         final LogGroup logGroup =
             LogGroup.builder()
@@ -225,6 +245,7 @@ public class CreateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         final DescribeLogGroupsRequest describeLogGroupsRequest =
             DescribeLogGroupsRequest.builder()
                 .logGroupNamePrefix(logGroupName)
+                .limit(50)
                 .build();
         final LogGroup logGroup =
             LogGroup.builder()
@@ -266,6 +287,181 @@ public class CreateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         verify(service).describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher));
     }
 
+    @Test
+    public void associateKMSKey_DisabledKeyFailsWithoutRetrying() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final String kmsKeyArn = "arn:aws:kms:us-east-2:0123456789012:key/" + UUID.randomUUID().toString();
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .kmsKeyArn(kmsKeyArn)
+            .build();
+
+        when(service.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(CreateLogGroupResponse.builder().build());
+        when(service.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenThrow(CloudWatchLogsException.builder()
+                .statusCode(HttpStatus.SC_BAD_REQUEST)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                    .errorCode("InvalidParameterException")
+                    .errorMessage("The KMS key is disabled")
+                    .sdkHttpResponse(SdkHttpResponse.builder().statusCode(HttpStatus.SC_BAD_REQUEST).build())
+                    .build())
+                .build());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            handler.handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        verify(service, times(1)).associateKmsKey(any(AssociateKmsKeyRequest.class));
+        verify(service, never()).describeLogGroups(any(DescribeLogGroupsRequest.class));
+    }
+
+    @Test
+    public void handleRequest_RecordsStepCheckpoints() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(7)
+            .kmsKeyArn("arn:aws:kms:us-east-2:0123456789012:key/" + UUID.randomUUID().toString())
+            .build();
+        when(service.createLogGroup(any(CreateLogGroupRequest.class)))
+            .thenReturn(CreateLogGroupResponse.builder().build());
+        when(service.putRetentionPolicy(any(PutRetentionPolicyRequest.class)))
+            .thenReturn(PutRetentionPolicyResponse.builder().build());
+        when(service.associateKmsKey(any(AssociateKmsKeyRequest.class)))
+            .thenReturn(AssociateKmsKeyResponse.builder().build());
+        when(service.describeLogGroups(any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("LogGroup").retentionInDays(7).build())
+                .build());
+
+        final long start = System.currentTimeMillis();
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy,
+            ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(), null,
+            getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getCreatedAt()).isGreaterThanOrEqualTo(start);
+        assertThat(response.getCallbackContext().getRetentionAppliedAt())
+            .isGreaterThanOrEqualTo(response.getCallbackContext().getCreatedAt());
+        assertThat(response.getCallbackContext().getKmsKeyAppliedAt())
+            .isGreaterThanOrEqualTo(response.getCallbackContext().getRetentionAppliedAt());
+    }
+
+    @Test
+    public void handleRequest_ResumesAtFirstIncompleteStep() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(7)
+            .kmsKeyArn("arn:aws:kms:us-east-2:0123456789012:key/" + UUID.randomUUID().toString())
+            .build();
+        when(service.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(AssociateKmsKeyResponse.builder().build());
+        when(service.describeLogGroups(any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("LogGroup").retentionInDays(7).build())
+                .build());
+        final CallbackContext context = new CallbackContext();
+        context.setCreatedAt(System.currentTimeMillis());
+        context.setRetentionAppliedAt(System.currentTimeMillis());
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy,
+            ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(), context,
+            getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getKmsKeyAppliedAt()).isNotNull();
+        verify(service, never()).createLogGroup(any(CreateLogGroupRequest.class));
+        verify(service, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+        verify(service).associateKmsKey(any(AssociateKmsKeyRequest.class));
+    }
+
+    @Test
+    public void handleRequest_ConcurrentFollowUps() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final CloudWatchLogsAsyncClient asyncService = mock(CloudWatchLogsAsyncClient.class);
+        final String logGroupName = "LogGroup";
+        final String kmsKeyArn = "arn:aws:kms:us-east-2:0123456789012:key/" + UUID.randomUUID().toString();
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName(logGroupName)
+            .retentionInDays(7)
+            .kmsKeyArn(kmsKeyArn)
+            .build();
+
+        when(service.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(CreateLogGroupResponse.builder().build());
+        when(asyncService.putRetentionPolicy(argThat(argCmp(Translator.translateToPutRetentionPolicyRequest(model)))))
+            .thenReturn(CompletableFuture.completedFuture(PutRetentionPolicyResponse.builder().build()));
+        when(asyncService.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(CompletableFuture.completedFuture(AssociateKmsKeyResponse.builder().build()));
+        when(service.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName(logGroupName).retentionInDays(7).kmsKeyId(kmsKeyArn).build())
+                .build());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            new CreateHandler(() -> asyncService).handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getFollowUpFailures()).isEmpty();
+        assertThat(response.getResourceModel().getKmsKeyArn()).isEqualTo(kmsKeyArn);
+
+        verify(asyncService).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+        verify(asyncService).associateKmsKey(any(AssociateKmsKeyRequest.class));
+        verify(service, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+        verify(service, never()).associateKmsKey(any(AssociateKmsKeyRequest.class));
+    }
+
+    @Test
+    public void handleRequest_ConcurrentFollowUps_FailedCallRetriedInSequence() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final CloudWatchLogsAsyncClient asyncService = mock(CloudWatchLogsAsyncClient.class);
+        final String logGroupName = "LogGroup";
+        final String kmsKeyArn = "arn:aws:kms:us-east-2:0123456789012:key/" + UUID.randomUUID().toString();
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName(logGroupName)
+            .retentionInDays(7)
+            .kmsKeyArn(kmsKeyArn)
+            .build();
+
+        when(service.createLogGroup(argThat(argCmp(Translator.translateToCreateRequest(model)))))
+            .thenReturn(CreateLogGroupResponse.builder().build());
+        when(asyncService.putRetentionPolicy(argThat(argCmp(Translator.translateToPutRetentionPolicyRequest(model)))))
+            .thenReturn(CompletableFuture.completedFuture(PutRetentionPolicyResponse.builder().build()));
+        final CompletableFuture<AssociateKmsKeyResponse> accessDenied = new CompletableFuture<>();
+        accessDenied.completeExceptionally(make(
+            CloudWatchLogsException.builder(), 400, "Not authorized to use the key", CloudWatchLogsException.class));
+        when(asyncService.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(accessDenied);
+        when(service.associateKmsKey(argThat(argCmp(Translator.translateToAssociateKmsKeyRequest(model)))))
+            .thenReturn(AssociateKmsKeyResponse.builder().build());
+        when(service.describeLogGroups(argThat(argCmp(Translator.translateToReadRequest(model)))))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName(logGroupName).retentionInDays(7).kmsKeyId(kmsKeyArn).build())
+                .build());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            new CreateHandler(() -> asyncService).handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getFollowUpFailures())
+            .containsOnlyKeys(Util.ASSOCIATE_KMS_KEY);
+
+        verify(service, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+        verify(service).associateKmsKey(any(AssociateKmsKeyRequest.class));
+    }
+
     @Test
     public void handleRequest_FailureAlreadyExists() {
         final CloudWatchLogsClient service = getServiceClient();
@@ -303,4 +499,21 @@ public class CreateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
 
         verify(service).createLogGroup(argThat(cLGR));
     }
+
+    @Test
+    public void handleRequest_InvalidRetentionFailsBeforeAnyCall() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(2)
+            .build();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+
+        assertThrows(CfnInvalidRequestException.class,
+            () -> handler.handleRequest(proxy, request, null, getLoggerProxy()));
+        verify(service, never()).createLogGroup(any(CreateLogGroupRequest.class));
+    }
+
 }
@@ -22,6 +22,7 @@ import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRes
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.cloudformation.test.AbstractMockTestBase;
 
+import java.time.Duration;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +32,7 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -58,6 +60,7 @@ public class DeleteHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         final DescribeLogGroupsRequest describeLogGroupsRequest =
             DescribeLogGroupsRequest.builder()
                 .logGroupNamePrefix("LogGroup")
+                .limit(50)
                 .build();
         final ArgumentMatcher<DescribeLogGroupsRequest> describeLogGroupsRequestArgumentMatcher =
             argCmp(describeLogGroupsRequest);
@@ -90,6 +93,52 @@ public class DeleteHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         verify(client).describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher));
     }
 
+    @Test
+    public void handleRequest_PollsUntilGone() {
+        final CloudWatchLogsClient client = getServiceClient();
+        final DeleteLogGroupRequest deleteLogGroupRequest =
+            DeleteLogGroupRequest.builder()
+                .logGroupName("LogGroup")
+                .build();
+        when(client.deleteLogGroup(argThat(argCmp(deleteLogGroupRequest))))
+            .thenReturn(DeleteLogGroupResponse.builder().build());
+
+        final DescribeLogGroupsRequest describeLogGroupsRequest =
+            DescribeLogGroupsRequest.builder()
+                .logGroupNamePrefix("LogGroup")
+                .limit(50)
+                .build();
+        final ArgumentMatcher<DescribeLogGroupsRequest> describeMatcher = argCmp(describeLogGroupsRequest);
+        when(client.describeLogGroups(argThat(describeMatcher)))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("LogGroup").build())
+                .nextToken("token")
+                .build())
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("LogGroup2").build())
+                .nextToken("token")
+                .build());
+
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            new DeleteHandler(() -> attempt -> Duration.ofMillis(1))
+                .handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getDeletePolls()).isEqualTo(2);
+        assertThat(response.getCallbackContext().getDeleteRequestedAt()).isNotNull();
+
+        // each probe reads a single page even when the service offers more
+        verify(client, times(2)).describeLogGroups(argThat(describeMatcher));
+    }
+
     @Test
     public void handleRequest_NotFound_Failure() {
         final CloudWatchLogsClient client = getServiceClient();
@@ -125,4 +174,25 @@ public class DeleteHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
 
         verify(client).deleteLogGroup(argThat(argCmp));
     }
+
+    @Test
+    public void handleRequest_DeletesWhateverStateWasPassed() {
+        final CloudWatchLogsClient client = getServiceClient();
+        when(client.deleteLogGroup(ArgumentMatchers.any(DeleteLogGroupRequest.class)))
+            .thenReturn(DeleteLogGroupResponse.builder().build());
+        when(client.describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder().build());
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(2)
+            .arn("not an arn")
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy,
+            ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(), null,
+            getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(client).deleteLogGroup(ArgumentMatchers.any(DeleteLogGroupRequest.class));
+    }
 }
@@ -0,0 +1,385 @@
+package software.amazon.logs.loggroup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-process stand-in for the CloudWatch Logs JSON protocol, covering the calls the handlers make,
+ * backed by an in-memory map of log groups. Point ClientBuilder at {@link #getEndpoint()} through
+ * {@link ClientBuilder#ENDPOINT_PROPERTY} or the endpoint override of getClient/getAsyncClient.
+ *
+ * Three kinds of misbehaviour can be injected, each changeable while requests are in flight:
+ * - latency, drawn per request from a distribution and scheduled rather than slept so that slow
+ *   responses don't tie up the server's threads
+ * - throttling, a fraction of requests, overall or per operation, fail with ThrottlingException
+ * - read-after-write lag, DescribeLogGroups only sees a write once the lag has passed. Writes are
+ *   checked against the latest state, so a create followed by a describe can miss the log group
+ *   exactly like the real service shortly after the call returns.
+ */
+final class FakeLogsEndpoint implements AutoCloseable {
+    private static final String TARGET_PREFIX = "Logs_20140328.";
+    private static final String ARN_PREFIX = "arn:aws:logs:us-east-1:123456789012:log-group:";
+    private static final String THROTTLING = "ThrottlingException";
+    //
+    // Standard normal quantile of 0.99, relates the p99 of a log-normal latency to its median
+    //
+    private static final double Z_99 = 2.326;
+
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newFixedThreadPool(8);
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+    //
+    // Latest state, guarded by itself, and the state DescribeLogGroups sees, which trails it by the lag
+    //
+    private final NavigableMap<String, JSONObject> logGroups = new TreeMap<>();
+    private final NavigableMap<String, JSONObject> visible = new ConcurrentSkipListMap<>();
+    //
+    // Tags of each log group, guarded by the lock on logGroups like the log groups themselves
+    //
+    private final Map<String, JSONObject> tags = new HashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> throttled = new ConcurrentHashMap<>();
+    private final Map<String, Double> throttlingRates = new ConcurrentHashMap<>();
+    private volatile Supplier<Duration> latency = fixed(Duration.ZERO);
+    private volatile double throttlingRate;
+    private volatile Duration lag = Duration.ZERO;
+
+    private FakeLogsEndpoint() throws IOException {
+        //
+        // Without TCP_NODELAY small responses wait out the peer's delayed ACK, adding ~40ms to each call
+        //
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+    }
+
+    static FakeLogsEndpoint start() throws IOException {
+        final FakeLogsEndpoint endpoint = new FakeLogsEndpoint();
+        endpoint.server.start();
+        return endpoint;
+    }
+
+    URI getEndpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    void setLatency(final Duration latency) {
+        setLatency(fixed(latency));
+    }
+
+    void setLatency(final Supplier<Duration> latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param rate fraction of all requests, between 0 and 1, answered with ThrottlingException
+     */
+    void setThrottlingRate(final double rate) {
+        this.throttlingRate = rate;
+    }
+
+    /**
+     * @param rate fraction of the requests for this operation answered with ThrottlingException,
+     *             overriding the rate for all requests
+     */
+    void setThrottlingRate(final String operation, final double rate) {
+        throttlingRates.put(operation, rate);
+    }
+
+    /**
+     * @param lag how long after a write DescribeLogGroups starts to reflect it, applies to later writes
+     */
+    void setReadAfterWriteLag(final Duration lag) {
+        this.lag = lag;
+    }
+
+    static Supplier<Duration> fixed(final Duration latency) {
+        return () -> latency;
+    }
+
+    static Supplier<Duration> uniform(final Duration min, final Duration max) {
+        return () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(min.toNanos(), max.toNanos() + 1));
+    }
+
+    //
+    // Long tailed like real service latency, half of the requests take less than the median and
+    // one in a hundred more than p99
+    //
+    static Supplier<Duration> logNormal(final Duration median, final Duration p99) {
+        final double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+        return () -> Duration.ofNanos(
+            (long) (median.toNanos() * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+    }
+
+    /**
+     * @return a copy of the latest state of every log group
+     */
+    NavigableMap<String, JSONObject> getLogGroups() {
+        synchronized (logGroups) {
+            return new TreeMap<>(logGroups);
+        }
+    }
+
+    int requests(final String operation) {
+        return count(requests, operation);
+    }
+
+    int throttled(final String operation) {
+        return count(throttled, operation);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+        responder.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+        final String operation = target == null ? "" : target.substring(target.indexOf('.') + 1);
+        requests.computeIfAbsent(operation, ignored -> new AtomicInteger()).incrementAndGet();
+        final JSONObject body = new JSONObject(read(exchange.getRequestBody()));
+
+        Response response;
+        try {
+            if (throttle(operation)) {
+                throttled.computeIfAbsent(operation, ignored -> new AtomicInteger()).incrementAndGet();
+                throw new FaultException(THROTTLING, "Rate exceeded");
+            }
+            response = new Response(200, null, dispatch(target, body));
+        } catch (FaultException e) {
+            response = new Response(400, e.type,
+                new JSONObject().put("__type", e.type).put("message", e.getMessage()));
+        }
+        final Response reply = response;
+        final Duration delay = latency.get();
+        if (delay.isZero() || delay.isNegative()) {
+            send(exchange, reply);
+        } else {
+            responder.schedule(() -> send(exchange, reply), delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean throttle(final String operation) {
+        final double rate = throttlingRates.getOrDefault(operation, throttlingRate);
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private JSONObject dispatch(final String target, final JSONObject body) {
+        final String name = body.optString("logGroupName", null);
+        switch (String.valueOf(target).replace(TARGET_PREFIX, "")) {
+            case "CreateLogGroup":
+                final JSONObject logGroup = new JSONObject()
+                    .put("logGroupName", name)
+                    .put("arn", ARN_PREFIX + name + ":*")
+                    .put("creationTime", System.currentTimeMillis())
+                    .put("metricFilterCount", 0)
+                    .put("storedBytes", 0);
+                synchronized (logGroups) {
+                    if (logGroups.putIfAbsent(name, logGroup) != null) {
+                        throw new FaultException("ResourceAlreadyExistsException", "The specified log group already exists");
+                    }
+                    tags.put(name, body.has("tags") ? body.getJSONObject("tags") : new JSONObject());
+                    publish(name, logGroup);
+                }
+                return new JSONObject();
+            case "DescribeLogGroups":
+                return describe(body);
+            case "PutRetentionPolicy":
+                update(name, group -> group.put("retentionInDays", body.getInt("retentionInDays")));
+                return new JSONObject();
+            case "DeleteRetentionPolicy":
+                update(name, group -> group.remove("retentionInDays"));
+                return new JSONObject();
+            case "AssociateKmsKey":
+                update(name, group -> group.put("kmsKeyId", body.getString("kmsKeyId")));
+                return new JSONObject();
+            case "DisassociateKmsKey":
+                update(name, group -> group.remove("kmsKeyId"));
+                return new JSONObject();
+            case "ListTagsLogGroup":
+                synchronized (logGroups) {
+                    return new JSONObject().put("tags", new JSONObject(tagsOf(name).toString()));
+                }
+            case "TagLogGroup":
+                synchronized (logGroups) {
+                    final JSONObject added = body.getJSONObject("tags");
+                    final JSONObject current = tagsOf(name);
+                    added.keySet().forEach(key -> current.put(key, added.get(key)));
+                }
+                return new JSONObject();
+            case "UntagLogGroup":
+                synchronized (logGroups) {
+                    final JSONObject current = tagsOf(name);
+                    body.getJSONArray("tags").forEach(key -> current.remove(String.valueOf(key)));
+                }
+                return new JSONObject();
+            case "DeleteLogGroup":
+                synchronized (logGroups) {
+                    if (logGroups.remove(name) == null) {
+                        throw notFound();
+                    }
+                    tags.remove(name);
+                    publish(name, null);
+                }
+                return new JSONObject();
+            default:
+                throw new FaultException("UnknownOperationException", "Unsupported operation " + target);
+        }
+    }
+
+    private JSONObject describe(final JSONObject body) {
+        final String prefix = body.optString("logGroupNamePrefix", "");
+        if (body.has("logGroupNamePrefix") && prefix.isEmpty()) {
+            throw new FaultException("InvalidParameterException", "1 validation error detected: Value '' at "
+                + "'logGroupNamePrefix' failed to satisfy constraint: Member must have length greater than or "
+                + "equal to 1");
+        }
+        final int limit = body.optInt("limit", 50);
+        final String from = body.has("nextToken") ? body.getString("nextToken") : prefix;
+        final JSONArray page = new JSONArray();
+        final JSONObject response = new JSONObject();
+        for (final Map.Entry<String, JSONObject> entry : visible.tailMap(from, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (page.length() == limit) {
+                response.put("nextToken", entry.getKey());
+                break;
+            }
+            page.put(entry.getValue());
+        }
+        return response.put("logGroups", page);
+    }
+
+    //
+    // Stored log groups are never modified in place, so describe can serialize them while other
+    // requests update the same log group
+    //
+    private void update(final String name, final Consumer<JSONObject> change) {
+        synchronized (logGroups) {
+            final JSONObject logGroup = logGroups.get(name);
+            if (logGroup == null) {
+                throw notFound();
+            }
+            final JSONObject copy = new JSONObject(logGroup.toString());
+            change.accept(copy);
+            logGroups.put(name, copy);
+            publish(name, copy);
+        }
+    }
+
+    //
+    // Called with the lock held, so that writes to the same log group become visible in the order
+    // they were made. The responder runs tasks due at the same time in submission order.
+    //
+    private void publish(final String name, final JSONObject logGroup) {
+        final Runnable apply = () -> {
+            if (logGroup == null) {
+                visible.remove(name);
+            } else {
+                visible.put(name, logGroup);
+            }
+        };
+        final Duration delay = lag;
+        if (delay.isZero()) {
+            apply.run();
+        } else {
+            responder.schedule(apply, delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static int count(final Map<String, AtomicInteger> counts, final String operation) {
+        final AtomicInteger count = counts.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    private JSONObject tagsOf(final String name) {
+        final JSONObject current = tags.get(name);
+        if (current == null) {
+            throw notFound();
+        }
+        return current;
+    }
+
+    private static FaultException notFound() {
+        return new FaultException("ResourceNotFoundException", "The specified log group does not exist.");
+    }
+
+    private static void send(final HttpExchange exchange, final Response response) {
+        try {
+            final byte[] bytes = response.body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.1");
+            exchange.getResponseHeaders().add("x-amzn-RequestId", UUID.randomUUID().toString());
+            if (response.errorType != null) {
+                exchange.getResponseHeaders().add("x-amzn-ErrorType", response.errorType);
+            }
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+        final String body = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return body.isEmpty() ? "{}" : body;
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String errorType;
+        private final JSONObject body;
+
+        private Response(final int status, final String errorType, final JSONObject body) {
+            this.status = status;
+            this.errorType = errorType;
+            this.body = body;
+        }
+    }
+
+    private static final class FaultException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final String type;
+
+        private FaultException(final String type, final String message) {
+            super(message);
+            this.type = type;
+        }
+    }
+}
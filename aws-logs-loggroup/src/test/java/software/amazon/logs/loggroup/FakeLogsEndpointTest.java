@@ -0,0 +1,154 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
+import software.amazon.cloudformation.LambdaWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FakeLogsEndpointTest {
+    private static final String LOG_GROUP_NAME = "/fake/endpoint";
+
+    private FakeLogsEndpoint endpoint;
+    private CloudWatchLogsClient client;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        endpoint = FakeLogsEndpoint.start();
+        //
+        // No SDK retries, so that every injected fault reaches the test
+        //
+        client = CloudWatchLogsClient.builder()
+            .httpClient(LambdaWrapper.HTTP_CLIENT)
+            .region(Region.US_EAST_1)
+            .endpointOverride(endpoint.getEndpoint())
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("accessKey", "secretKey")))
+            .overrideConfiguration(configuration -> configuration.retryPolicy(RetryPolicy.none()))
+            .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        endpoint.close();
+    }
+
+    @Test
+    public void throttling_PerOperation() {
+        endpoint.setThrottlingRate("CreateLogGroup", 1.0);
+
+        final CloudWatchLogsException e = assertThrows(CloudWatchLogsException.class,
+            () -> client.createLogGroup(request -> request.logGroupName(LOG_GROUP_NAME)));
+
+        assertThat(e.isThrottlingException()).isTrue();
+        assertThat(e.awsErrorDetails().errorCode()).isEqualTo("ThrottlingException");
+        assertThat(client.describeLogGroups(request -> request.logGroupNamePrefix(LOG_GROUP_NAME)).logGroups()).isEmpty();
+        assertThat(endpoint.throttled("CreateLogGroup")).isEqualTo(1);
+        assertThat(endpoint.throttled("DescribeLogGroups")).isEqualTo(0);
+        assertThat(endpoint.getLogGroups()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void tags_FollowCreateTagAndUntag() {
+        client.createLogGroup(request -> request.logGroupName(LOG_GROUP_NAME).tags(Collections.singletonMap("a", "1")));
+        client.tagLogGroup(request -> request.logGroupName(LOG_GROUP_NAME).tags(Collections.singletonMap("b", "2")));
+        client.untagLogGroup(request -> request.logGroupName(LOG_GROUP_NAME).tags("a"));
+
+        assertThat(client.listTagsLogGroup(request -> request.logGroupName(LOG_GROUP_NAME)).tags())
+            .isEqualTo(Collections.singletonMap("b", "2"));
+        assertThrows(ResourceNotFoundException.class,
+            () -> client.listTagsLogGroup(request -> request.logGroupName("/fake/missing")));
+    }
+
+    @Test
+    public void throttling_Rate() {
+        endpoint.setThrottlingRate(0.5);
+
+        int failures = 0;
+        for (int i = 0; i < 200; i++) {
+            try {
+                client.describeLogGroups(request -> request.logGroupNamePrefix(LOG_GROUP_NAME));
+            } catch (CloudWatchLogsException e) {
+                failures++;
+            }
+        }
+
+        assertThat(failures).isBetween(60, 140).isEqualTo(endpoint.throttled("DescribeLogGroups"));
+    }
+
+    @Test
+    public void readAfterWriteLag() throws InterruptedException {
+        endpoint.setReadAfterWriteLag(Duration.ofMillis(300));
+        client.createLogGroup(request -> request.logGroupName(LOG_GROUP_NAME));
+
+        assertThat(describe()).isEmpty();
+        assertThrows(ResourceAlreadyExistsException.class,
+            () -> client.createLogGroup(request -> request.logGroupName(LOG_GROUP_NAME)));
+        assertThat(endpoint.getLogGroups()).containsOnlyKeys(LOG_GROUP_NAME);
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (describe().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(describe()).extracting(LogGroup::logGroupName).containsExactly(LOG_GROUP_NAME);
+
+        client.deleteLogGroup(request -> request.logGroupName(LOG_GROUP_NAME));
+        assertThat(describe()).hasSize(1);
+        assertThat(endpoint.getLogGroups()).isEmpty();
+    }
+
+    @Test
+    public void latency_Uniform() {
+        final Supplier<Duration> latency = FakeLogsEndpoint.uniform(Duration.ofMillis(10), Duration.ofMillis(20));
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(latency.get()).isBetween(Duration.ofMillis(10), Duration.ofMillis(20));
+        }
+    }
+
+    @Test
+    public void latency_LogNormal() {
+        final Supplier<Duration> latency = FakeLogsEndpoint.logNormal(Duration.ofMillis(20), Duration.ofMillis(200));
+        final List<Duration> samples = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            samples.add(latency.get());
+        }
+        Collections.sort(samples);
+
+        assertThat(samples.get(5000).toMillis()).isBetween(18L, 22L);
+        assertThat(samples.get(9900).toMillis()).isBetween(150L, 270L);
+    }
+
+    @Test
+    public void latency_DelaysResponses() {
+        endpoint.setLatency(Duration.ofMillis(200));
+
+        final long start = System.nanoTime();
+        client.describeLogGroups(request -> request.logGroupNamePrefix(LOG_GROUP_NAME));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+    }
+
+    private List<LogGroup> describe() {
+        return client.describeLogGroups(request -> request.logGroupNamePrefix(LOG_GROUP_NAME)).logGroups();
+    }
+}
@@ -0,0 +1,159 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HedgeTest {
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void call_DisabledRunsOnCallingThread() {
+        final Thread caller = Thread.currentThread();
+
+        assertThat(Hedge.disabled().call(() -> Thread.currentThread() == caller)).isTrue();
+        assertThat(Hedge.disabled().isEnabled()).isFalse();
+    }
+
+    @Test
+    public void configured_IgnoresValuesThatDoNotParse() {
+        assertThat(Hedge.configured(properties("p99", null)).isEnabled()).isTrue();
+        assertThat(Hedge.configured(properties("p99", "often")).isEnabled()).isTrue();
+        assertThat(Hedge.configured(properties("fast", null)).isEnabled()).isFalse();
+        assertThat(Hedge.configured(properties("100", null)).isEnabled()).isFalse();
+        assertThat(Hedge.configured(properties("off", null)).isEnabled()).isFalse();
+        assertThat(Hedge.configured(new Properties()).isEnabled()).isFalse();
+    }
+
+    @Test
+    public void call_NotHedgedUntilEnoughLatencies() {
+        final Hedge hedge = new Hedge(95, 1.0, pool);
+        for (int i = 0; i < Hedge.MIN_SAMPLES - 1; i++) {
+            assertThat(hedge.call(() -> "answer")).isEqualTo("answer");
+        }
+        assertThat(hedge.delay()).isEqualTo(-1L);
+
+        hedge.record(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertThat(hedge.delay()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(hedge.hedged()).isEqualTo(0);
+    }
+
+    @Test
+    public void call_SlowAttemptHedgedAndHedgeWins() {
+        final Hedge hedge = warm(new Hedge(95, 1.0, pool));
+
+        final String answer = hedge.call(() -> attempts.incrementAndGet() == 1 ? slow("primary") : "hedge");
+
+        assertThat(answer).isEqualTo("hedge");
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(hedge.hedged()).isEqualTo(1);
+        assertThat(hedge.won()).isEqualTo(1);
+        assertThat(hedge.summary()).startsWith("Hedged 1 of 1 call(s) at p95.0, 1 won");
+    }
+
+    @Test
+    public void call_NoHedgeOnceBudgetIsSpent() {
+        final Hedge hedge = warm(new Hedge(95, 0.5, pool));
+
+        //
+        // Half a hedge per call, the first slow call has to wait for its own answer
+        //
+        assertThat(hedge.call(() -> sleep(50, "primary-" + attempts.incrementAndGet()))).isEqualTo("primary-1");
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(hedge.hedged()).isEqualTo(0);
+
+        hedge.call(() -> attempts.incrementAndGet() == 2 ? slow("primary") : "hedge");
+        assertThat(hedge.hedged()).isEqualTo(1);
+    }
+
+    @Test
+    public void call_FailsOnlyWhenEveryAttemptFails() {
+        final Hedge hedge = warm(new Hedge(95, 1.0, pool));
+
+        assertThat(hedge.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(50, null);
+                throw CloudWatchLogsException.builder().statusCode(500).message("InternalFailure").build();
+            }
+            return sleep(100, "hedge");
+        })).isEqualTo("hedge");
+
+        attempts.set(0);
+        assertThrows(CloudWatchLogsException.class, () -> hedge.call(() -> {
+            sleep(attempts.incrementAndGet() * 20L, null);
+            throw CloudWatchLogsException.builder().statusCode(500).message("InternalFailure").build();
+        }));
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void call_FastFailureIsNotHedged() {
+        final Hedge hedge = new Hedge(95, 1.0, pool);
+        for (int i = 0; i < Hedge.MIN_SAMPLES; i++) {
+            hedge.record(TimeUnit.SECONDS.toNanos(5));
+        }
+
+        assertThrows(CloudWatchLogsException.class, () -> hedge.call(() -> {
+            attempts.incrementAndGet();
+            throw CloudWatchLogsException.builder().statusCode(400).message("InvalidParameter").build();
+        }));
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(hedge.hedged()).isEqualTo(0);
+    }
+
+    //
+    // A p95 of one millisecond, anything slower is hedged
+    //
+    private static Hedge warm(final Hedge hedge) {
+        for (int i = 0; i < Hedge.MIN_SAMPLES; i++) {
+            hedge.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return hedge;
+    }
+
+    private String slow(final String answer) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return answer;
+    }
+
+    private static String sleep(final long millis, final String answer) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return answer;
+    }
+
+    private static Properties properties(final String percentile, final String budget) {
+        final Properties properties = new Properties();
+        properties.setProperty(Hedge.PROPERTY, percentile);
+        if (budget != null) {
+            properties.setProperty(Hedge.BUDGET_PROPERTY, budget);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,42 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JitteredBackoffTest {
+
+    @Test
+    public void nextDelay_GrowsWithinJitterBoundsUpToCap() {
+        final JitteredBackoff backoff = new JitteredBackoff(
+            Duration.ofSeconds(2), Duration.ofSeconds(16), Duration.ofHours(1), new Random(7));
+
+        assertThat(backoff.nextDelay(1)).isBetween(Duration.ofSeconds(1), Duration.ofSeconds(2));
+        assertThat(backoff.nextDelay(2)).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(4));
+        assertThat(backoff.nextDelay(3)).isBetween(Duration.ofSeconds(4), Duration.ofSeconds(8));
+        assertThat(backoff.nextDelay(4)).isBetween(Duration.ofSeconds(8), Duration.ofSeconds(16));
+        assertThat(backoff.nextDelay(40)).isBetween(Duration.ofSeconds(8), Duration.ofSeconds(16));
+    }
+
+    @Test
+    public void nextDelay_NeverBelowOneSecond() {
+        final JitteredBackoff backoff = new JitteredBackoff(
+            Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofHours(1), new Random(7));
+
+        assertThat(backoff.nextDelay(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(backoff.nextDelay(5)).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void nextDelay_ZeroOnceTimeoutExceeded() {
+        final JitteredBackoff backoff = new JitteredBackoff(
+            Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(2), new Random(7));
+
+        assertThat(backoff.nextDelay(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(backoff.nextDelay(2)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(backoff.nextDelay(3)).isEqualTo(Duration.ZERO);
+    }
+}
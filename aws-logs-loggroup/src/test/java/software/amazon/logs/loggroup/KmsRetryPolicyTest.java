@@ -0,0 +1,134 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.RetryableException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InvalidParameterException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KmsRetryPolicyTest {
+    private final List<String> logged = new ArrayList<>();
+
+    @Test
+    public void classify_TellsPropagationFromKeysThatCantBeUsed() {
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "AccessDeniedException",
+            "User is not authorized to use the key"))).isEqualTo(KmsRetryPolicy.Classification.PROPAGATING);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "ThrottlingException",
+            "Rate exceeded"))).isEqualTo(KmsRetryPolicy.Classification.THROTTLED);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "AccessDeniedException",
+            "The specified KMS Key Id could not be found"))).isEqualTo(KmsRetryPolicy.Classification.KEY_NOT_FOUND);
+        assertThat(KmsRetryPolicy.classify(error(InvalidParameterException.builder(), 400, "InvalidParameterException",
+            "The KMS key is disabled"))).isEqualTo(KmsRetryPolicy.Classification.KEY_UNUSABLE);
+        assertThat(KmsRetryPolicy.classify(error(InvalidParameterException.builder(), 400, "InvalidParameterException",
+            "The KMS key is pending deletion"))).isEqualTo(KmsRetryPolicy.Classification.KEY_UNUSABLE);
+        assertThat(KmsRetryPolicy.classify(error(InvalidParameterException.builder(), 400, "InvalidParameterException",
+            "Invalid log group name"))).isEqualTo(KmsRetryPolicy.Classification.OTHER);
+        assertThat(KmsRetryPolicy.classify(new IllegalStateException())).isEqualTo(KmsRetryPolicy.Classification.OTHER);
+    }
+
+    @Test
+    public void classify_GoesByErrorCodeBeforeMessage() {
+        assertThat(KmsRetryPolicy.classify(error(ResourceNotFoundException.builder(), 400, "ResourceNotFoundException",
+            "The specified log group does not exist."))).isEqualTo(KmsRetryPolicy.Classification.OTHER);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "NotFoundException",
+            "Invalid keyId"))).isEqualTo(KmsRetryPolicy.Classification.KEY_NOT_FOUND);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "KMSInvalidStateException",
+            "arn:aws:kms:us-east-1:123456789012:key/a is pending import"))).isEqualTo(
+            KmsRetryPolicy.Classification.KEY_UNUSABLE);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "TooManyRequestsException",
+            "Slow down"))).isEqualTo(KmsRetryPolicy.Classification.THROTTLED);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "LimitExceededException",
+            "Resource limit exceeded"))).isEqualTo(KmsRetryPolicy.Classification.OTHER);
+        assertThat(KmsRetryPolicy.classify(error(CloudWatchLogsException.builder(), 400, "OperationAbortedException",
+            "The key is disabled while another operation is in progress"))).isEqualTo(
+            KmsRetryPolicy.Classification.OTHER);
+    }
+
+    @Test
+    public void handle_RetriesPropagationUntilBudgetIsSpent() {
+        final KmsRetryPolicy policy = new KmsRetryPolicy(attempt -> Duration.ofSeconds(attempt),
+            Duration.ofSeconds(3), logged::add, new CallbackContext());
+        final Exception denied = error(CloudWatchLogsException.builder(), 400, "AccessDeniedException", "Not authorized");
+
+        assertThrows(RetryableException.class, () -> policy.handle(denied));
+        assertThat(policy.nextDelay(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThrows(RetryableException.class, () -> policy.handle(denied));
+        assertThat(policy.nextDelay(2)).isEqualTo(Duration.ofSeconds(2));
+
+        assertThat(assertThrows(CloudWatchLogsException.class, () -> policy.handle(denied))).isSameAs(denied);
+    }
+
+    @Test
+    public void handle_BudgetCoversEarlierInvocations() {
+        final CallbackContext context = new CallbackContext();
+        context.setKmsKeyFirstAttemptAt(System.currentTimeMillis() - KmsRetryPolicy.BUDGET.toMillis());
+        final KmsRetryPolicy policy = KmsRetryPolicy.withDefaults(logged::add, context);
+        final Exception denied = error(CloudWatchLogsException.builder(), 400, "AccessDeniedException", "Not authorized");
+
+        assertThat(assertThrows(CloudWatchLogsException.class, () -> policy.handle(denied))).isSameAs(denied);
+    }
+
+    @Test
+    public void handle_RecordsFirstAttemptOnce() {
+        final CallbackContext context = new CallbackContext();
+        KmsRetryPolicy.withDefaults(logged::add, context);
+        final Long firstAttemptAt = context.getKmsKeyFirstAttemptAt();
+
+        KmsRetryPolicy.withDefaults(logged::add, context);
+
+        assertThat(firstAttemptAt).isNotNull();
+        assertThat(context.getKmsKeyFirstAttemptAt()).isEqualTo(firstAttemptAt);
+    }
+
+    @Test
+    public void handle_FailsAtOnceOnDisabledKey() {
+        final KmsRetryPolicy policy = KmsRetryPolicy.withDefaults(logged::add, new CallbackContext());
+        final Exception disabled = error(InvalidParameterException.builder(), 400, "InvalidParameterException",
+            "The KMS key is disabled");
+
+        assertThat(assertThrows(InvalidParameterException.class, () -> policy.handle(disabled))).isSameAs(disabled);
+    }
+
+    @Test
+    public void handle_RecordsTimePerClassification() {
+        final KmsRetryPolicy policy = new KmsRetryPolicy(attempt -> Duration.ofSeconds(2),
+            Duration.ofSeconds(10), logged::add, new CallbackContext());
+        final Exception denied = error(CloudWatchLogsException.builder(), 400, "AccessDeniedException", "Not authorized");
+
+        new StepMetrics(logged::add, "Create").step(Util.ASSOCIATE_KMS_KEY, () -> {
+            for (int i = 1; i <= 2; i++) {
+                policy.attempt(() -> null);
+                assertThrows(RetryableException.class, () -> policy.handle(denied));
+                policy.nextDelay(i);
+            }
+            return ProgressEvent.success(null, new CallbackContext());
+        });
+
+        final JSONObject document = new JSONObject(logged.get(logged.size() - 1));
+        assertThat(document.getString("CallChain")).isEqualTo(Util.ASSOCIATE_KMS_KEY);
+        assertThat(document.getString("Classification")).isEqualTo("PROPAGATING");
+        assertThat(document.getInt("ClassifiedErrors")).isEqualTo(2);
+        assertThat(document.getLong("ClassifiedTime")).isGreaterThanOrEqualTo(4000L);
+    }
+
+    private static <E extends CloudWatchLogsException> E error(final CloudWatchLogsException.Builder builder,
+                                                              final int status,
+                                                              final String code,
+                                                              final String message) {
+        @SuppressWarnings("unchecked")
+        final E exception = (E) builder.statusCode(status).message(message)
+            .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).errorMessage(message).build())
+            .build();
+        return exception;
+    }
+}
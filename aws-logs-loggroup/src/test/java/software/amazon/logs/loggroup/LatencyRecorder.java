@@ -0,0 +1,77 @@
+package software.amazon.logs.loggroup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latency samples under a name from many threads and reports count, throughput and the
+ * p50, p95 and p99 of every name. Samples are kept rather than bucketed, a load run records a few
+ * hundred thousand at most.
+ */
+final class LatencyRecorder {
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    void record(final String name, final long nanos) {
+        samples.computeIfAbsent(name, ignored -> new Samples()).add(nanos);
+    }
+
+    int count(final String name) {
+        final Samples recorded = samples.get(name);
+        return recorded == null ? 0 : recorded.snapshot().length;
+    }
+
+    /**
+     * @return the q quantile, 0 < q <= 1, of the samples recorded under name, in milliseconds
+     */
+    double percentile(final String name, final double q) {
+        final long[] sorted = samples.get(name).snapshot();
+        Arrays.sort(sorted);
+        return percentile(sorted, q);
+    }
+
+    /**
+     * @param elapsedNanos wall clock time of the run, to compute throughput from
+     */
+    String report(final long elapsedNanos) {
+        final StringBuilder report = new StringBuilder(String.format("%-56s %8s %10s %10s %10s %10s%n",
+            "name", "count", "ops/s", "p50 ms", "p95 ms", "p99 ms"));
+        final double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        new TreeMap<>(samples).forEach((name, recorded) -> {
+            final long[] sorted = recorded.snapshot();
+            Arrays.sort(sorted);
+            report.append(String.format("%-56s %8d %10.1f %10.2f %10.2f %10.2f%n", name, sorted.length,
+                sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99)));
+        });
+        return report.toString();
+    }
+
+    //
+    // Nearest rank
+    //
+    private static double percentile(final long[] sorted, final double q) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        final int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(final long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
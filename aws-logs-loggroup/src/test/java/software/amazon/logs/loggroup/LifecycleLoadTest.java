@@ -0,0 +1,199 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.Delay;
+import software.amazon.cloudformation.proxy.DelayFactory;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the simple_normal steps of CRUDLifecycleTest, create, update, updateFail, read and delete,
+ * for thousands of log groups concurrently against FakeLogsEndpoint, and reports throughput and
+ * p50/p95/p99 latency for every handler and every call chain the handlers make.
+ *
+ * mvn test -Dtest=LifecycleLoadTest -Dloadtest=true
+ *
+ * Tuned through system properties: loadtest.lifecycles (2000), loadtest.concurrency (64),
+ * loadtest.medianMillis and loadtest.p99Millis of the service latency (0, no latency),
+ * loadtest.throttlingRate (0), loadtest.lagMillis of read-after-write lag (0) and
+ * loadtest.rateLimit, the client side requests per second per API (0, not limited).
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LifecycleLoadTest {
+    //
+    // <service>:<Request>-<chain name given to initiate, empty if none>-<request hash, can be negative>
+    //
+    private static final Pattern CALL_GRAPH = Pattern.compile("^([^:]*:[^-]*)-(.*?)-(-?\\d+)$");
+
+    private final int lifecycles = Integer.getInteger("loadtest.lifecycles", 2000);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final ChainTimer chains = new ChainTimer();
+    private final AtomicInteger names = new AtomicInteger();
+    private final LoggerProxy logger = new LoggerProxy() {
+        @Override
+        public void log(final String message) {
+        }
+    };
+    private FakeLogsEndpoint endpoint;
+    private AmazonWebServicesClientProxy proxy;
+
+    @BeforeAll
+    public void setup() throws IOException {
+        endpoint = FakeLogsEndpoint.start();
+        final long median = Long.getLong("loadtest.medianMillis", 0);
+        if (median > 0) {
+            endpoint.setLatency(FakeLogsEndpoint.logNormal(Duration.ofMillis(median),
+                Duration.ofMillis(Long.getLong("loadtest.p99Millis", median * 5))));
+        }
+        endpoint.setThrottlingRate(Double.parseDouble(System.getProperty("loadtest.throttlingRate", "0")));
+        endpoint.setReadAfterWriteLag(Duration.ofMillis(Long.getLong("loadtest.lagMillis", 0)));
+        RateLimiter.shared().setDefaultRate(Double.parseDouble(System.getProperty("loadtest.rateLimit", "0")));
+        if (System.getProperty("aws.region") == null) {
+            System.setProperty("aws.region", "us-east-1");
+        }
+        System.setProperty(ClientBuilder.ENDPOINT_PROPERTY, endpoint.getEndpoint().toString());
+        proxy = new AmazonWebServicesClientProxy(logger, new Credentials("accessKey", "secretKey", "token"),
+            () -> TimeUnit.MINUTES.toMillis(15), chains);
+    }
+
+    @AfterAll
+    public void tearDown() {
+        endpoint.close();
+        System.clearProperty(ClientBuilder.ENDPOINT_PROPERTY);
+        RateLimiter.shared().reset();
+    }
+
+    @Test
+    public void concurrentLifecycles() throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        final List<Future<?>> runs = new ArrayList<>(lifecycles);
+        final long start = System.nanoTime();
+        try {
+            for (int i = 0; i < lifecycles; i++) {
+                runs.add(pool.submit(this::lifecycle));
+            }
+            for (final Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%d lifecycles, %d concurrent, in %.1f s, %.1f lifecycles/s%n%s",
+            lifecycles, concurrency, elapsed / 1e9, lifecycles / (elapsed / 1e9), recorder.report(elapsed)));
+        assertThat(recorder.count("handler:Delete")).isEqualTo(lifecycles);
+        assertThat(endpoint.getLogGroups()).isEmpty();
+    }
+
+    private void lifecycle() {
+        final String logGroupName = "load-test-" + names.incrementAndGet();
+        final ResourceModel created = ResourceModel.builder().logGroupName(logGroupName).build();
+        final ResourceModel updated = ResourceModel.builder().logGroupName(logGroupName).retentionInDays(7).build();
+        final ResourceModel invalid = ResourceModel.builder().logGroupName(logGroupName).retentionInDays(10).build();
+
+        expect(OperationStatus.SUCCESS, "Create", () -> new CreateHandler().handleRequest(
+            proxy, request(created, null), null, logger));
+        expect(OperationStatus.SUCCESS, "Update", () -> new UpdateHandler().handleRequest(
+            proxy, request(updated, created), null, logger));
+        expect(OperationStatus.FAILED, "UpdateFail", () -> new UpdateHandler().handleRequest(
+            proxy, request(invalid, updated), null, logger));
+        expect(OperationStatus.SUCCESS, "Read", () -> new ReadHandler().handleRequest(
+            proxy, request(updated, null), null, logger));
+        expect(OperationStatus.SUCCESS, "Delete", () -> new DeleteHandler().handleRequest(
+            proxy, request(updated, null), null, logger));
+    }
+
+    //
+    // Handlers report some failures by throwing, the wrapper turns those into FAILED events
+    //
+    private void expect(final OperationStatus expected,
+                        final String handler,
+                        final Supplier<ProgressEvent<ResourceModel, CallbackContext>> invoke) {
+        final long start = System.nanoTime();
+        OperationStatus status;
+        String message;
+        try {
+            final ProgressEvent<ResourceModel, CallbackContext> event = invoke.get();
+            status = event.getStatus();
+            message = event.getMessage();
+        } catch (RuntimeException e) {
+            status = OperationStatus.FAILED;
+            message = e.getMessage();
+        } finally {
+            chains.close();
+        }
+        recorder.record("handler:" + handler, System.nanoTime() - start);
+        if (status != expected) {
+            throw new IllegalStateException(handler + " returned " + status + ", expected " + expected + ": " + message);
+        }
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel desired,
+                                                                 final ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(desired)
+            .previousResourceState(previous)
+            .build();
+    }
+
+    /**
+     * The proxy asks for the delay of every call chain once, on the handler's thread, right before
+     * running it. A chain is timed from there until the next chain starts on the same thread or
+     * the handler returns.
+     */
+    private final class ChainTimer implements DelayFactory {
+        private final ThreadLocal<String> chain = new ThreadLocal<>();
+        private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+        @Override
+        public Delay getDelay(final String apiCall, final Delay provided) {
+            close();
+            chain.set(name(apiCall));
+            started.set(System.nanoTime());
+            return provided;
+        }
+
+        void close() {
+            final String name = chain.get();
+            if (name != null) {
+                recorder.record("chain:" + name, System.nanoTime() - started.get());
+                chain.remove();
+                started.remove();
+            }
+        }
+
+        private String name(final String apiCall) {
+            final Matcher matcher = CALL_GRAPH.matcher(apiCall);
+            if (!matcher.matches()) {
+                return apiCall;
+            }
+            return matcher.group(2).isEmpty() ? matcher.group(1) : matcher.group(2);
+        }
+    }
+}
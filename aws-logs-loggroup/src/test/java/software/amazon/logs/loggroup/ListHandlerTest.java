@@ -11,14 +11,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InvalidParameterException;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 public class ListHandlerTest {
@@ -85,4 +92,53 @@ public class ListHandlerTest {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
     }
+
+    @Test
+    public void handleRequest_Sharded() {
+        final LogGroup logGroup = LogGroup.builder()
+                .logGroupName("LogGroup")
+                .retentionInDays(1)
+                .build();
+        final DescribeLogGroupsResponse describeResponse = DescribeLogGroupsResponse.builder()
+                .logGroups(Collections.singletonList(logGroup))
+                .nextToken("token2")
+                .build();
+
+        //
+        // The service rejects an empty prefix
+        //
+        doAnswer(invocation -> {
+            if ("".equals(invocation.<DescribeLogGroupsRequest>getArgument(0).logGroupNamePrefix())) {
+                throw InvalidParameterException.builder().build();
+            }
+            return describeResponse;
+        })
+            .when(proxy)
+            .injectCredentialsAndInvokeV2(
+                ArgumentMatchers.any(),
+                ArgumentMatchers.any()
+            );
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            new ListHandler(true).handleRequest(proxy, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels()).containsExactly(ResourceModel.builder()
+                .logGroupName("LogGroup")
+                .retentionInDays(1)
+                .build());
+        final ShardedListing.State state = ShardedListing.decode(response.getNextToken());
+        assertThat(state.getShards()).containsOnly(entry("LogGroup", new ShardedListing.Cursor(null, "LogGroup")));
+        assertThat(state.getNext()).isEqualTo("LogGrouq");
+        verify(proxy, times(1))
+            .injectCredentialsAndInvokeV2(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        // resuming with a sharded token stays sharded even on the default handler
+        final ProgressEvent<ResourceModel, CallbackContext> resumed = handler.handleRequest(proxy,
+            ResourceHandlerRequest.<ResourceModel>builder().nextToken(response.getNextToken()).build(), null, logger);
+        assertThat(resumed.getNextToken()).startsWith(ShardedListing.TOKEN_PREFIX);
+    }
 }
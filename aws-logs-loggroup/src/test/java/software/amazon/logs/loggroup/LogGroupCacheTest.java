@@ -0,0 +1,98 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LogGroupCacheTest {
+    private static final LogGroupCache.Key KEY = LogGroupCache.Key.of("123456789012", "us-east-1", "LogGroup");
+    private static final LogGroupCache.Key OTHER_REGION = LogGroupCache.Key.of("123456789012", "us-west-2", "LogGroup");
+    private static final LogGroup LOG_GROUP = LogGroup.builder().logGroupName("LogGroup").retentionInDays(7).build();
+
+    private final AtomicLong now = new AtomicLong();
+    private final LogGroupCache cache = new LogGroupCache(Duration.ofSeconds(15), 2, now::get);
+
+    @Test
+    public void get_HitUntilExpired() {
+        assertThat(cache.get(KEY)).isNull();
+        cache.put(KEY, LOG_GROUP, cache.generation(KEY.getLogGroupName()));
+
+        now.addAndGet(Duration.ofSeconds(14).toNanos());
+        assertThat(cache.get(KEY)).isEqualTo(LOG_GROUP);
+        assertThat(cache.get(OTHER_REGION)).isNull();
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.get(KEY)).isNull();
+
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void put_EvictsLeastRecentlyUsed() {
+        final LogGroupCache.Key third = LogGroupCache.Key.of("123456789012", "us-east-1", "Third");
+        cache.put(KEY, LOG_GROUP, cache.generation(KEY.getLogGroupName()));
+        cache.put(OTHER_REGION, LOG_GROUP, cache.generation(OTHER_REGION.getLogGroupName()));
+        cache.get(KEY);
+        cache.put(third, LOG_GROUP, cache.generation(third.getLogGroupName()));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(KEY)).isNotNull();
+        assertThat(cache.get(OTHER_REGION)).isNull();
+    }
+
+    @Test
+    public void put_DroppedWhenInvalidatedSinceGeneration() {
+        final long generation = cache.generation("LogGroup");
+        cache.invalidate("LogGroup");
+
+        cache.put(KEY, LOG_GROUP, generation);
+        assertThat(cache.get(KEY)).isNull();
+
+        cache.put(KEY, LOG_GROUP, cache.generation("LogGroup"));
+        cache.invalidate("LogGroup");
+        cache.put(KEY, LOG_GROUP, generation + 1);
+        assertThat(cache.get(KEY)).isNull();
+    }
+
+    @Test
+    public void putTags_DroppedWhenInvalidatedSinceGeneration() {
+        final long generation = cache.generation("LogGroup");
+        cache.put(KEY, LOG_GROUP, generation);
+        cache.putTags(KEY, Collections.singletonMap("team", "logs"), generation);
+        assertThat(cache.tags(KEY)).containsEntry("team", "logs");
+
+        final long listedAt = cache.generation("LogGroup");
+        cache.invalidate("LogGroup");
+        cache.put(KEY, LOG_GROUP, cache.generation("LogGroup"));
+        cache.putTags(KEY, Collections.singletonMap("team", "stale"), listedAt);
+
+        assertThat(cache.get(KEY)).isNotNull();
+        assertThat(cache.tags(KEY)).isNull();
+    }
+
+    @Test
+    public void invalidating_DropsNameInEveryRegionEvenWhenCallFails() {
+        cache.put(KEY, LOG_GROUP, cache.generation(KEY.getLogGroupName()));
+        cache.put(OTHER_REGION, LOG_GROUP, cache.generation(OTHER_REGION.getLogGroupName()));
+
+        assertThat(cache.invalidating("LogGroup", () -> {
+            cache.put(KEY, LOG_GROUP, cache.generation(KEY.getLogGroupName()));
+            return "done";
+        })).isEqualTo("done");
+        assertThat(cache.size()).isEqualTo(0);
+
+        cache.put(KEY, LOG_GROUP, cache.generation(KEY.getLogGroupName()));
+        assertThrows(IllegalStateException.class, () -> cache.invalidating("LogGroup", () -> {
+            cache.put(KEY, LOG_GROUP, cache.generation(KEY.getLogGroupName()));
+            throw new IllegalStateException();
+        }));
+        assertThat(cache.get(KEY)).isNull();
+    }
+}
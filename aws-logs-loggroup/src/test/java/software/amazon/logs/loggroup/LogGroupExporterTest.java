@@ -0,0 +1,173 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LogGroupExporterTest {
+    private static final Executor DIRECT = Runnable::run;
+
+    @TempDir
+    Path directory;
+
+    private final NavigableMap<String, LogGroup> logGroups = new TreeMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void export_EveryAttributeOfEveryLogGroup() throws IOException {
+        create(120);
+        logGroups.put("plain", LogGroup.builder().logGroupName("plain").build());
+        final Path file = directory.resolve("inventory.ndjson");
+
+        assertThat(new LogGroupExporter(describe(), DIRECT, 1).export(file, null)).isEqualTo(121);
+
+        final List<JSONObject> lines = read(file);
+        assertThat(lines).hasSize(121);
+        assertThat(calls.get()).isEqualTo(3);
+        final JSONObject first = lines.get(0);
+        assertThat(first.getString("logGroupName")).isEqualTo("/aws/lambda/fn-\"0000\"");
+        assertThat(first.getString("arn")).isEqualTo("arn:aws:logs:us-east-1:123456789012:log-group:fn-0");
+        assertThat(first.getLong("creationTime")).isEqualTo(1_600_000_000_000L);
+        assertThat(first.getInt("retentionInDays")).isEqualTo(7);
+        assertThat(first.getInt("metricFilterCount")).isEqualTo(2);
+        assertThat(first.getLong("storedBytes")).isEqualTo(1L << 40);
+        assertThat(first.getString("kmsKeyId")).isEqualTo("key-0");
+        assertThat(lines.get(120).keySet()).containsExactly("logGroupName");
+        assertThat(Files.exists(checkpoint(file))).isFalse();
+    }
+
+    @Test
+    public void export_Compressed() throws IOException {
+        create(120);
+        final Path plain = directory.resolve("inventory.ndjson");
+        final Path compressed = directory.resolve("inventory.ndjson.gz");
+
+        new LogGroupExporter(describe(), DIRECT, 1).export(plain, "/aws/");
+        new LogGroupExporter(describe(), DIRECT, 1).export(compressed, "/aws/");
+
+        assertThat(Files.size(compressed)).isLessThan(Files.size(plain));
+        assertThat(lines(compressed)).isEqualTo(lines(plain));
+    }
+
+    @Test
+    public void export_ResumesFromCheckpointWithoutDuplicates() throws IOException {
+        create(250);
+        final Path file = directory.resolve("inventory.ndjson.gz");
+        final Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe = describe();
+
+        assertThrows(CloudWatchLogsException.class, () -> new LogGroupExporter(request -> {
+            if (calls.get() == 3) {
+                throw CloudWatchLogsException.builder().statusCode(500).message("InternalFailure").build();
+            }
+            return describe.apply(request);
+        }, DIRECT, 2).export(file, "/aws/"));
+        assertThat(Files.exists(checkpoint(file))).isTrue();
+
+        calls.set(0);
+        assertThat(new LogGroupExporter(describe, DIRECT, 2).export(file, "/aws/")).isEqualTo(250);
+
+        //
+        // The first two pages were checkpointed, the third was written but not, so it is read again
+        //
+        assertThat(calls.get()).isEqualTo(3);
+        final List<String> names = lines(file).stream()
+            .map(line -> new JSONObject(line).getString("logGroupName"))
+            .collect(Collectors.toList());
+        assertThat(names).hasSize(250).doesNotHaveDuplicates().isSorted();
+        assertThat(Files.exists(checkpoint(file))).isFalse();
+    }
+
+    @Test
+    public void export_CheckpointOfAnotherPrefixIsRejected() throws IOException {
+        create(120);
+        final Path file = directory.resolve("inventory.ndjson");
+        Files.write(checkpoint(file), "{\"nextToken\":\"t\",\"exported\":50,\"length\":10,\"prefix\":\"/aws/ecs/\"}"
+            .getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new LogGroupExporter(describe(), DIRECT, 1).export(file, "/aws/"));
+        assertThat(calls.get()).isEqualTo(0);
+    }
+
+    private void create(final int count) {
+        for (int i = 0; i < count; i++) {
+            final String name = String.format("/aws/lambda/fn-\"%04d\"", i);
+            logGroups.put(name, LogGroup.builder()
+                .logGroupName(name)
+                .arn("arn:aws:logs:us-east-1:123456789012:log-group:fn-" + i)
+                .creationTime(1_600_000_000_000L + i)
+                .retentionInDays(7)
+                .metricFilterCount(2)
+                .storedBytes(1L << 40)
+                .kmsKeyId("key-" + i)
+                .build());
+        }
+    }
+
+    private static Path checkpoint(final Path file) {
+        return file.resolveSibling(file.getFileName() + LogGroupExporter.CHECKPOINT_SUFFIX);
+    }
+
+    private static List<JSONObject> read(final Path file) throws IOException {
+        return lines(file).stream().map(JSONObject::new).collect(Collectors.toList());
+    }
+
+    private static List<String> lines(final Path file) throws IOException {
+        try (InputStream in = file.toString().endsWith(".gz")
+            ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    //
+    // Pages of 50 in name order, the token is the last name of the previous page
+    //
+    private Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> describe() {
+        return request -> {
+            calls.incrementAndGet();
+            final String prefix = request.logGroupNamePrefix() == null ? "" : request.logGroupNamePrefix();
+            final NavigableMap<String, LogGroup> range = request.nextToken() == null
+                ? logGroups.tailMap(prefix, true)
+                : logGroups.tailMap(request.nextToken(), false);
+            final List<LogGroup> page = new ArrayList<>();
+            String last = null;
+            for (final LogGroup logGroup : range.values()) {
+                if (!logGroup.logGroupName().startsWith(prefix) || page.size() == request.limit()) {
+                    break;
+                }
+                page.add(logGroup);
+                last = logGroup.logGroupName();
+            }
+            final String higher = last == null ? null : logGroups.higherKey(last);
+            return DescribeLogGroupsResponse.builder()
+                .logGroups(page)
+                .nextToken(higher != null && higher.startsWith(prefix) ? last : null)
+                .build();
+        };
+    }
+}
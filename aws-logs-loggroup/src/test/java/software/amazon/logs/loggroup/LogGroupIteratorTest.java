@@ -0,0 +1,75 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LogGroupIteratorTest {
+    //
+    // Runs the prefetch on the calling thread, so a page is fetched the moment the one before it arrives
+    //
+    private static final Executor DIRECT = Runnable::run;
+
+    private final List<DescribeLogGroupsRequest> requests = new ArrayList<>();
+
+    @Test
+    public void iterator_FetchesNextPageBeforeCurrentIsConsumed() {
+        final LogGroupIterator iterator = new LogGroupIterator(pages(3), DIRECT, "/aws/");
+
+        assertThat(iterator.next().getLogGroupName()).isEqualTo("page-0-0");
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(0).nextToken()).isNull();
+        assertThat(requests.get(0).logGroupNamePrefix()).isEqualTo("/aws/");
+        assertThat(requests.get(1).nextToken()).isEqualTo("token-1");
+    }
+
+    @Test
+    public void stream_WalksEveryPageInOrder() {
+        try (Stream<ResourceModel> models = LogGroupIterator.stream(new LogGroupIterator(pages(3), DIRECT, null))) {
+            assertThat(models.map(ResourceModel::getLogGroupName).collect(Collectors.toList())).containsExactly(
+                "page-0-0", "page-0-1", "page-1-0", "page-1-1", "page-2-0", "page-2-1");
+        }
+        assertThat(requests).hasSize(3);
+    }
+
+    @Test
+    public void stream_StopsFetchingOnEarlyTermination() {
+        try (Stream<ResourceModel> models = LogGroupIterator.stream(new LogGroupIterator(pages(100), DIRECT, null))) {
+            assertThat(models.limit(3).count()).isEqualTo(3);
+        }
+        assertThat(requests).hasSize(3);
+    }
+
+    @Test
+    public void iterator_PageFailureSurfacesToConsumer() {
+        final LogGroupIterator iterator = new LogGroupIterator(request -> {
+            throw CloudWatchLogsException.builder().message("Rate exceeded").build();
+        }, DIRECT, null);
+
+        assertThrows(CloudWatchLogsException.class, iterator::hasNext);
+    }
+
+    private Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> pages(final int count) {
+        return request -> {
+            requests.add(request);
+            final int page = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken().substring(6));
+            return DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("page-" + page + "-0").build(),
+                    LogGroup.builder().logGroupName("page-" + page + "-1").build())
+                .nextToken(page + 1 < count ? "token-" + (page + 1) : null)
+                .build();
+        };
+    }
+}
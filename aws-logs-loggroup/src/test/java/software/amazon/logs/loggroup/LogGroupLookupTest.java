@@ -0,0 +1,135 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.cloudformation.test.AbstractMockTestBase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LogGroupLookupTest extends AbstractMockTestBase<CloudWatchLogsClient> {
+    private static final String LOG_GROUP_NAME = "/aws/lambda/foo";
+
+    private final DescribeLogGroupsRequest request = Translator.translateToReadRequest(
+        ResourceModel.builder().logGroupName(LOG_GROUP_NAME).build());
+
+    public LogGroupLookupTest() {
+        super(CloudWatchLogsClient.class);
+    }
+
+    @Test
+    public void describe_ExactMatchAmongSiblings() {
+        final CloudWatchLogsClient client = getServiceClient();
+        when(client.describeLogGroups(argThat(argCmp(request))))
+            .thenReturn(page(null, "/aws/lambda/foo", "/aws/lambda/foo-bar", "/aws/lambda/foo2"));
+
+        final LogGroupLookup lookup = new LogGroupLookup(LOG_GROUP_NAME);
+        final DescribeLogGroupsResponse response = lookup.describe(request, proxy.newProxy(() -> client));
+
+        assertThat(response.logGroups()).extracting(LogGroup::logGroupName).containsExactly(LOG_GROUP_NAME);
+        assertThat(response.nextToken()).isNull();
+        assertThat(lookup.isFound()).isTrue();
+        assertThat(lookup.getPages()).isEqualTo(1);
+    }
+
+    @Test
+    public void describe_SlowPageHedged() {
+        final CloudWatchLogsClient client = getServiceClient();
+        final CountDownLatch release = new CountDownLatch(1);
+        when(client.describeLogGroups(argThat(argCmp(request))))
+            .thenAnswer(invocation -> {
+                release.await();
+                return page(null);
+            })
+            .thenReturn(page(null, LOG_GROUP_NAME));
+        final Hedge hedge = new Hedge(95, 1.0, Executors.newCachedThreadPool());
+        for (int i = 0; i < Hedge.MIN_SAMPLES; i++) {
+            hedge.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        final LogGroupLookup lookup = new LogGroupLookup(LOG_GROUP_NAME, Integer.MAX_VALUE, hedge);
+        final DescribeLogGroupsResponse response = lookup.describe(request, proxy.newProxy(() -> client));
+        release.countDown();
+
+        assertThat(response.logGroups()).extracting(LogGroup::logGroupName).containsExactly(LOG_GROUP_NAME);
+        assertThat(lookup.getPages()).isEqualTo(1);
+        assertThat(hedge.won()).isEqualTo(1);
+        verify(client, times(2)).describeLogGroups(argThat(argCmp(request)));
+    }
+
+    @Test
+    public void describe_FollowsPagesUntilFound() {
+        final CloudWatchLogsClient client = getServiceClient();
+        final DescribeLogGroupsRequest second = request.toBuilder().nextToken("token").build();
+        when(client.describeLogGroups(argThat(argCmp(request)))).thenReturn(page("token"));
+        when(client.describeLogGroups(argThat(argCmp(second)))).thenReturn(page(null, LOG_GROUP_NAME));
+
+        final LogGroupLookup lookup = new LogGroupLookup(LOG_GROUP_NAME);
+        final DescribeLogGroupsResponse response = lookup.describe(request, proxy.newProxy(() -> client));
+
+        assertThat(response.logGroups()).hasSize(1);
+        assertThat(lookup.getPages()).isEqualTo(2);
+        assertThat(lookup.summary()).contains("found after 2 page(s)");
+    }
+
+    @Test
+    public void describe_StopsOncePastTheName() {
+        final CloudWatchLogsClient client = getServiceClient();
+        when(client.describeLogGroups(argThat(argCmp(request))))
+            .thenReturn(page("token", "/aws/lambda/foo-bar", "/aws/lambda/foo2"));
+
+        final LogGroupLookup lookup = new LogGroupLookup(LOG_GROUP_NAME);
+        final DescribeLogGroupsResponse response = lookup.describe(request, proxy.newProxy(() -> client));
+
+        assertThat(response.logGroups()).isEmpty();
+        assertThat(lookup.isFound()).isFalse();
+        assertThat(lookup.getPages()).isEqualTo(1);
+        verify(client, times(1)).describeLogGroups(argThat(argCmp(request)));
+    }
+
+    @Test
+    public void describe_RespectsMaxPages() {
+        final CloudWatchLogsClient client = getServiceClient();
+        when(client.describeLogGroups(argThat(argCmp(request)))).thenReturn(page("token"));
+
+        final LogGroupLookup lookup = new LogGroupLookup(LOG_GROUP_NAME, 1);
+        final DescribeLogGroupsResponse response = lookup.describe(request, proxy.newProxy(() -> client));
+
+        assertThat(response.logGroups()).isEmpty();
+        assertThat(lookup.getPages()).isEqualTo(1);
+    }
+
+    @Test
+    public void describe_CountsBytesFromContentLength() {
+        final CloudWatchLogsClient client = getServiceClient();
+        final DescribeLogGroupsResponse response = (DescribeLogGroupsResponse) page(null, LOG_GROUP_NAME).toBuilder()
+            .sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).putHeader("Content-Length", "123").build())
+            .build();
+        when(client.describeLogGroups(argThat(argCmp(request)))).thenReturn(response);
+
+        final LogGroupLookup lookup = new LogGroupLookup(LOG_GROUP_NAME);
+        lookup.describe(request, proxy.newProxy(() -> client));
+
+        assertThat(lookup.getBytes()).isEqualTo(123L);
+    }
+
+    private static DescribeLogGroupsResponse page(final String nextToken, final String... names) {
+        final DescribeLogGroupsResponse.Builder builder = DescribeLogGroupsResponse.builder().nextToken(nextToken);
+        final LogGroup[] logGroups = new LogGroup[names.length];
+        for (int i = 0; i < names.length; i++) {
+            logGroups[i] = LogGroup.builder().logGroupName(names[i]).build();
+        }
+        return builder.logGroups(logGroups).build();
+    }
+}
@@ -0,0 +1,67 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ModelValidatorTest {
+
+    @Test
+    public void schema_ParsedOnce() {
+        final JSONObject schema = new Configuration().resourceSchemaJSONObject();
+        assertThat(new Configuration().resourceSchemaJSONObject()).isSameAs(schema);
+        assertThat(schema.getString("typeName")).isEqualTo(ResourceModel.TYPE_NAME);
+    }
+
+    @Test
+    public void validate_AcceptsValidAndUnsetProperties() {
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("/aws/lambda/my-function_1.0#blue")
+            .retentionInDays(3653)
+            .build();
+
+        assertThat(ModelValidator.validate(model)).isSameAs(model);
+        assertThat(ModelValidator.validate(new ResourceModel())).isNotNull();
+        assertThat(ModelValidator.validate(null)).isNull();
+    }
+
+    @Test
+    public void validate_LeavesReadOnlyArnToTheService() {
+        final ResourceModel model = ResourceModel.builder().logGroupName("LogGroup").arn("not an arn").build();
+
+        assertThat(ModelValidator.validate(model)).isSameAs(model);
+    }
+
+    @Test
+    public void validate_RejectsPattern() {
+        final CfnInvalidRequestException e = assertThrows(CfnInvalidRequestException.class,
+            () -> ModelValidator.validate(ResourceModel.builder().logGroupName("has space").build()));
+
+        assertThat(e.getMessage()).contains("LogGroupName must match");
+    }
+
+    @Test
+    public void validate_RejectsLength() {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 513; i++) {
+            name.append('a');
+        }
+        final CfnInvalidRequestException e = assertThrows(CfnInvalidRequestException.class,
+            () -> ModelValidator.validate(ResourceModel.builder().logGroupName(name.toString()).build()));
+
+        assertThat(e.getMessage()).contains("LogGroupName must be at most 512 characters long");
+    }
+
+    @Test
+    public void validate_RejectsEnumAndReportsEveryViolation() {
+        final ResourceModel model = ResourceModel.builder().logGroupName("").retentionInDays(2).build();
+
+        assertThat(new ModelValidator(Configuration.resourceSchema()).violations(model)).containsExactly(
+            "LogGroupName must be at least 1 characters long, got ",
+            "LogGroupName must match ^[.\\-_/#A-Za-z0-9]{1,512}\\Z, got ",
+            "RetentionInDays must be one of 1, 3, 5, 7, 14, 30, 60, 90, 120, 150, 180, 365, 400, 545, 731, 1827, 3653, got 2");
+    }
+}
@@ -0,0 +1,131 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.exceptions.CfnNotFoundException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationRunnerTest {
+    private final ResourceModel model = ResourceModel.builder().logGroupName("LogGroup").build();
+    private final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+        .desiredResourceState(model)
+        .build();
+    private final Logger logger = message -> { };
+    private final List<Integer> pauses = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void create_VirtualThreadsOnlyWhereTheRuntimeHasThem() {
+        boolean available;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            available = true;
+        } catch (NoSuchMethodException e) {
+            available = false;
+        }
+        try (OperationRunner runner = OperationRunner.create()) {
+            assertThat(runner.usesVirtualThreads()).isEqualTo(available);
+            final ProgressEvent<ResourceModel, CallbackContext> event = runner.run(
+                handler((context, invocation) -> ProgressEvent.defaultSuccessHandler(model)), null, request, logger)
+                .join();
+            assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        }
+    }
+
+    @Test
+    public void run_InvokedAgainWithContextUntilDone() {
+        final List<CallbackContext> contexts = Collections.synchronizedList(new ArrayList<>());
+        try (OperationRunner runner = runner(Executors.newSingleThreadExecutor())) {
+            final ProgressEvent<ResourceModel, CallbackContext> event = runner.run(handler((context, invocation) -> {
+                contexts.add(context);
+                if (invocation < 3) {
+                    return ProgressEvent.defaultInProgressHandler(CallbackContext.builder()
+                        .deletePolls(invocation)
+                        .build(), 5, model);
+                }
+                return ProgressEvent.defaultSuccessHandler(model);
+            }), null, request, logger).join();
+
+            assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+            assertThat(pauses).containsExactly(5, 5);
+            assertThat(contexts).hasSize(3);
+            assertThat(contexts.get(0)).isNull();
+            assertThat(contexts.get(2).getDeletePolls()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void run_ExceptionBecomesFailedEvent() {
+        try (OperationRunner runner = runner(Executors.newSingleThreadExecutor())) {
+            final ProgressEvent<ResourceModel, CallbackContext> event = runner.run(handler((context, invocation) -> {
+                throw new CfnNotFoundException(ResourceModel.TYPE_NAME, "LogGroup");
+            }), null, request, logger).join();
+
+            assertThat(event.getStatus()).isEqualTo(OperationStatus.FAILED);
+            assertThat(event.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+            assertThat(event.getResourceModel()).isEqualTo(model);
+        }
+    }
+
+    @Test
+    public void run_OperationsBlockConcurrently() throws InterruptedException {
+        final int operations = 32;
+        final CountDownLatch allStarted = new CountDownLatch(operations);
+        try (OperationRunner runner = OperationRunner.withPlatformThreads(operations)) {
+            final List<CompletableFuture<ProgressEvent<ResourceModel, CallbackContext>>> running = new ArrayList<>();
+            for (int i = 0; i < operations; i++) {
+                running.add(runner.run(handler((context, invocation) -> {
+                    //
+                    // Every operation blocks until all of them are in flight
+                    //
+                    allStarted.countDown();
+                    try {
+                        allStarted.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return ProgressEvent.defaultSuccessHandler(model);
+                }), null, request, logger));
+            }
+            assertThat(allStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            running.forEach(operation -> assertThat(operation.join().getStatus()).isEqualTo(OperationStatus.SUCCESS));
+        }
+    }
+
+    private OperationRunner runner(final ExecutorService executor) {
+        return new OperationRunner(executor, false, pauses::add);
+    }
+
+    private interface Step {
+        ProgressEvent<ResourceModel, CallbackContext> apply(CallbackContext context, int invocation);
+    }
+
+    private static BaseHandler<CallbackContext> handler(final Step step) {
+        return new BaseHandler<CallbackContext>() {
+            private int invocations;
+
+            @Override
+            public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
+                final AmazonWebServicesClientProxy proxy,
+                final ResourceHandlerRequest<ResourceModel> request,
+                final CallbackContext callbackContext,
+                final Logger logger) {
+                return step.apply(callbackContext, ++invocations);
+            }
+        };
+    }
+}
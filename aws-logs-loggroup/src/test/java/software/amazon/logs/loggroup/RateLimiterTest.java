@@ -0,0 +1,197 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.cloudformation.LambdaWrapper;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RateLimiterTest {
+    private static final RateLimiter.Key DESCRIBE = new RateLimiter.Key("123456789012", "us-east-1", "DescribeLogGroups");
+    private static final RateLimiter.Key OTHER_ACCOUNT = new RateLimiter.Key("210987654321", "us-east-1", "DescribeLogGroups");
+
+    @Test
+    public void acquire_BurstThenPaced() {
+        final RateLimiter limiter = new RateLimiter(2);
+        for (int i = 0; i < 2; i++) {
+            assertThat(limiter.acquire(DESCRIBE)).isEqualTo(0L);
+        }
+
+        final long wait = limiter.acquire(DESCRIBE);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(wait)).isBetween(200L, 500L);
+        assertThat(limiter.acquire(OTHER_ACCOUNT)).isEqualTo(0L);
+    }
+
+    @Test
+    public void reserve_TakesTokenWithoutWaiting() {
+        final RateLimiter limiter = new RateLimiter(2);
+        limiter.reserve(DESCRIBE);
+        limiter.reserve(DESCRIBE);
+
+        final long startedAt = System.nanoTime();
+        final long first = limiter.reserve(DESCRIBE);
+        final long second = limiter.reserve(DESCRIBE);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isLessThan(200L);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(first)).isBetween(200L, 500L);
+        assertThat(second - first).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    public void operation_IsTheSdkOperationName() {
+        assertThat(RateLimiter.operation(DescribeLogGroupsRequest.builder().build())).isEqualTo("DescribeLogGroups");
+    }
+
+    @Test
+    public void rate_DecreasesOnThrottleAndRecoversOnSuccess() {
+        final RateLimiter limiter = new RateLimiter(RateLimiter.DEFAULT_RATE);
+
+        limiter.throttled(DESCRIBE);
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(RateLimiter.DEFAULT_RATE * RateLimiter.DECREASE_FACTOR);
+        for (int i = 0; i < 20; i++) {
+            limiter.throttled(DESCRIBE);
+        }
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(RateLimiter.MIN_RATE);
+        assertThat(limiter.rate(OTHER_ACCOUNT)).isEqualTo(RateLimiter.DEFAULT_RATE);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.succeeded(DESCRIBE);
+        }
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(RateLimiter.DEFAULT_RATE);
+    }
+
+    @Test
+    public void rate_DefaultsToDocumentedQuotas() {
+        final RateLimiter limiter = new RateLimiter(RateLimiter.DEFAULT_RATE, RateLimiter.DOCUMENTED_QUOTAS);
+
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(10.0);
+        assertThat(limiter.rate(new RateLimiter.Key("123456789012", "us-east-1", "CreateLogGroup"))).isEqualTo(5.0);
+        assertThat(limiter.rate(new RateLimiter.Key("123456789012", "us-east-1", "Unknown")))
+            .isEqualTo(RateLimiter.DEFAULT_RATE);
+    }
+
+    @Test
+    public void configure_ReadsProperties() {
+        final RateLimiter limiter = new RateLimiter(RateLimiter.DEFAULT_RATE, RateLimiter.DOCUMENTED_QUOTAS);
+        final Properties properties = new Properties();
+        properties.setProperty(RateLimiter.PROPERTY, "3");
+        properties.setProperty(RateLimiter.PROPERTY + ".DescribeLogGroups", "1.5");
+        limiter.configure(properties);
+
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(1.5);
+        assertThat(limiter.rate(new RateLimiter.Key("123456789012", "us-east-1", "DeleteLogGroup"))).isEqualTo(3.0);
+
+        final RateLimiter off = new RateLimiter(RateLimiter.DEFAULT_RATE, RateLimiter.DOCUMENTED_QUOTAS);
+        off.configure(properties(RateLimiter.PROPERTY, "off"));
+        assertThat(off.rate(DESCRIBE)).isEqualTo(0.0);
+        assertThat(off.acquire(DESCRIBE)).isEqualTo(0L);
+
+    }
+
+    @Test
+    public void configure_IgnoresValuesThatAreNotRates() {
+        final RateLimiter limiter = new RateLimiter(RateLimiter.DEFAULT_RATE, RateLimiter.DOCUMENTED_QUOTAS);
+        limiter.configure(properties(RateLimiter.PROPERTY, "fast"));
+        limiter.configure(properties(RateLimiter.PROPERTY, "-1"));
+        limiter.configure(properties(RateLimiter.PROPERTY + ".DescribeLogGroups", "NaN"));
+
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(10.0);
+        assertThat(limiter.rate(new RateLimiter.Key("123456789012", "us-east-1", "CreateLogGroup"))).isEqualTo(5.0);
+    }
+
+    @Test
+    public void setRate_ZeroDisablesLimit() {
+        final RateLimiter limiter = new RateLimiter(1);
+        limiter.setRate("DescribeLogGroups", 0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.acquire(DESCRIBE)).isEqualTo(0L);
+        }
+        assertThat(limiter.rate(DESCRIBE)).isEqualTo(0.0);
+    }
+
+    @Test
+    public void interceptor_NeverWaitsOnAsyncClientThreads() throws IOException {
+        final RateLimiter limiter = new RateLimiter(2);
+        final List<String> logged = new ArrayList<>();
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start();
+             CloudWatchLogsAsyncClient client = CloudWatchLogsAsyncClient.builder()
+                 .region(Region.US_EAST_1)
+                 .endpointOverride(endpoint.getEndpoint())
+                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("accessKey", "secretKey")))
+                 .overrideConfiguration(configuration -> configuration
+                     .addExecutionInterceptor(new StepMetrics.Interceptor(limiter, false)))
+                 .build()) {
+
+            new StepMetrics(logged::add, "Read", DESCRIBE.getAccount()).step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                CompletableFuture.allOf(IntStream.range(0, 4)
+                    .mapToObj(i -> client.describeLogGroups(request -> request.logGroupNamePrefix("LogGroup")))
+                    .toArray(CompletableFuture[]::new)).join();
+                return ProgressEvent.success(null, new CallbackContext());
+            });
+
+            final JSONObject document = new JSONObject(logged.get(0));
+            assertThat(document.getInt("Attempts")).isEqualTo(4);
+            assertThat(document.getLong("QueueWait")).isEqualTo(0L);
+            assertThat(limiter.reserve(new RateLimiter.Key(DESCRIBE.getAccount(), "", "DescribeLogGroups")))
+                .isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void interceptor_PacesRequestsAndBacksOffOnThrottling() throws IOException {
+        final RateLimiter limiter = new RateLimiter(2);
+        final List<String> logged = new ArrayList<>();
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start();
+             CloudWatchLogsClient client = CloudWatchLogsClient.builder()
+                 .httpClient(LambdaWrapper.HTTP_CLIENT)
+                 .region(Region.US_EAST_1)
+                 .endpointOverride(endpoint.getEndpoint())
+                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("accessKey", "secretKey")))
+                 .overrideConfiguration(configuration -> configuration
+                     .addExecutionInterceptor(new StepMetrics.Interceptor(limiter)))
+                 .build()) {
+
+            final StepMetrics metrics = new StepMetrics(logged::add, "Read", DESCRIBE.getAccount());
+            metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                for (int i = 0; i < 4; i++) {
+                    client.describeLogGroups(request -> request.logGroupNamePrefix("LogGroup"));
+                }
+                return ProgressEvent.success(null, new CallbackContext());
+            });
+            assertThat(new JSONObject(logged.get(0)).getLong("QueueWait")).isGreaterThanOrEqualTo(500L);
+
+            limiter.setDefaultRate(50);
+            endpoint.setThrottlingRate(1.0);
+            assertThrows(CloudWatchLogsException.class, () -> metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                client.describeLogGroups(request -> request.logGroupNamePrefix("LogGroup"));
+                return ProgressEvent.success(null, new CallbackContext());
+            }));
+            assertThat(limiter.rate(DESCRIBE)).isLessThan(10.0);
+        }
+    }
+
+    private static Properties properties(final String name, final String value) {
+        final Properties properties = new Properties();
+        properties.setProperty(name, value);
+        return properties;
+    }
+}
@@ -2,10 +2,13 @@ package software.amazon.logs.loggroup;
 
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
 import software.amazon.cloudformation.exceptions.ResourceNotFoundException;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import static org.mockito.Mockito.*;
@@ -14,17 +17,27 @@ import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.cloudformation.test.AbstractMockTestBase;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class ReadHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient> {
-    ReadHandler handler = new ReadHandler();
+    private final LogGroupCache cache = new LogGroupCache(
+        LogGroupCache.DEFAULT_TTL, LogGroupCache.DEFAULT_CAPACITY, System::nanoTime);
+    ReadHandler handler = new ReadHandler(cache);
 
     public ReadHandlerTest() {
         super(CloudWatchLogsClient.class);
     }
 
+    @BeforeEach
+    public void setUp() {
+        when(getServiceClient().listTagsLogGroup(ArgumentMatchers.any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().build());
+    }
+
     @Test
     public void handleRequest_Success() {
         final LogGroup logGroup = LogGroup.builder()
@@ -97,6 +110,129 @@ public class ReadHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient>
             () -> handler.handleRequest(proxy, request, null, getLoggerProxy()));
     }
 
+    @Test
+    public void handleRequest_RepeatReadServedFromCache() {
+        final LogGroup logGroup = LogGroup.builder()
+                .logGroupName("LogGroup")
+                .retentionInDays(1)
+                .build();
+        when(getServiceClient().describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder().logGroups(logGroup).build());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .awsAccountId("123456789012")
+            .region("us-east-1")
+            .desiredResourceState(ResourceModel.builder().logGroupName("LogGroup").build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> first = handler
+            .handleRequest(proxy, request, null, getLoggerProxy());
+        final ProgressEvent<ResourceModel, CallbackContext> second = handler
+            .handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(second.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(second.getResourceModel()).isEqualTo(first.getResourceModel());
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+        verify(getServiceClient(), times(1)).describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class));
+        verify(getServiceClient(), times(1)).listTagsLogGroup(ArgumentMatchers.any(ListTagsLogGroupRequest.class));
+    }
+
+    @Test
+    public void handleRequest_ReturnsTags() {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put("team", "logs");
+        tags.put("stage", "prod");
+        when(getServiceClient().describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("LogGroup").build())
+                .build());
+        when(getServiceClient().listTagsLogGroup(ArgumentMatchers.any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().tags(tags).build());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().logGroupName("LogGroup").build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler
+            .handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getTags()).containsExactly(
+            Tag.builder().key("stage").value("prod").build(),
+            Tag.builder().key("team").value("logs").build());
+        verify(getServiceClient()).listTagsLogGroup(ListTagsLogGroupRequest.builder().logGroupName("LogGroup").build());
+    }
+
+    @Test
+    public void handleRequest_ChangeDuringDescribeIsNotCached() {
+        final LogGroupCache.Key key = LogGroupCache.Key.of("123456789012", "us-east-1", "LogGroup");
+        when(getServiceClient().describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class)))
+            .thenAnswer(invocation -> {
+                //
+                // An update of the log group completes while the describe is in flight
+                //
+                cache.invalidate("LogGroup");
+                return DescribeLogGroupsResponse.builder()
+                    .logGroups(LogGroup.builder().logGroupName("LogGroup").retentionInDays(1).build())
+                    .build();
+            });
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy,
+            ResourceHandlerRequest.<ResourceModel>builder()
+                .awsAccountId("123456789012")
+                .region("us-east-1")
+                .desiredResourceState(ResourceModel.builder().logGroupName("LogGroup").build())
+                .build(), null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    public void handleRequest_CachedLogGroupWithoutTagsListsOnlyTags() {
+        final LogGroupCache.Key key = LogGroupCache.Key.of("123456789012", "us-east-1", "LogGroup");
+        cache.put(key, LogGroup.builder().logGroupName("LogGroup").retentionInDays(1).build(),
+            cache.generation("LogGroup"));
+        when(getServiceClient().listTagsLogGroup(ArgumentMatchers.any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().tags(Collections.singletonMap("team", "logs")).build());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .awsAccountId("123456789012")
+            .region("us-east-1")
+            .desiredResourceState(ResourceModel.builder().logGroupName("LogGroup").build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler
+            .handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getResourceModel().getRetentionInDays()).isEqualTo(1);
+        assertThat(response.getResourceModel().getTags())
+            .containsExactly(Tag.builder().key("team").value("logs").build());
+        assertThat(cache.tags(key)).containsEntry("team", "logs");
+        verify(getServiceClient(), never()).describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class));
+    }
+
+    @Test
+    public void handleRequest_ReadsWhateverStateWasPassed() {
+        when(getServiceClient().describeLogGroups(ArgumentMatchers.any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder()
+                .logGroups(LogGroup.builder().logGroupName("LogGroup").retentionInDays(7).arn("arn").build())
+                .build());
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(2)
+            .arn("not an arn")
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy,
+            ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(), null,
+            getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getRetentionInDays()).isEqualTo(7);
+    }
+
     @Test
     public void handleRequest_FailureNotFound_NullLogGroupInput() {
         final ResourceModel model = ResourceModel.builder()
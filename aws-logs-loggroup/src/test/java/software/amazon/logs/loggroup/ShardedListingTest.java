@@ -0,0 +1,177 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InvalidParameterException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ServiceUnavailableException;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ShardedListingTest {
+    private static final List<String> NAMES = Arrays.asList(
+        "#hash", "/aws/lambda/a", "/aws/lambda/b", "/aws/lambda/c", "/aws/lambda/d", "0zero",
+        "Alpha", "Beta", "_under", "alpha", "alpha2", "alpha3", "zeta");
+    private static final List<String> LAMBDA_NAMES = Arrays.asList(
+        "/aws/lambda/app-1", "/aws/lambda/app-2", "/aws/lambda/app-3", "/aws/lambda/web-1", "/aws/lambda/web-2");
+
+    private final ShardedListing listing = new ShardedListing(ShardedListing.DEFAULT_WORKERS);
+
+    @Test
+    public void describe_EnumeratesEveryLogGroupOnce() {
+        for (final List<String> names : Arrays.asList(NAMES, LAMBDA_NAMES)) {
+            final AtomicInteger calls = new AtomicInteger();
+            final List<String> seen = new ArrayList<>();
+            String nextToken = null;
+            do {
+                final int before = calls.get();
+                final DescribeLogGroupsResponse response = listing.describe(nextToken, fakeDescribe(names, 2, calls));
+                final List<String> page = response.logGroups().stream()
+                    .map(LogGroup::logGroupName).collect(Collectors.toList());
+                assertThat(page).isSorted();
+                assertThat(calls.get() - before).isBetween(1, ShardedListing.DEFAULT_WORKERS);
+                seen.addAll(page);
+                nextToken = response.nextToken();
+            } while (nextToken != null);
+
+            assertThat(seen).hasSameSizeAs(names).containsExactlyInAnyOrderElementsOf(names);
+        }
+    }
+
+    @Test
+    public void describe_SinglePageIsOneCall() {
+        final AtomicInteger calls = new AtomicInteger();
+        final DescribeLogGroupsResponse response = listing.describe(null, fakeDescribe(NAMES, 50, calls));
+
+        assertThat(response.logGroups()).extracting(LogGroup::logGroupName).containsExactlyElementsOf(NAMES);
+        assertThat(response.nextToken()).isNull();
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void describe_SplitsOneCharacterPastTheCommonPrefix() {
+        final DescribeLogGroupsResponse response =
+            listing.describe(null, fakeDescribe(LAMBDA_NAMES, 2, new AtomicInteger()));
+
+        final ShardedListing.State state = ShardedListing.decode(response.nextToken());
+        assertThat(state.getShards()).containsOnly(
+            entry("/aws/lambda/app-2", new ShardedListing.Cursor(null, "/aws/lambda/app-2")));
+        assertThat(state.getNext()).isEqualTo("/aws/lambda/app-3");
+    }
+
+    @Test
+    public void describe_ProbesTheNextPrefixesAsThereIsRoom() {
+        final AtomicInteger calls = new AtomicInteger();
+        final String first = listing.describe(null, fakeDescribe(LAMBDA_NAMES, 2, calls)).nextToken();
+
+        final DescribeLogGroupsResponse second = listing.describe(first, fakeDescribe(LAMBDA_NAMES, 2, calls));
+
+        //
+        // app-2 again, skipped, and the probes app-3, app-4 and app-5, all finished
+        //
+        assertThat(second.logGroups()).extracting(LogGroup::logGroupName).containsExactly("/aws/lambda/app-3");
+        assertThat(calls.get()).isEqualTo(1 + ShardedListing.DEFAULT_WORKERS);
+        final ShardedListing.State state = ShardedListing.decode(second.nextToken());
+        assertThat(state.getShards()).isEmpty();
+        assertThat(state.getNext()).isEqualTo("/aws/lambda/app-6");
+    }
+
+    @Test
+    public void describe_TokenStaysSmall() {
+        final List<String> names = new ArrayList<>();
+        for (final char c : ShardedListing.ALPHABET.toCharArray()) {
+            for (int i = 0; i < 20; i++) {
+                names.add("/aws/" + c + "/" + i);
+            }
+        }
+        Collections.sort(names);
+        String nextToken = null;
+        int longest = 0;
+        do {
+            nextToken = listing.describe(nextToken, fakeDescribe(names, 5, new AtomicInteger())).nextToken();
+            longest = Math.max(longest, nextToken == null ? 0 : nextToken.length());
+        } while (nextToken != null);
+
+        assertThat(longest).isLessThan(512);
+    }
+
+    @Test
+    public void successor_CoversTheRestInOrder() {
+        assertThat(ShardedListing.successor("/aws/lambda/f")).isEqualTo("/aws/lambda/g");
+        assertThat(ShardedListing.successor("/aws/lambda/z")).isEqualTo("/aws/lambda0");
+        assertThat(ShardedListing.successor("/az")).isEqualTo("/b");
+        assertThat(ShardedListing.successor("zz")).isNull();
+    }
+
+    @Test
+    public void describe_PropagatesServiceErrors() {
+        final ServiceUnavailableException error = ServiceUnavailableException.builder().build();
+
+        assertThatThrownBy(() -> listing.describe(null, request -> { throw error; })).isSameAs(error);
+    }
+
+    @Test
+    public void token_RoundTrips() {
+        final TreeMap<String, ShardedListing.Cursor> shards = new TreeMap<>();
+        shards.put("", new ShardedListing.Cursor("token/+=", null));
+        shards.put("/aws/lambda/a", new ShardedListing.Cursor(null, "/aws/lambda/a"));
+        final ShardedListing.State state = new ShardedListing.State(shards, "/aws/lambda/b");
+
+        final String token = ShardedListing.encode(state);
+
+        assertThat(ShardedListing.isShardedToken(token)).isTrue();
+        assertThat(ShardedListing.decode(token)).isEqualTo(state);
+        assertThat(ShardedListing.encode(new ShardedListing.State(new TreeMap<>(), null))).isNull();
+    }
+
+    @Test
+    public void token_RejectsForeignTokens() {
+        assertThat(ShardedListing.isShardedToken("token")).isFalse();
+        assertThatThrownBy(() -> ShardedListing.decode("token")).isInstanceOf(CfnInvalidRequestException.class);
+        assertThatThrownBy(() -> ShardedListing.decode(ShardedListing.TOKEN_PREFIX + "!!"))
+            .isInstanceOf(CfnInvalidRequestException.class);
+    }
+
+    //
+    // Pages names by prefix the way DescribeLogGroups does, using the index of the next name as token,
+    // and rejects an empty prefix as the service does
+    //
+    private static Function<DescribeLogGroupsRequest, DescribeLogGroupsResponse> fakeDescribe(
+        final List<String> names, final int pageSize, final AtomicInteger calls) {
+        return request -> {
+            calls.incrementAndGet();
+            if ("".equals(request.logGroupNamePrefix())) {
+                throw InvalidParameterException.builder().message("logGroupNamePrefix must have length >= 1").build();
+            }
+            final String prefix = request.logGroupNamePrefix() == null ? "" : request.logGroupNamePrefix();
+            final List<String> matching = names.stream()
+                .filter(name -> name.startsWith(prefix))
+                .collect(Collectors.toList());
+            final int from = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+            final int to = Math.min(from + pageSize, matching.size());
+            return page(to < matching.size() ? String.valueOf(to) : null,
+                matching.subList(from, to).toArray(new String[0]));
+        };
+    }
+
+    private static DescribeLogGroupsResponse page(final String nextToken, final String... names) {
+        final LogGroup[] logGroups = new LogGroup[names.length];
+        for (int i = 0; i < names.length; i++) {
+            logGroups[i] = LogGroup.builder().logGroupName(names[i]).build();
+        }
+        return DescribeLogGroupsResponse.builder().logGroups(logGroups).nextToken(nextToken).build();
+    }
+}
@@ -0,0 +1,60 @@
+package software.amazon.logs.loggroup;
+
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs one Create, Read and Delete in a fresh JVM against FakeLogsEndpoint and prints how long after
+ * JVM start each ProgressEvent came back. The startup profile runs it against the minimized handler jar.
+ */
+public final class StartupHarness {
+    private StartupHarness() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final LoggerProxy logger = new LoggerProxy() {
+            @Override
+            public void log(final String message) {
+            }
+        };
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            if (System.getProperty("aws.region") == null) {
+                System.setProperty("aws.region", "us-east-1");
+            }
+            System.setProperty(ClientBuilder.ENDPOINT_PROPERTY, endpoint.getEndpoint().toString());
+            final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger,
+                new Credentials("accessKey", "secretKey", "token"), () -> TimeUnit.MINUTES.toMillis(15));
+            final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder()
+                    .logGroupName("startup-harness")
+                    .retentionInDays(7)
+                    .build())
+                .build();
+
+            run("Create", () -> new CreateHandler().handleRequest(proxy, request, null, logger));
+            run("Read", () -> new ReadHandler().handleRequest(proxy, request, null, logger));
+            run("Delete", () -> new DeleteHandler().handleRequest(proxy, request, null, logger));
+        }
+    }
+
+    private static void run(final String step,
+                            final Supplier<ProgressEvent<ResourceModel, CallbackContext>> handler) {
+        final long start = System.nanoTime();
+        final ProgressEvent<ResourceModel, CallbackContext> event = handler.get();
+        final long took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (event.getStatus() != OperationStatus.SUCCESS) {
+            throw new IllegalStateException(step + " " + event.getStatus() + ": " + event.getMessage());
+        }
+        System.out.println(String.format("%s returned %s %d ms after JVM start, handler took %d ms",
+            step, event.getStatus(), ManagementFactory.getRuntimeMXBean().getUptime(), took));
+    }
+}
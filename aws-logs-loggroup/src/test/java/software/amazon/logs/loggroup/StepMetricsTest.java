@@ -0,0 +1,149 @@
+package software.amazon.logs.loggroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.cloudformation.exceptions.CfnNotFoundException;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StepMetricsTest {
+    private static final StaticCredentialsProvider CREDENTIALS =
+        StaticCredentialsProvider.create(AwsBasicCredentials.create("accessKey", "secretKey"));
+
+    private final List<String> logged = new ArrayList<>();
+    private final Logger logger = logged::add;
+    private final ResourceModel model = ResourceModel.builder().logGroupName("LogGroup").build();
+
+    @Test
+    public void step_EmitsEmbeddedMetricDocument() {
+        final ProgressEvent<ResourceModel, CallbackContext> event = new StepMetrics(logger, "Create")
+            .step(Util.UPDATE_RETENTION_IN_DAYS, () -> ProgressEvent.progress(model, new CallbackContext()));
+
+        assertThat(event.isInProgress()).isTrue();
+        assertThat(logged).hasSize(1);
+        final JSONObject document = new JSONObject(logged.get(0));
+        final JSONObject directive = document.getJSONObject("_aws").getJSONArray("CloudWatchMetrics").getJSONObject(0);
+        assertThat(directive.getString("Namespace")).isEqualTo(StepMetrics.NAMESPACE);
+        assertThat(directive.getJSONArray("Dimensions").getJSONArray(0).toList()).containsExactly("Action", "CallChain");
+        assertThat(directive.getJSONArray("Metrics").length()).isEqualTo(5);
+        assertThat(document.getString("Action")).isEqualTo("Create");
+        assertThat(document.getString("CallChain")).isEqualTo(Util.UPDATE_RETENTION_IN_DAYS);
+        assertThat(document.getString("Outcome")).isEqualTo("IN_PROGRESS");
+        assertThat(document.getLong("Time")).isGreaterThanOrEqualTo(0L);
+        assertThat(document.getInt("Attempts")).isEqualTo(0);
+        assertThat(document.getLong("QueueWait")).isEqualTo(0L);
+        assertThat(document.getInt("Failures")).isEqualTo(0);
+    }
+
+    @Test
+    public void step_RecordsFailures() {
+        final StepMetrics metrics = new StepMetrics(logger, "Read");
+
+        metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () ->
+            ProgressEvent.failed(model, new CallbackContext(), HandlerErrorCode.AccessDenied, "denied"));
+        assertThrows(CfnNotFoundException.class, () -> metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+            throw new CfnNotFoundException(ResourceModel.TYPE_NAME, "LogGroup");
+        }));
+
+        assertThat(new JSONObject(logged.get(0)).getString("Outcome")).isEqualTo("AccessDenied");
+        assertThat(new JSONObject(logged.get(1)).getString("Outcome")).isEqualTo("NotFound");
+        assertThat(new JSONObject(logged.get(1)).getInt("Failures")).isEqualTo(1);
+    }
+
+    @Test
+    public void interceptor_CountsAttemptsAndThrottles() throws IOException {
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            final CloudWatchLogsClient client = ClientBuilder.getClient(Region.US_EAST_1, endpoint.getEndpoint());
+            final StepMetrics metrics = new StepMetrics(logger, "Read");
+
+            metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                describe(client);
+                return ProgressEvent.success(model, new CallbackContext());
+            });
+            endpoint.setThrottlingRate(1.0);
+            assertThrows(CloudWatchLogsException.class, () -> metrics.step(ReadHandler.DESCRIBE_LOG_GROUPS, () -> {
+                describe(client);
+                return ProgressEvent.success(model, new CallbackContext());
+            }));
+
+            final JSONObject unthrottled = new JSONObject(logged.get(0));
+            assertThat(unthrottled.getInt("Attempts")).isEqualTo(1);
+            assertThat(unthrottled.getInt("Throttles")).isEqualTo(0);
+            final JSONObject throttled = new JSONObject(logged.get(1));
+            assertThat(throttled.getInt("Attempts")).isEqualTo(endpoint.requests("DescribeLogGroups") - 1);
+            assertThat(throttled.getInt("Throttles")).isEqualTo(endpoint.throttled("DescribeLogGroups"));
+            assertThat(throttled.getInt("Throttles")).isGreaterThan(1);
+            assertThat(throttled.getString("Outcome")).isEqualTo("CloudWatchLogsException");
+        }
+    }
+
+    @Test
+    public void interceptor_CountsAsyncClientCalls() throws IOException {
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            final CloudWatchLogsAsyncClient client =
+                ClientBuilder.getAsyncClient(Region.US_EAST_1, endpoint.getEndpoint());
+            endpoint.setThrottlingRate(1.0);
+
+            assertThrows(CompletionException.class, () -> new StepMetrics(logger, "Update").step(
+                Util.UPDATE_RETENTION_IN_DAYS, () -> {
+                    client.describeLogGroups(request -> request
+                        .logGroupNamePrefix("LogGroup")
+                        .overrideConfiguration(configuration -> configuration.credentialsProvider(CREDENTIALS)))
+                        .join();
+                    return ProgressEvent.success(model, new CallbackContext());
+                }));
+
+            final JSONObject document = new JSONObject(logged.get(0));
+            assertThat(document.getInt("Attempts")).isEqualTo(endpoint.requests("DescribeLogGroups"));
+            assertThat(document.getInt("Throttles")).isEqualTo(endpoint.throttled("DescribeLogGroups"));
+            assertThat(document.getInt("Throttles")).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    public void isThrottled_ReadsStatusAndErrorTypeHeader() {
+        assertThat(StepMetrics.Interceptor.isThrottled(response(429, null))).isTrue();
+        assertThat(StepMetrics.Interceptor.isThrottled(response(400, "ThrottlingException"))).isTrue();
+        assertThat(StepMetrics.Interceptor.isThrottled(response(400,
+            "ThrottlingException:http://internal.amazon.com/coral/com.amazon.coral.availability/"))).isTrue();
+        assertThat(StepMetrics.Interceptor.isThrottled(response(400, "com.amazonaws.logs#ThrottlingException")))
+            .isTrue();
+        assertThat(StepMetrics.Interceptor.isThrottled(response(400, "LimitExceededException"))).isFalse();
+        assertThat(StepMetrics.Interceptor.isThrottled(response(400, "InvalidParameterException"))).isFalse();
+        assertThat(StepMetrics.Interceptor.isThrottled(response(400, null))).isFalse();
+    }
+
+    private static SdkHttpResponse response(final int status, final String errorType) {
+        final SdkHttpResponse.Builder response = SdkHttpResponse.builder().statusCode(status);
+        if (errorType != null) {
+            response.putHeader(StepMetrics.Interceptor.ERROR_TYPE_HEADER, errorType);
+        }
+        return response.build();
+    }
+
+    //
+    // Credentials the proxy would otherwise inject
+    //
+    private static void describe(final CloudWatchLogsClient client) {
+        client.describeLogGroups(request -> request
+            .logGroupNamePrefix("LogGroup")
+            .overrideConfiguration(configuration -> configuration.credentialsProvider(
+                CREDENTIALS)));
+    }
+}
@@ -11,7 +11,10 @@ import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRes
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyRequest;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,6 +29,7 @@ public class TranslatorTest {
     public void testTranslateToRead() {
         final DescribeLogGroupsRequest request = DescribeLogGroupsRequest.builder()
             .logGroupNamePrefix(RESOURCE_MODEL.getLogGroupName())
+            .limit(50)
             .build();
         assertThat(Translator.translateToReadRequest(RESOURCE_MODEL)).isEqualToComparingFieldByField(request);
     }
@@ -55,6 +59,35 @@ public class TranslatorTest {
         assertThat(Translator.translateToCreateRequest(RESOURCE_MODEL)).isEqualToComparingFieldByField(request);
     }
 
+    @Test
+    public void testTranslateToCreate_WithTags() {
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .tags(Arrays.asList(
+                Tag.builder().key("team").value("logs").build(),
+                Tag.builder().key("stage").value("prod").build()))
+            .build();
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("team", "logs");
+        tags.put("stage", "prod");
+
+        assertThat(Translator.translateToCreateRequest(model))
+            .isEqualTo(CreateLogGroupRequest.builder().logGroupName("LogGroup").tags(tags).build());
+        assertThat(Translator.translateTags(null)).isEmpty();
+    }
+
+    @Test
+    public void testTranslateTagsToModel() {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("team", "logs");
+        tags.put("stage", "prod");
+
+        assertThat(Translator.translateTagsToModel(tags)).containsExactly(
+            Tag.builder().key("stage").value("prod").build(),
+            Tag.builder().key("team").value("logs").build());
+        assertThat(Translator.translateTagsToModel(Collections.emptyMap())).isNull();
+    }
+
     @Test
     public void testTranslateToPutRetentionPolicyRequest() {
         final PutRetentionPolicyRequest request = PutRetentionPolicyRequest.builder()
@@ -113,6 +146,64 @@ public class TranslatorTest {
         assertThat(Translator.translateForRead(response)).isEqualToComparingFieldByField(emptyModel);
     }
 
+    @Test
+    public void testTranslateForRead_AllAttributesFromMatchingLogGroup() {
+        final LogGroup sibling = LogGroup.builder()
+            .logGroupName("LogGroup-sibling")
+            .arn("arn:aws:logs:us-east-1:123456789012:log-group:LogGroup-sibling")
+            .retentionInDays(30)
+            .kmsKeyId("sibling-key")
+            .build();
+        final LogGroup logGroup = LogGroup.builder()
+            .logGroupName("LogGroup")
+            .arn("arn:aws:logs:us-east-1:123456789012:log-group:LogGroup")
+            .build();
+        final DescribeLogGroupsResponse response = DescribeLogGroupsResponse.builder()
+            .logGroups(Arrays.asList(sibling, logGroup))
+            .build();
+
+        final ResourceModel expected = ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .arn("arn:aws:logs:us-east-1:123456789012:log-group:LogGroup")
+            .build();
+        assertThat(Translator.translateForRead(response, "LogGroup")).isEqualTo(expected);
+    }
+
+    @Test
+    public void testTranslateForRead_NoMatchingLogGroup() {
+        final DescribeLogGroupsResponse response = DescribeLogGroupsResponse.builder()
+            .logGroups(LogGroup.builder().logGroupName("LogGroup-sibling").build())
+            .build();
+        assertThat(Translator.translateForRead(response, "LogGroup")).isEqualTo(ResourceModel.builder().build());
+    }
+
+    @Test
+    public void testTranslateForList() {
+        final LogGroup logGroup = LogGroup.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(1)
+            .kmsKeyId("key")
+            .build();
+        final LogGroup logGroup2 = LogGroup.builder()
+            .logGroupName("LogGroup2")
+            .build();
+        final DescribeLogGroupsResponse response = DescribeLogGroupsResponse.builder()
+            .logGroups(Arrays.asList(logGroup, logGroup2))
+            .build();
+
+        assertThat(Translator.translateForList(response)).containsExactly(
+            ResourceModel.builder().logGroupName("LogGroup").retentionInDays(1).kmsKeyArn("key").build(),
+            ResourceModel.builder().logGroupName("LogGroup2").build());
+    }
+
+    @Test
+    public void testTranslateForList_logGroupEmpty() {
+        final DescribeLogGroupsResponse response = DescribeLogGroupsResponse.builder()
+            .logGroups(Collections.emptyList())
+            .build();
+        assertThat(Translator.translateForList(response)).isEmpty();
+    }
+
     @Test
     public void buildResourceAlreadyExistsErrorMessage() {
         final String expected = "Resource of type 'AWS::Logs::LogGroup' with identifier 'ID' already exists.";
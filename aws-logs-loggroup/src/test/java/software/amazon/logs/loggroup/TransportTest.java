@@ -0,0 +1,118 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransportTest {
+    //
+    // Credentials the proxy would otherwise inject
+    //
+    private static final DescribeLogGroupsRequest DESCRIBE = DescribeLogGroupsRequest.builder()
+        .logGroupNamePrefix("LogGroup")
+        .overrideConfiguration(AwsRequestOverrideConfiguration.builder()
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("accessKey", "secretKey")))
+            .build())
+        .build();
+
+    @AfterEach
+    public void clearProperty() {
+        System.clearProperty(Transport.PROPERTY);
+    }
+
+    @Test
+    public void configured_ByName() {
+        assertThat(Transport.configured()).isEqualTo(Transport.LAMBDA);
+        System.setProperty(Transport.PROPERTY, "apache");
+        assertThat(Transport.configured()).isEqualTo(Transport.APACHE);
+        System.setProperty(Transport.PROPERTY, " URL-Connection ");
+        assertThat(Transport.configured()).isEqualTo(Transport.URL_CONNECTION);
+
+        System.setProperty(Transport.PROPERTY, "netty");
+        assertThat(assertThrows(IllegalArgumentException.class, Transport::configured).getMessage())
+            .endsWith("is not one of lambda, url-connection, apache");
+        System.setProperty(Transport.PROPERTY, "okhttp");
+        assertThrows(IllegalArgumentException.class, Transport::configured);
+    }
+
+    @Test
+    public void netty_OnlyForTheAsyncClient() throws IOException {
+        assertThat(assertThrows(IllegalArgumentException.class,
+            () -> ClientBuilder.getClient(Region.US_EAST_1, null, Transport.NETTY)).getMessage())
+            .isEqualTo("NETTY has no blocking client, use getAsyncClient");
+        assertThrows(IllegalArgumentException.class, Transport.NETTY::newSyncClient);
+
+        System.setProperty(Transport.PROPERTY, "apache");
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            assertThat(ClientBuilder.getAsyncClient(Region.US_EAST_1, endpoint.getEndpoint())
+                .describeLogGroups(DESCRIBE).join().logGroups()).isEmpty();
+        }
+    }
+
+    @Test
+    public void blockingTransports_MeteredAgainstEndpoint() throws IOException {
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            for (final Transport transport : Arrays.asList(Transport.URL_CONNECTION, Transport.APACHE)) {
+                final CloudWatchLogsClient client =
+                    ClientBuilder.getClient(Region.US_EAST_1, endpoint.getEndpoint(), transport);
+                assertThat(ClientBuilder.getClient(Region.US_EAST_1, endpoint.getEndpoint(), transport))
+                    .isSameAs(client);
+                final long before = requests(transport);
+
+                for (int i = 0; i < 3; i++) {
+                    client.describeLogGroups(DESCRIBE);
+                }
+
+                final TransportMetrics metrics = ClientBuilder.transportMetrics(transport);
+                assertThat(metrics.requests() - before).isEqualTo(3);
+                assertThat(metrics.inFlight()).isEqualTo(0);
+                assertThat(metrics.peakInFlight()).isGreaterThanOrEqualTo(1);
+                assertThat(metrics.summary()).startsWith("Transport " + transport.name() + ": ");
+            }
+            assertThat(ClientBuilder.transportMetrics(Transport.APACHE).maxConnections())
+                .isEqualTo(Transport.MAX_CONNECTIONS);
+        }
+    }
+
+    @Test
+    public void netty_MeteredAgainstEndpoint() throws IOException, InterruptedException {
+        try (FakeLogsEndpoint endpoint = FakeLogsEndpoint.start()) {
+            final CloudWatchLogsAsyncClient client =
+                ClientBuilder.getAsyncClient(Region.US_EAST_1, endpoint.getEndpoint());
+            final long before = requests(Transport.NETTY);
+            final long failedBefore = ClientBuilder.transportMetrics(Transport.NETTY).failures();
+
+            client.describeLogGroups(DESCRIBE).join();
+            client.describeLogGroups(DESCRIBE).join();
+
+            //
+            // A request is counted once Netty is done with it, which can be just after the call returns
+            //
+            final TransportMetrics metrics = ClientBuilder.transportMetrics(Transport.NETTY);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (metrics.requests() - before < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(metrics.requests() - before).isEqualTo(2);
+            assertThat(metrics.failures()).isEqualTo(failedBefore);
+        }
+    }
+
+    private static long requests(final Transport transport) {
+        final TransportMetrics metrics = ClientBuilder.transportMetrics(transport);
+        return metrics == null ? 0 : metrics.requests();
+    }
+}
@@ -3,11 +3,20 @@ package software.amazon.logs.loggroup;
 import org.mockito.ArgumentMatcher;
 import software.amazon.awssdk.services.cloudwatch.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.AssociateKmsKeyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DeleteResourcePolicyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DeleteRetentionPolicyRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DisassociateKmsKeyRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InvalidParameterException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ListTagsLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.TagLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.TagLogGroupResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.UntagLogGroupRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.UntagLogGroupResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyRequest;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
@@ -19,8 +28,12 @@ import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRes
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutRetentionPolicyResponse;
 import software.amazon.cloudformation.test.AbstractMockTestBase;
+import org.junit.jupiter.api.BeforeEach;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -79,6 +92,7 @@ public class UpdateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
     private final DescribeLogGroupsRequest describeLogGroupsRequest =
         DescribeLogGroupsRequest.builder()
             .logGroupNamePrefix(logGroupName)
+            .limit(50)
             .build();
     private final ArgumentMatcher<DescribeLogGroupsRequest> describeLogGroupsRequestArgumentMatcher =
         argCmp(describeLogGroupsRequest);
@@ -114,6 +128,17 @@ public class UpdateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         super(CloudWatchLogsClient.class);
     }
 
+    @BeforeEach
+    public void setUp() {
+        LogGroupCache.shared().clear();
+
+        //
+        // Every Read ends with ListTagsLogGroup, tests that care about tags stub it again
+        //
+        when(getServiceClient().listTagsLogGroup(any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().build());
+    }
+
     @Test
     public void handleRequest_Success() {
 
@@ -187,6 +212,155 @@ public class UpdateHandlerTest extends AbstractMockTestBase<CloudWatchLogsClient
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void handleRequest_Success_KmsKeyAlreadyGone() {
+        final CloudWatchLogsClient service = getServiceClient();
+        when(service.disassociateKmsKey(any(DisassociateKmsKeyRequest.class)))
+            .thenThrow(InvalidParameterException.builder().message("no KMS key associated").build());
+        when(service.describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher)))
+            .thenReturn(describeResponse);
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .retentionInDays(retentionInDays)
+                .build())
+            .previousResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .retentionInDays(retentionInDays)
+                .kmsKeyArn(kmsKeyId)
+                .build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            handler.handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getKmsKeyArn()).isNull();
+        verify(service).disassociateKmsKey(any(DisassociateKmsKeyRequest.class));
+    }
+
+    @Test
+    public void handleRequest_Success_Unchanged() {
+        final CloudWatchLogsClient service = getServiceClient();
+        when(service.describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher)))
+            .thenReturn(describeResponseWithKMS);
+
+        final ResourceModel model = ResourceModel.builder()
+            .logGroupName(logGroupName)
+            .retentionInDays(retentionInDays)
+            .kmsKeyArn(kmsKeyId)
+            .tags(Arrays.asList(tag("team", "logs"), tag("stage", "prod")))
+            .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .previousResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .retentionInDays(retentionInDays)
+                .kmsKeyArn(kmsKeyId)
+                .tags(Arrays.asList(tag("stage", "prod"), tag("team", "logs")))
+                .build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            handler.handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getKmsKeyArn()).isEqualTo(kmsKeyId);
+
+        verify(service).describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher));
+        verify(service, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+        verify(service, never()).deleteRetentionPolicy(any(DeleteRetentionPolicyRequest.class));
+        verify(service, never()).associateKmsKey(any(AssociateKmsKeyRequest.class));
+        verify(service, never()).disassociateKmsKey(any(DisassociateKmsKeyRequest.class));
+        //
+        // Only the Read's
+        //
+        verify(service).listTagsLogGroup(any(ListTagsLogGroupRequest.class));
+        verify(service, never()).tagLogGroup(any(TagLogGroupRequest.class));
+        verify(service, never()).untagLogGroup(any(UntagLogGroupRequest.class));
+    }
+
+    @Test
+    public void handleRequest_TagsReconciledWithOneCallPerDirection() {
+        final CloudWatchLogsClient service = getServiceClient();
+        final Map<String, String> current = new HashMap<>();
+        current.put("team", "logs");
+        current.put("stage", "dev");
+        current.put("owner", "script");
+        current.put("cost-center", "42");
+        when(service.listTagsLogGroup(any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().tags(current).build());
+        when(service.tagLogGroup(any(TagLogGroupRequest.class))).thenReturn(TagLogGroupResponse.builder().build());
+        when(service.untagLogGroup(any(UntagLogGroupRequest.class)))
+            .thenReturn(UntagLogGroupResponse.builder().build());
+        when(service.describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher)))
+            .thenReturn(describeResponse);
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .retentionInDays(retentionInDays)
+                .tags(Arrays.asList(tag("team", "logs"), tag("stage", "prod"), tag("tier", "gold")))
+                .build())
+            .previousResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .retentionInDays(retentionInDays)
+                .tags(Collections.singletonList(tag("team", "logs")))
+                .build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            handler.handleRequest(proxy, request, null, getLoggerProxy());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getTagsAppliedAt()).isNotNull();
+
+        final Map<String, String> added = new HashMap<>();
+        added.put("stage", "prod");
+        added.put("tier", "gold");
+        //
+        // Once to diff against, once more by the Read
+        //
+        verify(service, times(2))
+            .listTagsLogGroup(ListTagsLogGroupRequest.builder().logGroupName(logGroupName).build());
+        verify(service).tagLogGroup(TagLogGroupRequest.builder().logGroupName(logGroupName).tags(added).build());
+        verify(service).untagLogGroup(UntagLogGroupRequest.builder()
+            .logGroupName(logGroupName).tags("cost-center", "owner").build());
+        verify(service, never()).putRetentionPolicy(any(PutRetentionPolicyRequest.class));
+    }
+
+    @Test
+    public void handleRequest_TagsAlreadyInPlaceMakeOnlyTheRead() {
+        final CloudWatchLogsClient service = getServiceClient();
+        when(service.listTagsLogGroup(any(ListTagsLogGroupRequest.class)))
+            .thenReturn(ListTagsLogGroupResponse.builder().tags(Collections.singletonMap("team", "logs")).build());
+        when(service.describeLogGroups(argThat(describeLogGroupsRequestArgumentMatcher)))
+            .thenReturn(describeResponse);
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .tags(Collections.singletonList(tag("team", "logs")))
+                .build())
+            .previousResourceState(ResourceModel.builder()
+                .logGroupName(logGroupName)
+                .build())
+            .build();
+
+        assertThat(handler.handleRequest(proxy, request, null, getLoggerProxy()).getStatus())
+            .isEqualTo(OperationStatus.SUCCESS);
+
+        verify(service, times(2)).listTagsLogGroup(any(ListTagsLogGroupRequest.class));
+        verify(service, never()).tagLogGroup(any(TagLogGroupRequest.class));
+        verify(service, never()).untagLogGroup(any(UntagLogGroupRequest.class));
+    }
+
+    private static Tag tag(final String key, final String value) {
+        return Tag.builder().key(key).value(value).build();
+    }
+
     //@Test
     public void handleRequest_SuccessNoChange() {
         final LogGroup initialLogGroup = LogGroup.builder()
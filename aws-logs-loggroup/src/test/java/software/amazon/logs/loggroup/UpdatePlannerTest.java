@@ -0,0 +1,104 @@
+package software.amazon.logs.loggroup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static software.amazon.logs.loggroup.UpdatePlanner.Call.ASSOCIATE_KMS_KEY;
+import static software.amazon.logs.loggroup.UpdatePlanner.Call.DELETE_RETENTION_POLICY;
+import static software.amazon.logs.loggroup.UpdatePlanner.Call.DISASSOCIATE_KMS_KEY;
+import static software.amazon.logs.loggroup.UpdatePlanner.Call.PUT_RETENTION_POLICY;
+import static software.amazon.logs.loggroup.UpdatePlanner.Call.UPDATE_TAGS;
+
+public class UpdatePlannerTest {
+    private static final String KMS_KEY = "arn:aws:kms:us-east-1:0123456789012:key/a";
+    private static final String OTHER_KMS_KEY = "arn:aws:kms:us-east-1:0123456789012:key/b";
+
+    @Test
+    public void plan_NoChange() {
+        final ResourceModel model = model(7, KMS_KEY);
+
+        assertThat(UpdatePlanner.plan(model, model(7, KMS_KEY))).isEmpty();
+        assertThat(UpdatePlanner.summary(model, UpdatePlanner.plan(model, model(7, KMS_KEY))))
+            .isEqualTo("Update of log group LogGroup calls [], skipped "
+                + "[PUT_RETENTION_POLICY, ASSOCIATE_KMS_KEY] as unchanged");
+    }
+
+    @Test
+    public void plan_NoChangeWithoutProperties() {
+        assertThat(UpdatePlanner.plan(model(null, null), model(null, null))).isEmpty();
+    }
+
+    @Test
+    public void plan_RetentionChanges() {
+        assertThat(UpdatePlanner.plan(model(14, null), model(7, null))).containsExactly(PUT_RETENTION_POLICY);
+        assertThat(UpdatePlanner.plan(model(14, null), model(null, null))).containsExactly(PUT_RETENTION_POLICY);
+        assertThat(UpdatePlanner.plan(model(null, null), model(7, null))).containsExactly(DELETE_RETENTION_POLICY);
+    }
+
+    @Test
+    public void plan_KmsKeyChanges() {
+        assertThat(UpdatePlanner.plan(model(null, OTHER_KMS_KEY), model(null, KMS_KEY)))
+            .containsExactly(ASSOCIATE_KMS_KEY);
+        assertThat(UpdatePlanner.plan(model(null, KMS_KEY), model(null, null))).containsExactly(ASSOCIATE_KMS_KEY);
+        assertThat(UpdatePlanner.plan(model(null, null), model(null, KMS_KEY))).containsExactly(DISASSOCIATE_KMS_KEY);
+    }
+
+    @Test
+    public void plan_MissingPreviousState() {
+        assertThat(UpdatePlanner.plan(model(7, KMS_KEY), null)).containsExactly(PUT_RETENTION_POLICY, ASSOCIATE_KMS_KEY);
+    }
+
+    @Test
+    public void plan_TagChanges() {
+        final ResourceModel tagged = model(7, null);
+        tagged.setTags(Arrays.asList(tag("a", "1"), tag("b", "2")));
+        final ResourceModel reordered = model(7, null);
+        reordered.setTags(Arrays.asList(tag("b", "2"), tag("a", "1")));
+        final ResourceModel emptyTags = model(7, null);
+        emptyTags.setTags(Collections.emptyList());
+
+        assertThat(UpdatePlanner.plan(tagged, reordered)).isEmpty();
+        assertThat(UpdatePlanner.plan(emptyTags, model(7, null))).isEmpty();
+        assertThat(UpdatePlanner.plan(tagged, model(7, null))).containsExactly(UPDATE_TAGS);
+        assertThat(UpdatePlanner.plan(model(7, null), tagged)).containsExactly(UPDATE_TAGS);
+        assertThat(UpdatePlanner.summary(tagged, UpdatePlanner.plan(tagged, reordered)))
+            .isEqualTo("Update of log group LogGroup calls [], skipped "
+                + "[PUT_RETENTION_POLICY, UPDATE_TAGS] as unchanged");
+    }
+
+    @Test
+    public void tagChanges_AddsChangesAndRemoves() {
+        final Map<String, String> current = new HashMap<>();
+        current.put("keep", "1");
+        current.put("change", "old");
+        current.put("drop", "x");
+        final Map<String, String> desired = new HashMap<>();
+        desired.put("keep", "1");
+        desired.put("change", "new");
+        desired.put("add", "y");
+
+        final UpdatePlanner.TagChanges changes = UpdatePlanner.tagChanges(current, desired);
+
+        assertThat(changes.getToAdd()).containsOnlyKeys("change", "add");
+        assertThat(changes.getToAdd()).containsEntry("change", "new");
+        assertThat(changes.getToRemove()).containsExactly("drop");
+        assertThat(UpdatePlanner.tagChanges(desired, desired).isEmpty()).isTrue();
+    }
+
+    private static Tag tag(final String key, final String value) {
+        return Tag.builder().key(key).value(value).build();
+    }
+
+    private static ResourceModel model(final Integer retentionInDays, final String kmsKeyArn) {
+        return ResourceModel.builder()
+            .logGroupName("LogGroup")
+            .retentionInDays(retentionInDays)
+            .kmsKeyArn(kmsKeyArn)
+            .build();
+    }
+}